@@ -0,0 +1,13 @@
+package com.jgm.lineside;
+
+/**
+ * This Enumeration defines the kinds of line side asset that report their state to the Remote Interlocking.
+ * 
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum AssetKind {
+    
+    POINTS, CONTROLLED_SIGNAL, AUTOMATIC_SIGNAL, TRAIN_DETECTION;
+    
+}
@@ -0,0 +1,171 @@
+package com.jgm.lineside;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This Class provides a single, thread safe, registry of every line side asset.
+ * <p>
+ * Assets are registered by type (e.g. Points.class or Signal.class), prefix and identity, and each is given a compact
+ * handle: the next integer for its type, starting at 0. An asset can then be found from its prefix and identity, or from
+ * its handle, in constant time, whatever the size of the layout. Assets that have no prefix are registered with an empty
+ * prefix.
+ * <p>
+ * Lookups take no lock; registration is synchronized on the registry of the type.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class AssetRegistry {
+
+    private static final ConcurrentHashMap <Class <?>, Table> TABLES = new ConcurrentHashMap<>(); // The registry of each type of asset.
+
+    /**
+     * This is the Constructor Method; it is private as the Class only provides static methods.
+     */
+    private AssetRegistry () {}
+
+    /**
+     * This method registers an asset, and returns its handle.
+     *
+     * If an asset of the same type, prefix and identity has already been registered, the new asset replaces it in
+     * lookups by prefix and identity; both assets keep their own handles.
+     * @param type <code>Class</code> The type of asset.
+     * @param prefix <code>String</code> The prefix of the asset, or <i>'null'</i> if it has none.
+     * @param identity <code>String</code> The identity of the asset.
+     * @param asset The asset.
+     * @return <code>Integer</code> The handle of the asset.
+     */
+    public static <T> int register (Class <T> type, String prefix, String identity, T asset) {
+        return table(type).add(new Key(prefix, identity), asset);
+    }
+
+    /**
+     * This method finds an asset from its prefix and identity.
+     * @param type <code>Class</code> The type of asset.
+     * @param prefix <code>String</code> The prefix of the asset, or <i>'null'</i> if it has none.
+     * @param identity <code>String</code> The identity of the asset.
+     * @return The asset, or <i>'null'</i> if no such asset has been registered.
+     */
+    public static <T> T find (Class <T> type, String prefix, String identity) {
+
+        Table table = TABLES.get(type);
+        Integer handle = (table == null || identity == null) ? null : table.handles.get(new Key(prefix, identity));
+        return (handle == null) ? null : type.cast(table.assets[handle]);
+
+    }
+
+    /**
+     * This method finds an asset from its handle.
+     * @param type <code>Class</code> The type of asset.
+     * @param handle <code>Integer</code> The handle of the asset.
+     * @return The asset, or <i>'null'</i> if no asset has been given the handle.
+     */
+    public static <T> T get (Class <T> type, int handle) {
+
+        Table table = TABLES.get(type);
+
+        if (table == null || handle < 0 || handle >= table.count) {
+            return null;
+        }
+
+        return type.cast(table.assets[handle]);
+
+    }
+
+    /**
+     * This method returns the handle of an asset from its prefix and identity.
+     * @param type <code>Class</code> The type of asset.
+     * @param prefix <code>String</code> The prefix of the asset, or <i>'null'</i> if it has none.
+     * @param identity <code>String</code> The identity of the asset.
+     * @return <code>Integer</code> The handle of the asset, or -1 if no such asset has been registered.
+     */
+    public static int getHandle (Class <?> type, String prefix, String identity) {
+
+        Table table = TABLES.get(type);
+        Integer handle = (table == null || identity == null) ? null : table.handles.get(new Key(prefix, identity));
+        return (handle == null) ? -1 : handle;
+
+    }
+
+    /**
+     * This method returns the number of assets of a type that have been registered.
+     * @param type <code>Class</code> The type of asset.
+     * @return <code>Integer</code> The number of assets registered, which is also the next handle to be given.
+     */
+    public static int size (Class <?> type) {
+
+        Table table = TABLES.get(type);
+        return (table == null) ? 0 : table.count;
+
+    }
+
+    // This method returns the registry of a type, creating it the first time the type is registered.
+    private static Table table (Class <?> type) {
+        return TABLES.computeIfAbsent(type, (key) -> new Table());
+    }
+
+    /**
+     * The registry of a single type of asset.
+     */
+    private static final class Table {
+
+        private final ConcurrentHashMap <Key, Integer> handles = new ConcurrentHashMap<>(); // The handle of each asset, by prefix and identity.
+        private volatile Object[] assets = new Object[16]; // The assets, by handle; replaced by a larger copy when full.
+        private volatile int count = 0; // The number of assets registered; written after each asset is recorded.
+
+        // This method gives an asset the next handle, and records it.
+        synchronized int add (Key key, Object asset) {
+
+            int handle = this.count;
+
+            if (handle == this.assets.length) {
+                this.assets = Arrays.copyOf(this.assets, handle * 2);
+            }
+
+            this.assets[handle] = asset;
+            this.count = handle + 1; // Publishes the asset to lookups by handle.
+            this.handles.put(key, handle);
+            return handle;
+
+        }
+
+    }
+
+    /**
+     * The prefix and identity of an asset.
+     */
+    private static final class Key {
+
+        private final String prefix; // The prefix of the asset; empty if it has none.
+        private final String identity; // The identity of the asset.
+        private final int hash; // The hash code, calculated once.
+
+        Key (String prefix, String identity) {
+
+            this.prefix = (prefix == null) ? "" : prefix;
+            this.identity = identity;
+            this.hash = 31 * this.prefix.hashCode() + identity.hashCode();
+
+        }
+
+        @Override
+        public boolean equals (Object other) {
+
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) other;
+            return this.hash == key.hash && this.prefix.equals(key.prefix) && this.identity.equals(key.identity);
+
+        }
+
+        @Override
+        public int hashCode () {
+            return this.hash;
+        }
+
+    }
+
+}
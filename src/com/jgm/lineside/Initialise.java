@@ -2,13 +2,12 @@ package com.jgm.lineside;
 
 import static com.jgm.lineside.LineSideModule.attemptDataLoggerConnection;
 import static com.jgm.lineside.LineSideModule.attemptRemoteInterlockingConnection;
-import static com.jgm.lineside.LineSideModule.buildAutomaticSignals;
-import static com.jgm.lineside.LineSideModule.buildControlledSignals;
-import static com.jgm.lineside.LineSideModule.buildPoints;
-import static com.jgm.lineside.LineSideModule.buildTrainDetectionSections;
+import static com.jgm.lineside.LineSideModule.buildLayout;
 import static com.jgm.lineside.LineSideModule.obtainDataLoggerConnectionDetails;
 import static com.jgm.lineside.LineSideModule.obtainRemoteInterlockingDetails;
 import static com.jgm.lineside.LineSideModule.sendUpdateAll;
+import static com.jgm.lineside.LineSideModule.startStatisticsReports;
+import static com.jgm.lineside.LineSideModule.startLoadingLayout;
 import static com.jgm.lineside.LineSideModule.validateCommandLineArguments;
 
 /**
@@ -22,16 +21,14 @@ public abstract class Initialise {
     public static void runStartUpScript() throws Exception {
 
         validateCommandLineArguments();
+        startLoadingLayout(); // Where the layout is loaded in parallel, it is read whilst the DataLogger connection is made.
         
         obtainDataLoggerConnectionDetails();
         attemptDataLoggerConnection();
         
         while (LineSideModule.getLookingForDataLogger()) {}
         
-        buildPoints();
-        buildControlledSignals();
-        buildAutomaticSignals();
-        buildTrainDetectionSections();
+        buildLayout();
         
         obtainRemoteInterlockingDetails();
         attemptRemoteInterlockingConnection();
@@ -39,6 +36,7 @@ public abstract class Initialise {
         while (LineSideModule.getLookingForRemoteInterlocking()) {}
         
         sendUpdateAll();
+        startStatisticsReports();
     
     }
     
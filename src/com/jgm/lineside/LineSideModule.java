@@ -48,10 +48,11 @@ import com.jgm.lineside.traindetection.TrainDetectionType;
 import com.jgm.lineside.datalogger.Colour;
 import com.jgm.lineside.datalogger.DataLoggerClient;
 import com.jgm.lineside.interlocking.MessageHandler;
-import com.jgm.lineside.interlocking.MessageType;
 import com.jgm.lineside.interlocking.RemoteInterlockingClient;
+import com.jgm.lineside.scheduling.Activities;
 import com.jgm.lineside.points.Points;
 import com.jgm.lineside.points.PointsPosition;
+import com.jgm.lineside.signals.AspectPropagator;
 import com.jgm.lineside.signals.AutomaticSignal;
 import com.jgm.lineside.signals.ControlledSignal;
 import com.jgm.lineside.signals.MovementAuthorityClass;
@@ -70,6 +71,9 @@ import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * This class provides LineSide Module Functionality.
@@ -169,9 +173,34 @@ public class LineSideModule {
     private static final ArrayList <TrainDetection> TRAIN_DETECTION_ARRAY = new ArrayList<>();
     
     /**
-     * The ResultSet that is populated when a SELECT query is sent to the Remote DB.
+     * The interval, in seconds, between the statistics reports sent to the DataLogger (-Dlineside.statisticsIntervalSeconds); 0 sends none.
      */
-    private static ResultSet rs; 
+    private static final int STATISTICS_INTERVAL_SECONDS = Integer.getInteger("lineside.statisticsIntervalSeconds", 60);
+    
+    /**
+     * A flag to indicate that the layout is loaded from the remote DB in parallel, on a connection for each table (-Dlineside.parallelStartup=true).
+     */
+    private static final Boolean PARALLEL_STARTUP = Boolean.getBoolean("lineside.parallelStartup");
+    
+    /**
+     * The loads of the Points, Controlled Signals, Automatic Signals and Train Detection Sections, whilst the layout is loaded in parallel.
+     */
+    private static FutureTask <List <Points>> pointsLoad;
+    private static FutureTask <List <Signal>> controlledSignalsLoad;
+    private static FutureTask <List <Signal>> automaticSignalsLoad;
+    private static FutureTask <List <TrainDetection>> trainDetectionLoad;
+    
+    /**
+     * The queries sent to the Remote DB; each names its columns, which are then read by index, in the order named.
+     */
+    private static final String LINESIDE_MODULE_QUERY = "SELECT `index_key`, `remote_interlocking_index` FROM `Lineside_Module` WHERE `identity` = ?;";
+    private static final String REMOTE_INTERLOCKING_QUERY = "SELECT `ip_address`, `port_number`, `Identity` FROM `Remote_Interlocking` WHERE `index_key` = ?;";
+    private static final String DATA_LOGGER_QUERY = "SELECT `ip_address`, `port_number` FROM `Data_Logger` LIMIT 1;";
+    private static final String POINTS_QUERY = "SELECT `Identity` FROM `Points` WHERE `parentLineSideModule` = ?;";
+    private static final String CONTROLLED_SIGNALS_QUERY = "SELECT `prefix`, `identity`, `type` FROM `Controlled_Signals` WHERE `parentLineSideModule` = ?;";
+    private static final String AUTOMATIC_SIGNALS_QUERY = "SELECT `prefix`, `identity`, `type`, `applicable_signal_prefix`, `applicable_signal_identity` "
+        + "FROM `Non_Controlled_Signals` WHERE `parentLineSideModule` = ?;";
+    private static final String TRAIN_DETECTION_QUERY = "SELECT `identity`, `type` FROM `Train_Detection` WHERE `parentLineSideModule` = ?;";
     
     /**
      * A String array to hold the Command Line Arguments.
@@ -189,7 +218,6 @@ public class LineSideModule {
     public static void main(String[] args) throws IOException, Exception {
        
         commandLineArguments = args; // Get the command lines arguments into the static String array.
-        Signal.setSignalArray(ALL_SIGNALS_ARRAY); // Set the Signals Array.
         
         // Instantiate and start the DataLoggerClient.
         dataLogger = new DataLoggerClient();
@@ -237,8 +265,7 @@ public class LineSideModule {
      */
     public static void sendUpdatePoints (Points points) {
         
-        MessageHandler.addOutgoingMessageToStack(MessageType.STATE_CHANGE, String.format ("POINTS.%s.%s.%s",
-            points.getIdentity(), points.getPointsPosition(), points.getDetectionStatus()));
+        updatePoints(points, true);
         
     }
     
@@ -248,8 +275,7 @@ public class LineSideModule {
      */
     public static void sendUpdateControlledSignal (Signal signal) {
         
-        MessageHandler.addOutgoingMessageToStack(MessageType.STATE_CHANGE, String.format ("CONTROLLED_SIGNAL.%s.%s.%s",
-            signal.getPrefix(), signal.getIdentity(), signal.getCurrentAspect().toString()));
+        updateSignal(AssetKind.CONTROLLED_SIGNAL, signal, true);
         
     }
     
@@ -259,8 +285,7 @@ public class LineSideModule {
      */
     public static void sendUpdateAutomaticSignal (Signal signal) {
         
-        MessageHandler.addOutgoingMessageToStack(MessageType.STATE_CHANGE, String.format ("AUTOMATIC_SIGNAL.%s.%s.%s",
-            signal.getPrefix(), signal.getIdentity(), signal.getCurrentAspect().toString()));
+        updateSignal(AssetKind.AUTOMATIC_SIGNAL, signal, true);
         
     }
     
@@ -270,33 +295,120 @@ public class LineSideModule {
      */
     public static void sendUpdateTrainDetection (TrainDetection section) {
         
-        MessageHandler.addOutgoingMessageToStack(MessageType.STATE_CHANGE, String.format ("TRAIN_DETECTION.%s.%s",
-            section.getIdentity(), section.getDetectionStatus()));
+        updateTrainDetection(section, true);
         
     }
     
     /**
      * This method sends a status update for all line side assets to the Remote Interlocking.
+     * 
+     * If the SNAPSHOT protocol has been agreed, the state of every asset is recorded and then sent in a single SNAPSHOT,
+     * otherwise a STATE_CHANGE message is sent for each asset.
      */
     public static void sendUpdateAll() {
         
+        Boolean snapshot = MessageHandler.isSnapshotAgreed();
+        
         // Update all Points
         for (int i = 0; i < POINTS_ARRAY.size(); i++) {
-            sendUpdatePoints(POINTS_ARRAY.get(i));
+            updatePoints(POINTS_ARRAY.get(i), !snapshot);
         }
 
         // Update all Signals
         for (int i = 0; i < ALL_SIGNALS_ARRAY.size(); i++) {
             if (ALL_SIGNALS_ARRAY.get(i) instanceof ControlledSignal) {
-                sendUpdateControlledSignal(ALL_SIGNALS_ARRAY.get(i));
+                updateSignal(AssetKind.CONTROLLED_SIGNAL, ALL_SIGNALS_ARRAY.get(i), !snapshot);
             } else {
-                sendUpdateAutomaticSignal(ALL_SIGNALS_ARRAY.get(i));
+                updateSignal(AssetKind.AUTOMATIC_SIGNAL, ALL_SIGNALS_ARRAY.get(i), !snapshot);
             }
         }
 
         // Update all Train Detection Sections
         for (int i = 0; i < TRAIN_DETECTION_ARRAY.size(); i++) {
-            sendUpdateTrainDetection(TRAIN_DETECTION_ARRAY.get(i));
+            updateTrainDetection(TRAIN_DETECTION_ARRAY.get(i), !snapshot);
+        }
+        
+        if (snapshot) {
+            MessageHandler.addOutgoingSnapshotToStack();
+        }
+        
+    }
+    
+    /**
+     * This method starts sending a report of the message queue, acknowledgement, aspect propagation and activity statistics
+     * to the DataLogger, every STATISTICS_INTERVAL_SECONDS; the reports are not started if the interval is 0.
+     */
+    protected static void startStatisticsReports() {
+        
+        if (STATISTICS_INTERVAL_SECONDS <= 0) {
+            return;
+        }
+        
+        // The report is sent on its own service, in real time, so that it never holds up a simulated event.
+        Activities.startService("StatisticsReport-Thread", () -> {
+            while (true) {
+                try {
+                    Activities.sleep(STATISTICS_INTERVAL_SECONDS * 1000L);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                sendStatisticsReport();
+            }
+        });
+        
+    }
+    
+    /**
+     * This method sends a report of the message queue, acknowledgement, aspect propagation and activity statistics to the DataLogger.
+     */
+    public static void sendStatisticsReport() {
+        
+        dataLogger.sendToDataLogger(String.join(System.lineSeparator(),
+            String.format ("%sStatistics report%s", Colour.BLUE.getColour(), Colour.RESET.getColour()),
+            MessageHandler.getQueueStatistics(),
+            MessageHandler.getLaneStatistics().trim(),
+            MessageHandler.getBatchStatistics(),
+            MessageHandler.getAcknowledgementStatistics(),
+            AspectPropagator.getStatistics(),
+            Activities.getStatistics()), false, true);
+        
+    }
+    
+    // This method records the state of a Points object, and queues a STATE_CHANGE message if required.
+    private static void updatePoints (Points points, Boolean queue) {
+        
+        updateState(AssetKind.POINTS, points.getHandle(), 
+            points.getPointsPosition().ordinal(), points.getDetectionStatus() ? 1 : 0, 
+            String.format ("POINTS.%s.%s.%s", points.getIdentity(), points.getPointsPosition(), points.getDetectionStatus()), queue);
+        
+    }
+    
+    // This method records the state of a Signal object, and queues a STATE_CHANGE message if required.
+    private static void updateSignal (AssetKind kind, Signal signal, Boolean queue) {
+        
+        SignalAspect aspect = signal.getCurrentAspect(); // Read once, as the aspect may be changed by another request.
+        updateState(kind, signal.getHandle(), 
+            aspect.ordinal(), 0, 
+            String.format ("%s.%s.%s.%s", kind.toString(), signal.getPrefix(), signal.getIdentity(), aspect.toString()), queue);
+        
+    }
+    
+    // This method records the state of a Train Detection Section object, and queues a STATE_CHANGE message if required.
+    private static void updateTrainDetection (TrainDetection section, Boolean queue) {
+        
+        updateState(AssetKind.TRAIN_DETECTION, section.getHandle(), 
+            section.getDetectionStatus().ordinal(), 0, 
+            String.format ("TRAIN_DETECTION.%s.%s", section.getIdentity(), section.getDetectionStatus()), queue);
+        
+    }
+    
+    // This method records the state of an asset on the MessageHandler, and queues a STATE_CHANGE message if required.
+    private static void updateState (AssetKind kind, int handle, int stateA, int stateB, String message, Boolean queue) {
+        
+        if (queue) {
+            MessageHandler.addOutgoingStateChangeToStack(kind, handle, stateA, stateB, message);
+        } else {
+            MessageHandler.recordStateChange(kind, handle, stateA, stateB, message);
         }
         
     }
@@ -310,9 +422,13 @@ public class LineSideModule {
      * @param identity <code>String</code> containing the identity of the points.
      * @param requestedPosition <code>PointsPosition</code> the requested position of the points.
      */
-    public static synchronized void incomingPointsRequest (String identity, PointsPosition requestedPosition) {
+    public static void incomingPointsRequest (String identity, PointsPosition requestedPosition) {
     
-        POINTS_ARRAY.get(Points.returnPointIndex(identity)).movePointsUnderPower(requestedPosition);
+        Points points = Points.getPointsObject(identity);
+        
+        if (points != null) {
+            points.movePointsUnderPower(requestedPosition);
+        }
          
     }
     
@@ -334,7 +450,7 @@ public class LineSideModule {
      * @param moveAuthClass <code>MovementAuthorityClass</code> The MovementAuthorityClass constant. <i>Mandatory</i>
      * @param requestedAspect <code>SignalAspect</code> The requested aspect. <i>Provided when a restricted aspect is required, otherwise 'null'</i>
      */
-    public static synchronized void incomingControlledSignalRequest (String prefix, String identity, String toPrefix, String toIdentity, MovementAuthorityClass moveAuthClass, String requestedAspect) {
+    public static void incomingControlledSignalRequest (String prefix, String identity, String toPrefix, String toIdentity, MovementAuthorityClass moveAuthClass, String requestedAspect) {
      
         Signal thisSignal = Signal.getSignalObject(prefix, identity); // Attempt to get the Signal Object.
         
@@ -392,7 +508,7 @@ public class LineSideModule {
      * @param identity <code>String</code> The identity of the Signal. <i>Mandatory</i>
      * @param mostRestrictiveAspect <code>Boolean</code> <i>'true'</i> indicates the most restrictive aspect should be displayed, <i>'false'</i> indicates the least restrictive aspect.
      */
-    public static synchronized void incomingAutomaticSignalRequest (String prefix, String identity, Boolean mostRestrictiveAspect) {
+    public static void incomingAutomaticSignalRequest (String prefix, String identity, Boolean mostRestrictiveAspect) {
     
         Signal signalObject = Signal.getSignalObject(prefix, identity);
         
@@ -428,38 +544,154 @@ public class LineSideModule {
         return lsmIdentity;
     }
     
+    /**
+     * This method starts loading the layout from the remote DB, where the layout is loaded in parallel; otherwise it does nothing.
+     * 
+     * The Points, Controlled Signals, Automatic Signals and Train Detection Sections are each read on a connection of their
+     * own, at the same time, and each object is created as its row is read. The signals are built in bulk, so the Automatic
+     * Signals need not wait for the signals they refer to. The loads run whilst the DataLogger connection is being made; they
+     * are waited for, and the layout listed, by buildLayout.
+     * 
+     * This method requires that the LineSide Module identity has been validated against the remote DB.
+     */
+    protected static void startLoadingLayout() {
+        
+        if (!PARALLEL_STARTUP) {
+            return;
+        }
+        
+        Signal.beginBulkBuild(); // Completed by buildLayout, once every signal exists.
+        pointsLoad = startLoad("PointsLoader-Thread", LineSideModule::loadPoints);
+        controlledSignalsLoad = startLoad("ControlledSignalsLoader-Thread", LineSideModule::loadControlledSignals);
+        automaticSignalsLoad = startLoad("AutomaticSignalsLoader-Thread", LineSideModule::loadAutomaticSignals);
+        trainDetectionLoad = startLoad("TrainDetectionLoader-Thread", LineSideModule::loadTrainDetectionSections);
+        
+    }
+    
+    /**
+     * This method builds, and lists, the Points, Signals and Train Detection Sections of the layout.
+     * 
+     * Where the layout is being loaded in parallel, this method waits for each load in turn; otherwise each table is read in sequence.
+     * @throws Exception The PointException, ControlledSignalException, AutomaticSignalException or TrainDetectionException of the first table that could not be read.
+     */
+    protected static void buildLayout() throws Exception {
+        
+        if (pointsLoad == null) {
+            
+            buildPoints();
+            Signal.beginBulkBuild(); // Completed by buildAutomaticSignals, once every signal exists.
+            buildControlledSignals();
+            buildAutomaticSignals();
+            buildTrainDetectionSections();
+            return;
+            
+        }
+        
+        dataLogger.sendToDataLogger("Connected to remote DB - looking for Points assigned to this LineSide Module...", true, false);
+        POINTS_ARRAY.addAll(awaitLoad(pointsLoad));
+        listPoints();
+        
+        dataLogger.sendToDataLogger("Connected to remote DB - looking for Controlled Signals assigned to this LineSide Module...", true, false);
+        ALL_SIGNALS_ARRAY.addAll(awaitLoad(controlledSignalsLoad));
+        listControlledSignals();
+        
+        dataLogger.sendToDataLogger("Connected to remote DB - looking for non-controlled Signals assigned to this LineSide Module...", true, false);
+        ALL_SIGNALS_ARRAY.addAll(awaitLoad(automaticSignalsLoad));
+        finishBulkBuild();
+        listAutomaticSignals();
+        
+        dataLogger.sendToDataLogger("Connected to remote DB - looking for Train Detection Sections assigned to this LineSide Module...", true, false);
+        TRAIN_DETECTION_ARRAY.addAll(awaitLoad(trainDetectionLoad));
+        listTrainDetectionSections();
+        
+    }
+    
+    // This method starts a load of a table of the layout, on a connection of its own that is closed once the table has been read.
+    private static <T> FutureTask <List <T>> startLoad(String name, LayoutLoader <T> loader) {
+        
+        FutureTask <List <T>> load = new FutureTask<>(() -> {
+            
+            MySqlConnect db = MySqlConnect.newDbCon();
+            
+            try {
+                return loader.load(db);
+            } finally {
+                db.close();
+            }
+            
+        });
+        
+        Activities.startService(name, load);
+        return load;
+        
+    }
+    
+    // This method waits for a load of a table of the layout, and returns the objects created, or throws the exception that ended the load.
+    private static <T> List <T> awaitLoad(FutureTask <List <T>> load) throws Exception {
+        
+        try {
+            return load.get();
+        } catch (ExecutionException ex) {
+            throw (ex.getCause() instanceof Exception) ? (Exception) ex.getCause() : ex;
+        }
+        
+    }
+    
+    /**
+     * A load of a table of the layout from the remote DB.
+     */
+    private interface LayoutLoader <T> {
+        
+        List <T> load(MySqlConnect db) throws Exception;
+        
+    }
+    
     /**
      * This method builds the Automatic Signal Objects.
+     * 
+     * Where the signals are being built in bulk, this method completes the bulk build, linking every signal to its
+     * applicable signal and working out the aspects, before the aspects are listed.
      * @throws AutomaticSignalException 
      */
     protected static void buildAutomaticSignals() throws AutomaticSignalException {
     
         dataLogger.sendToDataLogger("Connected to remote DB - looking for non-controlled Signals assigned to this LineSide Module...", true, false);
         
-        try {
-            
-            rs = MySqlConnect.getDbCon().query(String.format("SELECT * FROM `Non_Controlled_Signals` WHERE `parentLineSideModule` = %d;", lsmIndexKey));
-            int recordsReturned = 0;
+        ALL_SIGNALS_ARRAY.addAll(loadAutomaticSignals(MySqlConnect.getDbCon()));
+        finishBulkBuild();
+        listAutomaticSignals();
+        
+    }
+    
+    /**
+     * This method loads the Automatic Signal Objects from the remote DB, creating each signal as its row is read.
+     * @param db <code>MySqlConnect</code> The connection to the remote DB.
+     * @return <code>List</code> The Automatic (and Repeater) Signal Objects.
+     * @throws AutomaticSignalException 
+     */
+    private static List <Signal> loadAutomaticSignals(MySqlConnect db) throws AutomaticSignalException {
+        
+        List <Signal> signals = new ArrayList<>();
+        
+        try (ResultSet rs = db.streamQuery(AUTOMATIC_SIGNALS_QUERY, lsmIndexKey)) {
             
             while (rs.next()) {
                 
                 try {
                     
-                    switch (SignalType.valueOf(rs.getString("type"))) {
+                    SignalType type = SignalType.valueOf(rs.getString(3));
+                    
+                    switch (type) {
                         
                         case BANNER:
                         case COLOUR_LIGHT_REPEATER:
-                            ALL_SIGNALS_ARRAY.add(new RepeaterSignal(rs.getString("prefix"), rs.getString("identity"), 
-                                SignalType.valueOf(rs.getString("type")), rs.getString("applicable_signal_prefix"), rs.getString("applicable_signal_identity")));
+                            signals.add(new RepeaterSignal(rs.getString(1), rs.getString(2), type, rs.getString(4), rs.getString(5)));
                             break;
                         default:
-                           ALL_SIGNALS_ARRAY.add(new AutomaticSignal(rs.getString("prefix"), rs.getString("identity"), 
-                                SignalType.valueOf(rs.getString("type")), rs.getString("applicable_signal_prefix"), rs.getString("applicable_signal_identity"))); 
+                           signals.add(new AutomaticSignal(rs.getString(1), rs.getString(2), type, rs.getString(4), rs.getString(5))); 
                            break;
                     }
                     
-                    recordsReturned ++;
-                    
                 } catch (Exception ex) {
                     
                     throw new AutomaticSignalException ("Cannot obtain Automatic Signals from the remote DB");
@@ -467,63 +699,85 @@ public class LineSideModule {
                 }
             }
             
+        } catch (SQLException ex) {
             
-            if (recordsReturned == 0) {
-                
-                throw new AutomaticSignalException ("Cannot obtain Automatic Signals from the remote DB");
-                
-            }
+            throw new AutomaticSignalException ("Cannot obtain Automatic Signals from the remote DB");
             
-            dataLogger.sendToDataLogger(String.format ("%s%s%s",
-                Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
-                true,true);
-            System.out.println();
-
-            dataLogger.sendToDataLogger(String.format ("%s%-22s%-25s%-16s%s",
-                Colour.BLUE.getColour(), "Automatic Signal", "Type", "Current Aspect", Colour.RESET.getColour()), 
-                true, true);
-            dataLogger.sendToDataLogger(String.format ("%s------------------------------------------------------------------------%s",
-                Colour.BLUE.getColour(), Colour.RESET.getColour()),
+        }
+        
+        if (signals.isEmpty()) {
+            
+            throw new AutomaticSignalException ("Cannot obtain Automatic Signals from the remote DB");
+            
+        }
+        
+        return signals;
+        
+    }
+    
+    // This method completes the bulk build of the signals, and reports any signal whose applicable signal does not exist.
+    private static void finishBulkBuild() {
+        
+        int unresolved = Signal.endBulkBuild();
+        
+        if (unresolved > 0) {
+            
+            dataLogger.sendToDataLogger(String.format ("%s%d signal(s) refer to an applicable signal that does not exist%s",
+                Colour.YELLOW.getColour(), unresolved, Colour.RESET.getColour()),
                 true, true);
             
-            for (int i = 0; i < ALL_SIGNALS_ARRAY.size(); i++) {
+        }
+        
+    }
+    
+    // This method lists the Automatic Signal Objects, with their current aspects.
+    private static void listAutomaticSignals() {
+        
+        dataLogger.sendToDataLogger(String.format ("%s%s%s",
+            Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
+            true,true);
+        System.out.println();
+
+        dataLogger.sendToDataLogger(String.format ("%s%-22s%-25s%-16s%s",
+            Colour.BLUE.getColour(), "Automatic Signal", "Type", "Current Aspect", Colour.RESET.getColour()), 
+            true, true);
+        dataLogger.sendToDataLogger(String.format ("%s------------------------------------------------------------------------%s",
+            Colour.BLUE.getColour(), Colour.RESET.getColour()),
+            true, true);
+        
+        for (int i = 0; i < ALL_SIGNALS_ARRAY.size(); i++) {
+            
+            if (ALL_SIGNALS_ARRAY.get(i) instanceof AutomaticSignal || ALL_SIGNALS_ARRAY.get(i) instanceof RepeaterSignal) {
                 
-                if (ALL_SIGNALS_ARRAY.get(i) instanceof AutomaticSignal || ALL_SIGNALS_ARRAY.get(i) instanceof RepeaterSignal) {
-                    
-                    String aspectColour = "";
-                    
-                    switch (ALL_SIGNALS_ARRAY.get(i).getCurrentAspect()) {
-                        case RED:
-                            aspectColour = Colour.RED.getColour();
-                            break;
-                            
-                        case YELLOW:
-                        case CAUTION:
-                        case DOUBLE_YELLOW:
-                            aspectColour = Colour.YELLOW.getColour();
-                            break;
-                            
-                        case GREEN:
-                        case CLEAR:
-                            aspectColour = Colour.GREEN.getColour();
-                            break;
-                    }
-                    
-                    dataLogger.sendToDataLogger(String.format("%s%-22s%-25s%s%-16s%s", 
-                        Colour.BLUE.getColour(), ALL_SIGNALS_ARRAY.get(i).getFullSignalIdentity(), ALL_SIGNALS_ARRAY.get(i).getSignalType().toString(), aspectColour, ALL_SIGNALS_ARRAY.get(i).getCurrentAspect(), Colour.RESET.getColour()), true, true);
-          
-                    
+                String aspectColour = "";
+                
+                switch (ALL_SIGNALS_ARRAY.get(i).getCurrentAspect()) {
+                    case RED:
+                        aspectColour = Colour.RED.getColour();
+                        break;
+                        
+                    case YELLOW:
+                    case CAUTION:
+                    case DOUBLE_YELLOW:
+                        aspectColour = Colour.YELLOW.getColour();
+                        break;
+                        
+                    case GREEN:
+                    case CLEAR:
+                        aspectColour = Colour.GREEN.getColour();
+                        break;
                 }
                 
+                dataLogger.sendToDataLogger(String.format("%s%-22s%-25s%s%-16s%s", 
+                    Colour.BLUE.getColour(), ALL_SIGNALS_ARRAY.get(i).getFullSignalIdentity(), ALL_SIGNALS_ARRAY.get(i).getSignalType().toString(), aspectColour, ALL_SIGNALS_ARRAY.get(i).getCurrentAspect(), Colour.RESET.getColour()), true, true);
+      
+                
             }
             
-            System.out.println();
-            
-        } catch (SQLException ex) {
-            
-            throw new AutomaticSignalException ("Cannot obtain Automatic Signals from the remote DB");
-            
         }
+        
+        System.out.println();
+        
     }
     
     /**
@@ -542,12 +796,13 @@ public class LineSideModule {
                 
                 lsmIdentity = commandLineArguments[0]; // Set this LineSide Module Identity.
                 
-                try {
+                try (ResultSet rs = MySqlConnect.getDbCon().streamQuery(LINESIDE_MODULE_QUERY, lsmIdentity)) {
 
-                    rs = MySqlConnect.getDbCon().query(String.format("SELECT * FROM `Lineside_Module` WHERE `identity` = '%s';", lsmIdentity));
-                    rs.first();
-                    lsmIndexKey = (int) rs.getLong("index_key");
-                    riIndexKey = (int) rs.getLong("remote_interlocking_index");
+                    if (!rs.next()) {
+                        throw new CommandLineException("The LineSideModule Identity could not be validated against the remote DB");
+                    }
+                    lsmIndexKey = (int) rs.getLong(1);
+                    riIndexKey = (int) rs.getLong(2);
                     
                     dataLogger.sendToDataLogger(String.format ("%s%s%s [Valid LineSideModule: %s] %s",
                         Colour.GREEN.getColour(), getOK(), Colour.BLUE.getColour(),lsmIdentity, Colour.RESET.getColour()), 
@@ -583,13 +838,14 @@ public class LineSideModule {
     
         dataLogger.sendToDataLogger("Connected to remote DB - looking for Remote Interlocking details...", true, false);
         
-        try {
+        try (ResultSet rs = MySqlConnect.getDbCon().streamQuery(REMOTE_INTERLOCKING_QUERY, riIndexKey)) {
             
-            rs = MySqlConnect.getDbCon().query(String.format("SELECT * FROM `Remote_Interlocking` WHERE `index_key` = %d;", riIndexKey));
-            rs.first();
-            riHost = rs.getString("ip_address");
-            riPort = rs.getString("port_number");
-            riIdentity = rs.getString("Identity");
+            if (!rs.next()) {
+                throw new RemoteInterlockingException("Cannot obtain the Remote Interlocking details from the remote DB");
+            }
+            riHost = rs.getString(1);
+            riPort = rs.getString(2);
+            riIdentity = rs.getString(3);
             dataLogger.sendToDataLogger(String.format ("%s%s%s ", 
                 Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()), 
                 true, false);
@@ -612,12 +868,13 @@ public class LineSideModule {
     
         dataLogger.sendToDataLogger ("Connected to remote DB - looking for DataLogger details...", true, false);
         
-        try {
+        try (ResultSet rs = MySqlConnect.getDbCon().streamQuery(DATA_LOGGER_QUERY)) {
             
-            rs = MySqlConnect.getDbCon().query("SELECT * FROM `Data_Logger`;");
-            rs.first();
-            dlHost = rs.getString("ip_address");
-            dlPort = rs.getString("port_number");
+            if (!rs.next()) {
+                throw new DataLoggerException("Cannot obtain DataLogger Details from the remote DB");
+            }
+            dlHost = rs.getString(1);
+            dlPort = rs.getString(2);
             
             dataLogger.sendToDataLogger(String.format ("%s%s%s [%s:%s] %s",
                 Colour.GREEN.getColour(), getOK(), Colour.BLUE.getColour(), dlHost, dlPort, Colour.RESET.getColour()), 
@@ -654,41 +911,27 @@ public class LineSideModule {
         dataLogger.sendToDataLogger("Connected to remote DB - looking for Points assigned to this LineSide Module...",
             true,false);
         
-        try {
-            
-            rs = MySqlConnect.getDbCon().query(String.format("SELECT * FROM `Points` WHERE `parentLineSideModule` = %d;", lsmIndexKey));
-            int recordsReturned = 0;
+        POINTS_ARRAY.addAll(loadPoints(MySqlConnect.getDbCon()));
+        listPoints();
+        
+    }
+    
+    /**
+     * This method loads the Points Objects from the remote DB, creating the points as each row is read.
+     * @param db <code>MySqlConnect</code> The connection to the remote DB.
+     * @return <code>List</code> The Points Objects.
+     * @throws com.jgm.lineside.customexceptions.PointException
+     */
+    private static List <Points> loadPoints(MySqlConnect db) throws PointException {
+        
+        List <Points> points = new ArrayList<>();
+        
+        try (ResultSet rs = db.streamQuery(POINTS_QUERY, lsmIndexKey)) {
             
             while (rs.next()) {
                 
-                POINTS_ARRAY.add(new Points(rs.getString("Identity")));
-                recordsReturned ++;
-                
-            }
-            
-            if (recordsReturned > 0) {
-                
-                dataLogger.sendToDataLogger(String.format ("%s%s%s",
-                    Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
-                    true,true);
-                System.out.println();
-                dataLogger.sendToDataLogger(String.format ("%s%-8s%-10s%-8s%s",
-                    Colour.BLUE.getColour(), "Points",  "Position", "Detected", Colour.RESET.getColour()),
-                    true, true);
-                dataLogger.sendToDataLogger(String.format ("%s--------------------------%s",
-                    Colour.BLUE.getColour(), Colour.RESET.getColour()), 
-                    true, true);
-                for (int i = 0; i < POINTS_ARRAY.size(); i++) {
-                    dataLogger.sendToDataLogger(String.format("%s%-8s%-10s%-8s%s", 
-                        Colour.BLUE.getColour(), POINTS_ARRAY.get(i).getIdentity(), POINTS_ARRAY.get(i).getPointsPosition().toString(), 
-                        (POINTS_ARRAY.get(i).getDetectionStatus()) ? Colour.GREEN.getColour() + getOK() + Colour.RESET.getColour() : getFailed(), Colour.RESET.getColour()),
-                        true, true);
-                }
-                System.out.println();
+                points.add(new Points(rs.getString(1)));
                 
-            } else {
-                
-                throw new PointException("There are no points assigned to this LineSide Module within the remote DB");
             }
             
         } catch (SQLException ex) {
@@ -696,6 +939,38 @@ public class LineSideModule {
                 throw new PointException("Cannot obtain Points assigned to this Lineside Module from the remote DB");
                 
         }
+        
+        if (points.isEmpty()) {
+            
+            throw new PointException("There are no points assigned to this LineSide Module within the remote DB");
+            
+        }
+        
+        return points;
+        
+    }
+    
+    // This method lists the Points Objects, with their position and detection.
+    private static void listPoints() {
+        
+        dataLogger.sendToDataLogger(String.format ("%s%s%s",
+            Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
+            true,true);
+        System.out.println();
+        dataLogger.sendToDataLogger(String.format ("%s%-8s%-10s%-8s%s",
+            Colour.BLUE.getColour(), "Points",  "Position", "Detected", Colour.RESET.getColour()),
+            true, true);
+        dataLogger.sendToDataLogger(String.format ("%s--------------------------%s",
+            Colour.BLUE.getColour(), Colour.RESET.getColour()), 
+            true, true);
+        for (int i = 0; i < POINTS_ARRAY.size(); i++) {
+            dataLogger.sendToDataLogger(String.format("%s%-8s%-10s%-8s%s", 
+                Colour.BLUE.getColour(), POINTS_ARRAY.get(i).getIdentity(), POINTS_ARRAY.get(i).getPointsPosition().toString(), 
+                (POINTS_ARRAY.get(i).getDetectionStatus()) ? Colour.GREEN.getColour() + getOK() + Colour.RESET.getColour() : getFailed(), Colour.RESET.getColour()),
+                true, true);
+        }
+        System.out.println();
+        
     }
     
     /**
@@ -706,16 +981,27 @@ public class LineSideModule {
     
         dataLogger.sendToDataLogger("Connected to remote DB - looking for Controlled Signals assigned to this LineSide Module...", true, false);
         
-        try {
-            
-            rs = MySqlConnect.getDbCon().query(String.format("SELECT * FROM `Controlled_Signals` WHERE `parentLineSideModule` = %d;", lsmIndexKey));
-            int recordsReturned = 0;
+        ALL_SIGNALS_ARRAY.addAll(loadControlledSignals(MySqlConnect.getDbCon()));
+        listControlledSignals();
+
+    }
+    
+    /**
+     * This method loads the Controlled Signal Objects from the remote DB, creating each signal as its row is read.
+     * @param db <code>MySqlConnect</code> The connection to the remote DB.
+     * @return <code>List</code> The Controlled Signal Objects.
+     * @throws ControlledSignalException 
+     */
+    private static List <Signal> loadControlledSignals(MySqlConnect db) throws ControlledSignalException {
+        
+        List <Signal> signals = new ArrayList<>();
+        
+        try (ResultSet rs = db.streamQuery(CONTROLLED_SIGNALS_QUERY, lsmIndexKey)) {
             
             while (rs.next()) {
                 try {
                     
-                    ALL_SIGNALS_ARRAY.add(new ControlledSignal(rs.getString("prefix"), rs.getString("identity"), SignalType.valueOf(rs.getString("type"))));
-                    recordsReturned ++;
+                    signals.add(new ControlledSignal(rs.getString(1), rs.getString(2), SignalType.valueOf(rs.getString(3))));
                     
                 } catch (Exception ex) {
         
@@ -724,41 +1010,48 @@ public class LineSideModule {
                 }
             }
             
-            if (recordsReturned == 0) {
-
-                throw new ControlledSignalException ("Cannot obtain Controlled Signal details from the remote DB");
-                
-            }
-            
-            dataLogger.sendToDataLogger(String.format ("%s%s%s",
-                Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
-                true,true);
-            
-            System.out.println();
-            
-            dataLogger.sendToDataLogger(String.format ("%s%-19s%-19s%-10s%s",
-                Colour.BLUE.getColour(), "Controlled Signal", "Type", "Current Aspect", Colour.RESET.getColour())
-                , true, true);
-            dataLogger.sendToDataLogger(String.format ("%s----------------------------------------------------%s",
-                Colour.BLUE.getColour(), Colour.RESET.getColour()), 
-                true, true);
-            
-            for (int i = 0; i < ALL_SIGNALS_ARRAY.size(); i++) {
-                dataLogger.sendToDataLogger(String.format("%s%-19s%-19s%-10s%s", 
-                    Colour.BLUE.getColour(), ALL_SIGNALS_ARRAY.get(i).getFullSignalIdentity(), ALL_SIGNALS_ARRAY.get(i).getSignalType().toString(), 
-                    (ALL_SIGNALS_ARRAY.get(i).getCurrentAspect() == SignalAspect.RED) ? Colour.RED.getColour() + ALL_SIGNALS_ARRAY.get(i).getCurrentAspect().toString() + Colour.RESET.getColour() : ALL_SIGNALS_ARRAY.get(i).getCurrentAspect().toString(), 
-                    Colour.RESET.getColour()), 
-                    true, true);
-            }
-            
-            System.out.println();
-            
         } catch (SQLException ex) {
         
             throw new ControlledSignalException ("Cannot obtain Controlled Signal details from the remote DB");
             
         }
+        
+        if (signals.isEmpty()) {
 
+            throw new ControlledSignalException ("Cannot obtain Controlled Signal details from the remote DB");
+            
+        }
+        
+        return signals;
+        
+    }
+    
+    // This method lists the Controlled Signal Objects, with their current aspects; it is called before any Automatic Signal is added.
+    private static void listControlledSignals() {
+        
+        dataLogger.sendToDataLogger(String.format ("%s%s%s",
+            Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
+            true,true);
+        
+        System.out.println();
+        
+        dataLogger.sendToDataLogger(String.format ("%s%-19s%-19s%-10s%s",
+            Colour.BLUE.getColour(), "Controlled Signal", "Type", "Current Aspect", Colour.RESET.getColour())
+            , true, true);
+        dataLogger.sendToDataLogger(String.format ("%s----------------------------------------------------%s",
+            Colour.BLUE.getColour(), Colour.RESET.getColour()), 
+            true, true);
+        
+        for (int i = 0; i < ALL_SIGNALS_ARRAY.size(); i++) {
+            dataLogger.sendToDataLogger(String.format("%s%-19s%-19s%-10s%s", 
+                Colour.BLUE.getColour(), ALL_SIGNALS_ARRAY.get(i).getFullSignalIdentity(), ALL_SIGNALS_ARRAY.get(i).getSignalType().toString(), 
+                (ALL_SIGNALS_ARRAY.get(i).getCurrentAspect() == SignalAspect.RED) ? Colour.RED.getColour() + ALL_SIGNALS_ARRAY.get(i).getCurrentAspect().toString() + Colour.RESET.getColour() : ALL_SIGNALS_ARRAY.get(i).getCurrentAspect().toString(), 
+                Colour.RESET.getColour()), 
+                true, true);
+        }
+        
+        System.out.println();
+        
     }
     
     /**
@@ -769,17 +1062,28 @@ public class LineSideModule {
     
         dataLogger.sendToDataLogger("Connected to remote DB - looking for Train Detection Sections assigned to this LineSide Module...", true, false);
         
-        try {
-            
-            rs = MySqlConnect.getDbCon().query(String.format("SELECT * FROM `Train_Detection` WHERE `parentLineSideModule` = %d;", lsmIndexKey));
-            int recordsReturned = 0;
+        TRAIN_DETECTION_ARRAY.addAll(loadTrainDetectionSections(MySqlConnect.getDbCon()));
+        listTrainDetectionSections();
+        
+    }
+    
+    /**
+     * This method loads the Train Detection Section Objects from the remote DB, creating each section as its row is read.
+     * @param db <code>MySqlConnect</code> The connection to the remote DB.
+     * @return <code>List</code> The Train Detection Section Objects.
+     * @throws TrainDetectionException 
+     */
+    private static List <TrainDetection> loadTrainDetectionSections(MySqlConnect db) throws TrainDetectionException {
+        
+        List <TrainDetection> sections = new ArrayList<>();
+        
+        try (ResultSet rs = db.streamQuery(TRAIN_DETECTION_QUERY, lsmIndexKey)) {
             
             while (rs.next()) {
                 
                 try {
                     
-                    TRAIN_DETECTION_ARRAY.add(new TrainDetection(rs.getString("identity"), TrainDetectionType.valueOf(rs.getString("type"))));
-                    recordsReturned ++;
+                    sections.add(new TrainDetection(rs.getString(1), TrainDetectionType.valueOf(rs.getString(2))));
                     
                 } catch (Exception ex) {
 
@@ -788,37 +1092,45 @@ public class LineSideModule {
                 }
             }
             
-            if (recordsReturned == 0) {
-
-                throw new TrainDetectionException ("There are no Train Detection Sections associated with this LineSide Module within the remote DB");
-                
-            }
-            
-            dataLogger.sendToDataLogger(String.format ("%s%s%s",
-                Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
-                true,true);
-            System.out.println();
-            
-            dataLogger.sendToDataLogger(String.format ("%s%-26s%-18s%s%s",
-                Colour.BLUE.getColour(), "Train Detection Section", "Type", "Status", Colour.RESET.getColour()), 
-                true, true);
-            dataLogger.sendToDataLogger(String.format ("%s--------------------------------------------------%s",
-                Colour.BLUE.getColour(), Colour.RESET.getColour()), 
-                true, true);
-            for (int i = 0; i < TRAIN_DETECTION_ARRAY.size(); i++) {
-                dataLogger.sendToDataLogger(String.format("%s%-26s%-18s%-10s%s", 
-                    Colour.BLUE.getColour(), TRAIN_DETECTION_ARRAY.get(i).getIdentity(), TRAIN_DETECTION_ARRAY.get(i).getType().toString(),
-                    (TRAIN_DETECTION_ARRAY.get(i).getDetectionStatus().toString().contains("CLEAR"))? Colour.GREEN.getColour() + "CLEAR" + Colour.RESET.getColour() : Colour.RED.getColour() + "OCCUPIED" + Colour.RESET.getColour(), 
-                    Colour.RESET.getColour()), 
-                    true, true);
-            }
-            System.out.println();
-            
         } catch (SQLException ex) {
             
            throw new TrainDetectionException("Cannot obtain Train Detection Section details from the remote DB");
            
         }
+        
+        if (sections.isEmpty()) {
+
+            throw new TrainDetectionException ("There are no Train Detection Sections associated with this LineSide Module within the remote DB");
+            
+        }
+        
+        return sections;
+        
+    }
+    
+    // This method lists the Train Detection Section Objects, with their status.
+    private static void listTrainDetectionSections() {
+        
+        dataLogger.sendToDataLogger(String.format ("%s%s%s",
+            Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()),
+            true,true);
+        System.out.println();
+        
+        dataLogger.sendToDataLogger(String.format ("%s%-26s%-18s%s%s",
+            Colour.BLUE.getColour(), "Train Detection Section", "Type", "Status", Colour.RESET.getColour()), 
+            true, true);
+        dataLogger.sendToDataLogger(String.format ("%s--------------------------------------------------%s",
+            Colour.BLUE.getColour(), Colour.RESET.getColour()), 
+            true, true);
+        for (int i = 0; i < TRAIN_DETECTION_ARRAY.size(); i++) {
+            dataLogger.sendToDataLogger(String.format("%s%-26s%-18s%-10s%s", 
+                Colour.BLUE.getColour(), TRAIN_DETECTION_ARRAY.get(i).getIdentity(), TRAIN_DETECTION_ARRAY.get(i).getType().toString(),
+                (TRAIN_DETECTION_ARRAY.get(i).getDetectionStatus().toString().contains("CLEAR"))? Colour.GREEN.getColour() + "CLEAR" + Colour.RESET.getColour() : Colour.RED.getColour() + "OCCUPIED" + Colour.RESET.getColour(), 
+                Colour.RESET.getColour()), 
+                true, true);
+        }
+        System.out.println();
+        
     }
     
     /**
@@ -832,33 +1144,18 @@ public class LineSideModule {
         remoteInterlocking.setName("RemoteInterlockingClient-Thread");
         remoteInterlocking.start();
         
-        // Initiate and run the processOutgoingMessages method as a Thread
-        Thread processOutgoingMessages = new Thread (() -> {
-            while (true) {
-                try {
-                    Thread.sleep(500);
-                    MessageHandler.processOutgoingMessages();
-                } catch (InterruptedException ex) {
-                    
-                }
-            }
-        });
-        processOutgoingMessages.setName("ProcessOutgoingMessagesStack-Thread");
-        processOutgoingMessages.start();
+        // Outgoing messages are sent by the OutgoingMessage Thread, started once the connection has been established.
         
-        // Initiate and run the processIncomingMessages method as a Thread
-        Thread processIncomingMessages = new Thread (() -> {
+        // Initiate and run the processIncomingMessages method as a service; it sleeps until a message is received.
+        Activities.startService("ProcessIncomingMessagesStack-Thread", () -> {
             while (true) {
                 try {
-                    Thread.sleep(500);
                     MessageHandler.processIncomingMessages();
                 } catch (InterruptedException ex) {
                     
                 }
             }
         });
-        processIncomingMessages.setName("ProcessIncomingMessagesStack-Thread");
-        processIncomingMessages.start();
         
     }
     
@@ -7,14 +7,22 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 
 /**
  * A Singleton Database Access Class for a MySQL Database.
+ * <p>
+ * Queries that are run repeatedly, or that return many rows, should use streamQuery: the statement is prepared once
+ * for each connection and reused, the parameters are bound rather than formatted into the SQL, and the rows are
+ * streamed from the server as they are read rather than held in memory. The number of rows fetched at a time is set
+ * with the system property lineside.dbFetchSize; by default the rows are streamed one at a time.
  * @author Jonathan Moss
  * @version v1.0 August 2016
  */
@@ -29,6 +37,8 @@ public final class MySqlConnect {
     private static String dbName; // The name of the database.
     private static String dbPassword; // The password of the DB user.
     private static final ArrayList <String> DB_CONNECTION_CREDENTIALS  = new ArrayList<>(); // An array to hold the connection credentials. 
+    private static final int FETCH_SIZE = Integer.getInteger("lineside.dbFetchSize", 0); // The number of rows fetched at a time by streamQuery; 0 streams the rows one at a time.
+    private final Map <String, PreparedStatement> statements = new HashMap<>(); // The statements prepared on this connection, by SQL; guarded by this.
     
     /**
      * This method returns the single instance of the initialised class object.
@@ -41,18 +51,78 @@ public final class MySqlConnect {
         return db;
     }
     
+    /**
+     * This method returns a new instance, with a connection of its own, separate from that of the single instance.
+     * 
+     * It is used where several queries are run at the same time, e.g. whilst the layout is loaded in parallel; the
+     * connection should be closed once it is no longer needed.
+     * @return MysqlConnect Database connection object
+     */
+    public static MySqlConnect newDbCon() {
+        return new MySqlConnect();
+    }
+    
+    /**
+     * This method closes the connection, e.g. once the layout has been loaded.
+     */
+    public synchronized void close() {
+        
+        try {
+            for (PreparedStatement prepared : this.statements.values()) {
+                prepared.close();
+            }
+            this.statements.clear();
+            if (this.conn != null) {
+                this.conn.close();
+            }
+        } catch (SQLException ex) {}
+        
+    }
+    
     /**
      *
      * @param query String The query to be executed
      * @return a ResultSet object containing the results or null if not available
      * @throws SQLException
      */
-    public ResultSet query(String query) throws SQLException {
-        statement = db.conn.createStatement();
+    public synchronized ResultSet query(String query) throws SQLException {
+        if (statement != null) {
+            statement.close(); // Closes the ResultSet of the previous query, which is no longer needed.
+        }
+        statement = this.conn.createStatement();
         ResultSet res = statement.executeQuery(query);
         return res;
     }
     
+    /**
+     * This method runs a prepared query, streaming the rows from the server as they are read.
+     * 
+     * The statement is prepared the first time the SQL is used on this connection, and reused after that. The ResultSet
+     * is forward only, and should be closed once read (e.g. with try-with-resources); whilst rows are being streamed, no
+     * other query may be run on the same connection.
+     * @param sql String The query, with a '?' for each parameter; columns should be named, so that they can be read by index.
+     * @param parameters The values of the parameters, in order.
+     * @return a ResultSet object containing the results
+     * @throws SQLException
+     */
+    public synchronized ResultSet streamQuery(String sql, Object... parameters) throws SQLException {
+        
+        PreparedStatement prepared = this.statements.get(sql);
+        
+        if (prepared == null) {
+            prepared = this.conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            prepared.setFetchSize((FETCH_SIZE > 0) ? FETCH_SIZE : Integer.MIN_VALUE); // Integer.MIN_VALUE asks the MySQL driver to stream the rows one at a time.
+            this.statements.put(sql, prepared);
+        }
+        
+        for (int i = 0; i < parameters.length; i++) {
+            prepared.setObject(i + 1, parameters[i]);
+        }
+        
+        return prepared.executeQuery();
+        
+    }
+    
     /**
      * @desc Method to insert data to a table
      * @param insertQuery String The Insert query
@@ -60,9 +130,9 @@ public final class MySqlConnect {
      * @throws SQLException
      */
     public int insert(String insertQuery) throws SQLException {
-        statement = db.conn.createStatement();
-        int result = statement.executeUpdate(insertQuery);
-        return result;
+        try (Statement insertStatement = this.conn.createStatement()) {
+            return insertStatement.executeUpdate(insertQuery);
+        }
     }
     
     /**
@@ -72,7 +142,8 @@ public final class MySqlConnect {
         if (dbHost == null) { // Check if dbHost has been initialised.
             getDatabaseCredentials(); // If not, get and fill the class variables concerning the database credentials.
         }
-        conString = String.format("jdbc:mysql://%s:%s/%s", dbHost, dbPort, dbName); // The db connection String.
+        conString = String.format("jdbc:mysql://%s:%s/%s%s", dbHost, dbPort, dbName, 
+            (FETCH_SIZE > 0) ? "?useCursorFetch=true" : ""); // The db connection String; a server side cursor is needed to fetch a number of rows at a time.
         if (this.conn == null) {
             
             try {
@@ -88,6 +159,10 @@ public final class MySqlConnect {
      */
     private synchronized static void getDatabaseCredentials() {
         
+        if (dbHost != null) {
+            return; // Already read, by a connection opened at the same time.
+        }
+        
         try {
             // Setup the input stream.
             InputStream dbSetup  = LineSideModule.class.getResourceAsStream("dbAccess.txt");
@@ -5,6 +5,11 @@ import static com.jgm.lineside.ApplicationUtilities.getNewLine;
 import static com.jgm.lineside.ApplicationUtilities.getOK;
 import com.jgm.lineside.LineSideModule;
 import com.jgm.lineside.customexceptions.DataLoggerException;
+import com.jgm.lineside.scheduling.Activities;
+import com.jgm.lineside.transport.ChannelConnection;
+import com.jgm.lineside.transport.FrameListener;
+import com.jgm.lineside.transport.SelectorTransport;
+import com.jgm.lineside.transport.TransportMode;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -13,6 +18,7 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 
 /**
  * This class provides a DataLogger Connection.
@@ -80,6 +86,23 @@ public class DataLoggerClient extends Thread {
     public synchronized void setConnectionStatus (ConnectionStatus connectionStatus) {
         
         this.connectionStatus = connectionStatus;
+        this.notifyAll(); // Wake the DataLoggerClient Thread if it is waiting for the status to change.
+        
+    }
+    
+    /**
+     * This method waits whilst the ConnectionStatus of the DataLoggerClient object remains unchanged.
+     * @param connectionStatus <code>ConnectionStatus</code> The current status.
+     */
+    private synchronized void awaitConnectionStatusChange (ConnectionStatus connectionStatus) {
+        
+        while (this.connectionStatus == connectionStatus) {
+            try {
+                this.wait();
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
         
     }
     
@@ -131,10 +154,10 @@ public class DataLoggerClient extends Thread {
         this.sendToDataLogger(String.format ("Attempting a connection to the DataLogger (Attempt %s/%s)...", 
             this.connectionAttempts, MAX_CON_ATTEMPTS),
             true, false);
-        this.conn = new Socket();
-        
         try {
 
+            // Create a new Socket Object; from a SocketChannel if the SELECTOR transport is to serve the connection.
+            this.conn = (TransportMode.getConfigured() == TransportMode.SELECTOR) ? SocketChannel.open().socket() : new Socket();
             Thread.sleep(3000);
             this.conn.connect(sockAddress, 10000);
 
@@ -161,12 +184,36 @@ public class DataLoggerClient extends Thread {
 
         try {
 
-            this.output = new DataOutputStream(this.conn.getOutputStream());
+            if (TransportMode.getConfigured() == TransportMode.SELECTOR) {
+                
+                // The SelectorTransport Thread watches the connection; nothing is expected from the DataLogger.
+                ChannelConnection connection = SelectorTransport.getInstance().register(this.conn.getChannel(), new FrameListener() {
+                    
+                    @Override
+                    public void frameReceived(byte[] frame, int length) {}
+                    
+                    @Override
+                    public void connectionLost() { // Handed off, as the loss is logged and the SelectorTransport Thread must not block.
+                        Activities.start("DataLogger-Lost", () -> {
+                            DataLoggerClient.this.sendToDataLogger(String.format ("%sWARNING: The connection to the DataLogger has ended%s",
+                                Colour.RED.getColour(), Colour.RESET.getColour()), 
+                                true, true);
+                            DataLoggerClient.this.setConnectionStatus(ConnectionStatus.ATTEMPTING_CONNECTION);
+                        });
+                    }
+                    
+                }, "DataLogger");
+                this.output = new DataOutputStream(connection.getOutputStream());
+                
+            } else {
+                
+                this.output = new DataOutputStream(this.conn.getOutputStream());
+                Activities.startService("IncomingMessageThread", new IncomingStream (this.conn.getInputStream(), this));
+                
+            }
+            
             this.output.writeUTF(this.moduleIdentity);
             this.output.flush();
-            Thread t1 = new Thread (new IncomingStream (this.conn.getInputStream(), this));
-            t1.setName("IncomingMessageThread");
-            t1.start();
             this.setConnectionStatus(ConnectionStatus.CONNECTED);
             LineSideModule.setLookingForDataLogger(false);
 
@@ -245,7 +292,7 @@ public class DataLoggerClient extends Thread {
                 switch (this.getConnectionStatus()) {
                     
                     case NO_CONNECTION:
-                        // Do Nothing.
+                        this.awaitConnectionStatusChange(ConnectionStatus.NO_CONNECTION); // Nothing to do until a connection is requested.
                         break;
                         
                     case ATTEMPTING_CONNECTION:
@@ -279,7 +326,7 @@ public class DataLoggerClient extends Thread {
                         break;
                         
                     case CONNECTED:
-                        //this.whileConnected();
+                        this.awaitConnectionStatusChange(ConnectionStatus.CONNECTED); // Nothing to do until the connection ends.
                         break;
                 }
                 
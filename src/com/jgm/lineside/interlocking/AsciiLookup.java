@@ -0,0 +1,82 @@
+package com.jgm.lineside.interlocking;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This Class provides a lookup table that finds an enumeration constant from its name, held as ASCII bytes within a buffer.
+ * <p>
+ * The constants are grouped by the length of their name, so a lookup compares the bytes against only the few names
+ * of the same length, and no String is created.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ * @param <E> The enumeration type.
+ */
+final class AsciiLookup <E extends Enum<E>> {
+
+    private final Object[][] constantsByLength; // The constants, indexed by the length of their name.
+    private final byte[][][] namesByLength; // The names of the constants as ASCII bytes, indexed by length.
+
+    /**
+     * This is the Constructor Method for an AsciiLookup object.
+     * @param values <code>E[]</code> The enumeration constants, i.e. E.values().
+     */
+    AsciiLookup (E[] values) {
+
+        int longest = 0;
+        for (E value : values) {
+            longest = Math.max(longest, value.name().length());
+        }
+
+        this.constantsByLength = new Object[longest + 1][0];
+        this.namesByLength = new byte[longest + 1][0][];
+
+        for (E value : values) {
+            int length = value.name().length();
+            int count = this.constantsByLength[length].length;
+            this.constantsByLength[length] = Arrays.copyOf(this.constantsByLength[length], count + 1);
+            this.namesByLength[length] = Arrays.copyOf(this.namesByLength[length], count + 1);
+            this.constantsByLength[length][count] = value;
+            this.namesByLength[length][count] = value.name().getBytes(StandardCharsets.US_ASCII);
+        }
+
+    }
+
+    /**
+     * This method returns the constant whose name is held in part of a buffer.
+     * @param buffer <code>byte[]</code> The buffer.
+     * @param start <code>Integer</code> The index of the first byte of the name.
+     * @param end <code>Integer</code> The index after the last byte of the name.
+     * @return The constant, or <i>'null'</i> if no constant has that name.
+     */
+    @SuppressWarnings("unchecked")
+    E find (byte[] buffer, int start, int end) {
+
+        int length = end - start;
+
+        if (length <= 0 || length >= this.namesByLength.length) {
+            return null;
+        }
+
+        byte[][] names = this.namesByLength[length];
+
+        for (int i = 0; i < names.length; i++) {
+
+            byte[] name = names[i];
+            int j = 0;
+
+            while (j < length && name[j] == buffer[start + j]) {
+                j ++;
+            }
+
+            if (j == length) {
+                return (E) this.constantsByLength[length][i];
+            }
+        }
+
+        return null;
+
+    }
+
+}
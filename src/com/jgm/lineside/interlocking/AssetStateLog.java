@@ -0,0 +1,84 @@
+package com.jgm.lineside.interlocking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This Class provides the versioned record of the latest state reported for each line side asset.
+ * <p>
+ * Every state change is stamped with the next value of a single, monotonically increasing state version. The latest
+ * STATE_CHANGE for each asset is held along with its version, so a Remote Interlocking that holds every state up to a
+ * given version can be brought up to date by re-sending only the assets that have changed since, rather than every asset.
+ * <p>
+ * The first version is taken from the time the LineSide Module started (in microseconds), so the versions issued after a
+ * restart are all greater than those issued before it. A version lower than the first version of this run was therefore
+ * issued before the LineSide Module restarted, and can only be answered with the full state of every asset.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+final class AssetStateLog {
+
+    private final long firstVersion = System.currentTimeMillis() * 1000; // The version before the first state change of this run.
+    private final AtomicLong version = new AtomicLong(this.firstVersion); // The version of the most recent state change.
+    private final ConcurrentHashMap <Long, Message> latest = new ConcurrentHashMap<>(); // The latest STATE_CHANGE, by asset.
+
+    /**
+     * This method returns the version to be stamped on the next state change.
+     * @return <code>Long</code> The state version.
+     */
+    long nextVersion () {
+        return this.version.incrementAndGet();
+    }
+
+    /**
+     * This method returns the version of the most recent state change.
+     * @return <code>Long</code> The state version.
+     */
+    long getVersion () {
+        return this.version.get();
+    }
+
+    /**
+     * This method records a state change as the latest state of its asset, unless a newer state has already been recorded.
+     * @param assetKey <code>Long</code> The key of the asset.
+     * @param message <code>Message</code> The STATE_CHANGE.
+     */
+    void record (long assetKey, Message message) {
+
+        this.latest.merge(assetKey, message, (held, offered) ->
+            (offered.getStateVersion() > held.getStateVersion()) ? offered : held);
+
+    }
+
+    /**
+     * This method indicates whether the changes since a version can be found in this record.
+     * @param since <code>Long</code> The version held by the Remote Interlocking.
+     * @return <code>Boolean</code> <i>'true'</i> if the version was issued since the LineSide Module started, otherwise <i>'false'</i>.
+     */
+    Boolean canResynchronise (long since) {
+        return since >= this.firstVersion && since <= this.version.get();
+    }
+
+    /**
+     * This method returns the latest state of every asset that has changed since a version.
+     * @param since <code>Long</code> The version held by the Remote Interlocking.
+     * @return <code>List</code> The STATE_CHANGE messages, one for each asset changed.
+     */
+    List <Message> changedSince (long since) {
+
+        List <Message> changed = new ArrayList<>();
+
+        this.latest.forEach((assetKey, message) -> {
+            if (message.getStateVersion() > since) {
+                changed.add(message);
+            }
+        });
+
+        return changed;
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.jgm.lineside.interlocking;
+
+/**
+ * This Enumeration defines what happens when a message is queued for the Remote Interlocking whilst the outgoing message stack is full.
+ * <p>
+ * The policy is selected with the system property lineside.backpressure, e.g. -Dlineside.backpressure=FAIL_FAST.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * The calling Thread waits until there is room in the stack (the default).
+     */
+    BLOCK,
+
+    /**
+     * The oldest STATE_CHANGE, at the head of the STATE lane, is discarded to make room in that lane. Other messages are
+     * never discarded, so if the message at the head of the lane is not an unsent STATE_CHANGE, or the message being queued
+     * is for another lane, the calling Thread waits, as for BLOCK.
+     */
+    DROP_OLDEST_STATE_CHANGE,
+
+    /**
+     * The message is not queued, and the calling Thread is told so immediately.
+     */
+    FAIL_FAST;
+
+    /**
+     * This method returns the policy selected by the system property, falling back to BLOCK.
+     * @return <code>BackpressurePolicy</code> The policy.
+     */
+    static BackpressurePolicy fromProperty () {
+
+        try {
+            return BackpressurePolicy.valueOf(System.getProperty("lineside.backpressure", BLOCK.toString()).toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return BLOCK;
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.jgm.lineside.interlocking;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This Class provides the encoding and decoding of binary frames, used when the BINARY protocol version has been agreed.
+ * <p>
+ * A binary frame is laid out in fixed-width fields (multi-byte values are big-endian):
+ * <pre>
+ *   MAGIC (1) | VERSION (1) | TYPE (1) | SENDER (15) | SEQUENCE (4) | ASSET KIND (1) | HANDLE (4) |
+ *   STATE A (1) | STATE B (1) | STATE VERSION (8) | BODY LENGTH (2) | BODY (n) | CRC-32C (4)
+ * </pre>
+ * The sender is ASCII, padded with zeros; the TYPE, ASSET KIND and STATE fields carry enumeration ordinals, an ASSET KIND
+ * of 0 indicating that the frame does not relate to a single asset. The STATE VERSION is that stamped on a state change,
+ * otherwise 0. The VERSION is that of the protocol agreed with the Remote Interlocking. The body is the same text that would be sent in a
+ * text frame; for a state change it is only included the first time an asset handle is reported on a connection, so that
+ * the Remote Interlocking can learn which asset the handle refers to. The CRC-32C covers every preceding byte.
+ * <p>
+ * Frames are written with the same 2 byte length prefix as writeUTF, and the MAGIC byte can never begin a text frame,
+ * so the receiver can tell the two formats apart frame by frame.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+final class BinaryFrame {
+
+    static final byte MAGIC = (byte) 0xB5; // The first byte of every binary frame.
+    static final int SENDER_LENGTH = 15; // The width of the sender field.
+    static final int HEADER_LENGTH = 39; // The number of bytes before the body.
+    static final int CHECKSUM_LENGTH = 4; // The number of bytes in the checksum.
+    static final int MAX_FRAME_LENGTH = 65535; // The largest frame that can follow the 2 byte length prefix.
+    private static final MessageType[] TYPES = MessageType.values(); // The message types, indexed by ordinal.
+
+    /**
+     * This is the Constructor Method; it is private as the Class only provides static methods.
+     */
+    private BinaryFrame () {}
+
+    /**
+     * This method encodes a message into a binary frame.
+     * @param buffer <code>byte[]</code> The buffer to encode the frame into; it must be at least MAX_FRAME_LENGTH bytes long.
+     * @param version <code>ProtocolVersion</code> The protocol version agreed with the Remote Interlocking.
+     * @param sender <code>String</code> The identity of this LineSide Module.
+     * @param message <code>Message</code> The message to encode.
+     * @param includeBody <code>Boolean</code> <i>'true'</i> if the message body should be included, otherwise <i>'false'</i>.
+     * @return <code>Integer</code> The length of the frame.
+     */
+    static int encode (byte[] buffer, ProtocolVersion version, String sender, Message message, boolean includeBody) {
+
+        byte[] body = (includeBody || message.getAssetKind() == null)
+            ? message.getMsgBody().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int bodyLength = Math.min(body.length, MAX_FRAME_LENGTH - HEADER_LENGTH - CHECKSUM_LENGTH);
+
+        buffer[0] = MAGIC;
+        buffer[1] = (byte) version.getVersion();
+        buffer[2] = (byte) message.getMsgType().ordinal();
+
+        for (int i = 0; i < SENDER_LENGTH; i++) {
+            buffer[3 + i] = (i < sender.length()) ? (byte) sender.charAt(i) : 0;
+        }
+
+        putInt(buffer, 18, (int) message.getSequence());
+        buffer[22] = (byte) ((message.getAssetKind() == null) ? 0 : message.getAssetKind().ordinal() + 1);
+        putInt(buffer, 23, message.getAssetHandle());
+        buffer[27] = (byte) message.getStateA();
+        buffer[28] = (byte) message.getStateB();
+        putInt(buffer, 29, (int) (message.getStateVersion() >>> 32));
+        putInt(buffer, 33, (int) message.getStateVersion());
+        putShort(buffer, 37, bodyLength);
+        System.arraycopy(body, 0, buffer, HEADER_LENGTH, bodyLength);
+
+        int length = HEADER_LENGTH + bodyLength;
+        putInt(buffer, length, Crc32c.checksum(buffer, 0, length));
+        return length + CHECKSUM_LENGTH;
+
+    }
+
+    /**
+     * This method decodes a binary frame received from the Remote Interlocking into a record.
+     *
+     * Frames received from the Remote Interlocking must include a message body, as it is the body that is processed.
+     * @param buffer <code>byte[]</code> The buffer holding the frame.
+     * @param length <code>Integer</code> The length of the frame.
+     * @param expectedSender <code>String</code> The identity of the Remote Interlocking.
+     * @param record <code>InboundMessage</code> The record that the message is decoded into.
+     * @return <code>Boolean</code> <i>'true'</i> if the frame is valid, otherwise <i>'false'</i>.
+     */
+    static Boolean decode (byte[] buffer, int length, String expectedSender, InboundMessage record) {
+
+        if (length < HEADER_LENGTH + CHECKSUM_LENGTH || buffer[0] != MAGIC) {
+            return false;
+        }
+
+        int bodyLength = getShort(buffer, 37);
+
+        if (HEADER_LENGTH + bodyLength + CHECKSUM_LENGTH != length
+            || getInt(buffer, HEADER_LENGTH + bodyLength) != Crc32c.checksum(buffer, 0, HEADER_LENGTH + bodyLength)) {
+            return false; // The frame is truncated or corrupt.
+        }
+
+        int type = buffer[2] & 0xFF;
+
+        if (type >= TYPES.length || bodyLength == 0) {
+            return false;
+        }
+
+        // Compare the sender with the identity of the Remote Interlocking.
+        for (int i = 0; i < SENDER_LENGTH; i++) {
+            int expected = (i < expectedSender.length()) ? expectedSender.charAt(i) : 0;
+            if ((buffer[3 + i] & 0xFF) != expected) {
+                return false;
+            }
+        }
+
+        for (int i = HEADER_LENGTH; i < HEADER_LENGTH + bodyLength; i++) {
+            byte c = buffer[i];
+            if (c < 0 || !FrameDecoder.BODY_CHARACTERS[c]) {
+                return false;
+            }
+            record.append(c);
+        }
+
+        record.complete(TYPES[type], getInt(buffer, 18) & 0xFFFFFFFFL);
+        return true;
+
+    }
+
+    private static void putShort (byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 8);
+        buffer[offset + 1] = (byte) value;
+    }
+
+    private static void putInt (byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static int getShort (byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 8) | (buffer[offset + 1] & 0xFF);
+    }
+
+    private static int getInt (byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+            | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+    }
+
+}
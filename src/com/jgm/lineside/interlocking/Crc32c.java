@@ -0,0 +1,50 @@
+package com.jgm.lineside.interlocking;
+
+/**
+ * This Class provides the CRC-32C (Castagnoli) checksum used to protect binary frames.
+ * <p>
+ * The checksum is calculated a byte at a time from a pre-computed table.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+final class Crc32c {
+
+    private static final int POLYNOMIAL = 0x82F63B78; // The reversed Castagnoli polynomial.
+    private static final int[] TABLE = new int[256]; // The pre-computed remainder for each byte value.
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = ((crc & 1) != 0) ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLE[i] = crc;
+        }
+    }
+
+    /**
+     * This is the Constructor Method; it is private as the Class only provides static methods.
+     */
+    private Crc32c () {}
+
+    /**
+     * This method calculates the CRC-32C checksum of part of a byte array.
+     * @param bytes <code>byte[]</code> The data.
+     * @param offset <code>Integer</code> The index of the first byte.
+     * @param length <code>Integer</code> The number of bytes.
+     * @return <code>Integer</code> The checksum.
+     */
+    static int checksum (byte[] bytes, int offset, int length) {
+
+        int crc = 0xFFFFFFFF;
+
+        for (int i = offset; i < offset + length; i++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ bytes[i]) & 0xFF];
+        }
+
+        return ~crc;
+
+    }
+
+}
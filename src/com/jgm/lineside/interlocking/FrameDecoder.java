@@ -0,0 +1,201 @@
+package com.jgm.lineside.interlocking;
+
+/**
+ * This Class provides the validation and decoding of frames received from the Remote Interlocking.
+ * <p>
+ * A text frame (SENDER|TYPE|BODY|HASH|END_MESSAGE, or SENDER|TYPE|BODY|HASH|SEQUENCE|END_MESSAGE) is checked and decoded
+ * in a single pass over the received bytes: the sender is compared with the Remote Interlocking identity, the type is found
+ * from a lookup table, each body character is checked against a table of permitted characters and the hash of
+ * SENDER|TYPE|BODY is accumulated as the bytes go by, exactly as String.hashCode would calculate it. No String or array
+ * is created; the message is decoded into a reusable InboundMessage record. Binary frames are passed to BinaryFrame.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+final class FrameDecoder {
+
+    private static final AsciiLookup <MessageType> TYPES = new AsciiLookup<>(MessageType.values()); // Finds the message type.
+    private static final byte[] MESSAGE_END = {'M', 'E', 'S', 'S', 'A', 'G', 'E', '_', 'E', 'N', 'D'}; // MUST be the last portion of all text frames!
+    private static final int MIN_SENDER_LENGTH = 5; // The shortest valid sender.
+    private static final int MAX_SENDER_LENGTH = 15; // The longest valid sender.
+    private static final int MIN_BODY_LENGTH = 4; // The shortest valid message body.
+    private static final boolean[] SENDER_CHARACTERS = new boolean[128]; // The characters permitted in the sender, i.e. [A-Z_0-9].
+    static final boolean[] BODY_CHARACTERS = new boolean[128]; // The characters permitted in the message body, i.e. [A-Za-z_0-9.-_].
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            SENDER_CHARACTERS[c] = (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            BODY_CHARACTERS[c] = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_'
+                || (c >= '.' && c <= '_'); // The original pattern's '.-_' is a range, which has always been accepted.
+        }
+    }
+
+    /**
+     * This is the Constructor Method; it is private as the Class only provides static methods.
+     */
+    private FrameDecoder () {}
+
+    /**
+     * This method validates a frame received from the Remote Interlocking and decodes it into a record.
+     * @param frame <code>byte[]</code> The buffer holding the frame.
+     * @param length <code>Integer</code> The length of the frame.
+     * @param expectedSender <code>String</code> The identity of the Remote Interlocking.
+     * @param record <code>InboundMessage</code> The record that the message is decoded into.
+     * @return <code>Boolean</code> <i>'true'</i> if the frame is valid, otherwise <i>'false'</i>.
+     */
+    static Boolean decode (byte[] frame, int length, String expectedSender, InboundMessage record) {
+
+        record.reset();
+
+        if (length > 0 && frame[0] == BinaryFrame.MAGIC) {
+            return BinaryFrame.decode(frame, length, expectedSender, record);
+        }
+
+        int position = 0;
+        int hash = 0;
+        int start;
+
+        // Sender.
+        start = position;
+        while (position < length && frame[position] != '|') {
+            byte c = frame[position];
+            int index = position - start;
+            if (c < 0 || !SENDER_CHARACTERS[c] || index >= expectedSender.length() || expectedSender.charAt(index) != c) {
+                return false;
+            }
+            hash = 31 * hash + c;
+            position ++;
+        }
+
+        int senderLength = position - start;
+        if (position == length || senderLength != expectedSender.length()
+            || senderLength < MIN_SENDER_LENGTH || senderLength > MAX_SENDER_LENGTH) {
+            return false;
+        }
+        hash = 31 * hash + '|';
+        position ++;
+
+        // Type.
+        start = position;
+        while (position < length && frame[position] != '|') {
+            hash = 31 * hash + frame[position];
+            position ++;
+        }
+
+        MessageType type = TYPES.find(frame, start, position);
+        if (type == null || position == length) {
+            return false;
+        }
+        hash = 31 * hash + '|';
+        position ++;
+
+        // Body.
+        start = position;
+        while (position < length && frame[position] != '|') {
+            byte c = frame[position];
+            if (c < 0 || !BODY_CHARACTERS[c]) {
+                return false;
+            }
+            hash = 31 * hash + c;
+            record.append(c);
+            position ++;
+        }
+
+        if (position - start < MIN_BODY_LENGTH || position == length) {
+            return false;
+        }
+        position ++;
+
+        // Hash.
+        start = position;
+        while (position < length && frame[position] != '|') {
+            position ++;
+        }
+
+        if (position == length || !hashMatches(frame, start, position, hash)) {
+            return false;
+        }
+        position ++;
+
+        // Optional sequence number, then MESSAGE_END.
+        start = position;
+        while (position < length && frame[position] != '|') {
+            position ++;
+        }
+
+        long sequence = 0;
+        if (position < length) {
+            sequence = parseNumber(frame, start, position);
+            if (sequence < 0) {
+                return false;
+            }
+            start = ++ position;
+            position = length;
+        }
+
+        if (!isMessageEnd(frame, start, position)) {
+            return false;
+        }
+
+        record.complete(type, sequence);
+        return true;
+
+    }
+
+    /**
+     * This method parses a positive decimal number held in part of a buffer.
+     * @param buffer <code>byte[]</code> The buffer.
+     * @param start <code>Integer</code> The index of the first digit.
+     * @param end <code>Integer</code> The index after the last digit.
+     * @return <code>Long</code> The number, or -1 if the bytes are not a number of 1 to 18 digits.
+     */
+    static long parseNumber (byte[] buffer, int start, int end) {
+
+        if (end - start < 1 || end - start > 18) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (buffer[i] - '0');
+        }
+
+        return value;
+
+    }
+
+    /**
+     * This method checks the hash field of a text frame against the hash calculated from the frame.
+     */
+    private static boolean hashMatches (byte[] buffer, int start, int end, int hash) {
+
+        boolean negative = (end > start && buffer[start] == '-');
+        long value = parseNumber(buffer, negative ? start + 1 : start, end);
+
+        return value >= 0 && (negative ? -value : value) == hash;
+
+    }
+
+    /**
+     * This method checks that part of a buffer holds MESSAGE_END.
+     */
+    private static boolean isMessageEnd (byte[] buffer, int start, int end) {
+
+        if (end - start != MESSAGE_END.length) {
+            return false;
+        }
+
+        for (int i = 0; i < MESSAGE_END.length; i++) {
+            if (buffer[start + i] != MESSAGE_END[i]) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.jgm.lineside.interlocking;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This Class provides a reusable record of a message received from the Remote Interlocking.
+ * <p>
+ * The record holds a copy of the message body along with the position of each '.' separated field, so the fields can be
+ * read as numbers or enumeration constants without creating a String. Records are taken from a pool by the Thread
+ * reading from the Remote Interlocking, and returned to the pool once the message has been processed.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+final class InboundMessage implements Queueable {
+
+    private static final int INITIAL_FIELDS = 8; // The number of body fields that can be recorded before the field arrays are enlarged.
+    private static final AsciiLookup <RequestVerb> VERBS = new AsciiLookup<>(RequestVerb.values()); // Finds the verb of the message body.
+
+    private MessageType type; // The type of message.
+    private RequestVerb verb; // The verb that begins the message body, or null if it is not recognised.
+    private long sequence; // The sequence number of the message, or 0 if none was given.
+    private byte[] body = new byte[64]; // The message body, as ASCII bytes.
+    private int bodyLength; // The number of bytes in the message body.
+    private int[] fieldStart = new int[INITIAL_FIELDS]; // The index of the first byte of each field.
+    private int[] fieldEnd = new int[INITIAL_FIELDS]; // The index after the last byte of each field.
+    private int fieldCount; // The number of fields recorded.
+    private long queuedAt; // The value of System.nanoTime when the record was added to the incoming message stack.
+
+    /**
+     * This method clears the record, ready for a new message to be decoded into it.
+     */
+    void reset () {
+
+        this.type = null;
+        this.verb = null;
+        this.sequence = 0;
+        this.bodyLength = 0;
+        this.fieldCount = 0;
+
+    }
+
+    /**
+     * This method appends a byte to the message body.
+     * @param b <code>Byte</code> The byte to append.
+     */
+    void append (byte b) {
+
+        if (this.bodyLength == this.body.length) {
+            byte[] larger = new byte[this.body.length * 2];
+            System.arraycopy(this.body, 0, larger, 0, this.bodyLength);
+            this.body = larger;
+        }
+
+        this.body[this.bodyLength ++] = b;
+
+    }
+
+    /**
+     * This method completes the record once the whole body has been appended; it locates the fields and the verb.
+     * @param type <code>MessageType</code> The type of message.
+     * @param sequence <code>Long</code> The sequence number of the message.
+     */
+    void complete (MessageType type, long sequence) {
+
+        this.type = type;
+        this.sequence = sequence;
+
+        int start = 0;
+        for (int i = 0; i <= this.bodyLength; i++) {
+            if (i == this.bodyLength || this.body[i] == '.') {
+                if (this.fieldCount == this.fieldStart.length) { // Every field is recorded, e.g. a request naming many signals.
+                    this.fieldStart = Arrays.copyOf(this.fieldStart, this.fieldCount * 2);
+                    this.fieldEnd = Arrays.copyOf(this.fieldEnd, this.fieldCount * 2);
+                }
+                this.fieldStart[this.fieldCount] = start;
+                this.fieldEnd[this.fieldCount] = i;
+                this.fieldCount ++;
+                start = i + 1;
+            }
+        }
+
+        this.verb = VERBS.find(this.body, this.fieldStart[0], this.fieldEnd[0]);
+
+    }
+
+    /**
+     * This method returns the type of message.
+     * @return <code>MessageType</code> The type of message.
+     */
+    MessageType getType () {
+        return this.type;
+    }
+
+    /**
+     * This method returns the verb that begins the message body.
+     * @return <code>RequestVerb</code> The verb, or <i>'null'</i> if the verb is not recognised.
+     */
+    RequestVerb getVerb () {
+        return this.verb;
+    }
+
+    /**
+     * This method returns the sequence number of the message.
+     * @return <code>Long</code> The sequence number, or 0 if none was given.
+     */
+    long getSequence () {
+        return this.sequence;
+    }
+
+    /**
+     * This method returns the number of '.' separated fields in the message body, including the verb.
+     * @return <code>Integer</code> The number of fields.
+     */
+    int getFieldCount () {
+        return this.fieldCount;
+    }
+
+    /**
+     * This method returns a field of the message body as a String.
+     * @param index <code>Integer</code> The index of the field; the verb is field 0.
+     * @return <code>String</code> The field.
+     */
+    String getField (int index) {
+        return new String(this.body, this.fieldStart[index], this.fieldEnd[index] - this.fieldStart[index], StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * This method returns a field of the message body as an enumeration constant.
+     * @param index <code>Integer</code> The index of the field.
+     * @param lookup <code>AsciiLookup</code> The lookup table of the enumeration.
+     * @return The constant, or <i>'null'</i> if the field does not name a constant.
+     */
+    <E extends Enum<E>> E getEnum (int index, AsciiLookup <E> lookup) {
+        return lookup.find(this.body, this.fieldStart[index], this.fieldEnd[index]);
+    }
+
+    /**
+     * This method returns a field of the message body as a positive number.
+     * @param index <code>Integer</code> The index of the field.
+     * @return <code>Long</code> The number, or -1 if the field is not a number of 1 to 18 digits.
+     */
+    long getNumber (int index) {
+        return FrameDecoder.parseNumber(this.body, this.fieldStart[index], this.fieldEnd[index]);
+    }
+
+    /**
+     * This method returns a field of the message body as a Boolean, in the same way as Boolean.valueOf.
+     * @param index <code>Integer</code> The index of the field.
+     * @return <code>Boolean</code> <i>'true'</i> if the field is 'true' (ignoring case), otherwise <i>'false'</i>.
+     */
+    Boolean getBoolean (int index) {
+
+        int start = this.fieldStart[index];
+
+        return this.fieldEnd[index] - start == 4
+            && (this.body[start] | 0x20) == 't' && (this.body[start + 1] | 0x20) == 'r'
+            && (this.body[start + 2] | 0x20) == 'u' && (this.body[start + 3] | 0x20) == 'e';
+
+    }
+
+    @Override
+    public void setQueuedAt (long nanos) {
+        this.queuedAt = nanos;
+    }
+
+    @Override
+    public long getQueuedAt () {
+        return this.queuedAt;
+    }
+
+    @Override
+    public String toString () {
+        return String.format ("%s|%s|%d", this.type, new String(this.body, 0, this.bodyLength, StandardCharsets.US_ASCII), this.sequence);
+    }
+
+}
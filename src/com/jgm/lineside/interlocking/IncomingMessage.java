@@ -1,10 +1,9 @@
 package com.jgm.lineside.interlocking;
 
-import com.jgm.lineside.LineSideModule;
-import com.jgm.lineside.datalogger.Colour;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.Socket;
 
 /**
  * This Class provides a Threaded Object that receives incoming messages from the Remote Interlocking.
@@ -14,6 +13,8 @@ import java.io.InputStream;
 public class IncomingMessage extends DataInputStream implements Runnable {
     
     private Boolean stayConnected = true; // The connection flag; whilst true, the Thread keeps running.
+    private final Socket connection; // The connection that this object reads from.
+    private final byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH]; // The buffer that each incoming frame is read into.
     
     /**
      * This is the Constructor Method for an IncomingMessages Class object.
@@ -21,6 +22,7 @@ public class IncomingMessage extends DataInputStream implements Runnable {
      */
     public IncomingMessage(InputStream in) {
         super(in);
+        this.connection = MessageHandler.getConnectionToRemoteInterlocking();
         this.setMessageHandlerReference();
     }
 
@@ -37,16 +39,14 @@ public class IncomingMessage extends DataInputStream implements Runnable {
     public void run() {
         while(stayConnected) {
             try {
-                String incomingMessage = this.readUTF(); // Read the incoming Message.
-                if (MessageHandler.isMessageFormattedCorrectly(incomingMessage)) { // Check to see if the incoming message is of a valid format.
-                    MessageHandler.addIncomingMessageToStack(incomingMessage); // Pass the message to the message handler; add it to the Incoming Message stack ready for processing.
-                } // Otherwise, we ignore it!
+                // Read the incoming frame; text and binary frames are both preceded by their length, as written by writeUTF.
+                int length = this.readUnsignedShort();
+                this.readFully(this.frame, 0, length);
+                MessageHandler.addIncomingFrameToStack(this.frame, length); // Validate and decode the frame, and add it to the Incoming Message stack ready for processing. Invalid frames are ignored!
 
             } catch (IOException ex) {
-                LineSideModule.dataLogger.sendToDataLogger(String.format ("WARNING: The connection to the remote interlocking has been severed.",
-                    Colour.RED.getColour(), Colour.RESET.getColour()), 
-                    true, true);
-                MessageHandler.closeConnections();
+                this.stayConnected = false;
+                MessageHandler.remoteInterlockingConnectionLost(this.connection);
             }
         }
     }
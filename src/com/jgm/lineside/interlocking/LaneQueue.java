@@ -0,0 +1,258 @@
+package com.jgm.lineside.interlocking;
+
+import com.jgm.lineside.statistics.LatencyHistogram;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * This Class provides a multi-producer/single-consumer message queue made up of one MessageQueue for each MessageLane.
+ * <p>
+ * Producers add a message to the lane chosen for it by the classifier given. The consumer serves the lanes by weighted
+ * round robin: the current lane is polled until it has given up its weight in messages, or is empty, and then the next
+ * lane is served. The time each message spends waiting is recorded in a LatencyHistogram for its lane, so that the
+ * weights can be tuned.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ * @param <E> The type of object held in the queue.
+ */
+final class LaneQueue <E extends Queueable> {
+
+    private static final MessageLane[] LANES = MessageLane.values(); // The lanes, by ordinal.
+
+    private final MessageQueue <E>[] queues; // The queue of each lane, by ordinal.
+    private final LatencyHistogram[] waits; // The time messages wait in each lane, by ordinal.
+    private final Function <? super E, MessageLane> classifier; // Chooses the lane of each message.
+    private volatile Thread waitingConsumer = null; // The consumer Thread, whilst it is parked waiting for a message.
+    private int current = 0; // The lane being served (consumer only).
+    private int credit = LANES[0].getWeight(); // The number of messages the current lane may still give up (consumer only).
+
+    /**
+     * This is the Constructor Method for a LaneQueue object.
+     * @param name <code>String</code> The name of the queue, used to name the wait histograms.
+     * @param laneCapacity <code>Integer</code> The minimum number of messages each lane must hold; rounded up to a power of 2.
+     * @param classifier <code>Function</code> Chooses the lane of each message.
+     */
+    @SuppressWarnings("unchecked")
+    LaneQueue (String name, int laneCapacity, Function <? super E, MessageLane> classifier) {
+
+        this.queues = (MessageQueue <E>[]) new MessageQueue<?>[LANES.length];
+        this.waits = new LatencyHistogram[LANES.length];
+        this.classifier = classifier;
+
+        for (int i = 0; i < LANES.length; i++) {
+            this.queues[i] = new MessageQueue<>(laneCapacity);
+            this.waits[i] = new LatencyHistogram(String.format ("%s %s wait", name, LANES[i].toString()));
+        }
+
+    }
+
+    /**
+     * This method attempts to add a message to the tail of its lane.
+     * @param element The message to add.
+     * @return <code>Boolean</code> <i>'true'</i> if the message was queued, <i>'false'</i> if its lane is full.
+     */
+    boolean offer (E element) {
+
+        element.setQueuedAt(System.nanoTime());
+
+        if (!this.queues[this.classifier.apply(element).ordinal()].offer(element)) {
+            return false;
+        }
+
+        Thread consumer = this.waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer); // Wake the consumer.
+        }
+
+        return true;
+
+    }
+
+    /**
+     * This method removes and returns the next message, serving the lanes by weighted round robin.
+     *
+     * This method must only be called by the single consumer Thread.
+     * @return The next message, or <i>'null'</i> if every lane is empty.
+     */
+    E poll () {
+
+        for (int visited = 0; visited <= LANES.length; visited++) {
+
+            if (this.credit > 0) {
+                E element = this.queues[this.current].poll();
+                if (element != null) {
+                    this.credit --;
+                    this.waits[this.current].record(System.nanoTime() - element.getQueuedAt());
+                    return element;
+                }
+            }
+
+            // The lane is empty, or has given up its weight; serve the next lane.
+            this.current = (this.current + 1) % LANES.length;
+            this.credit = LANES[this.current].getWeight();
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * This method removes and returns the message at the head of a lane, if it meets a condition.
+     *
+     * This method is used by producers to evict a message from a full lane; it is safe to call alongside the consumer.
+     * @param lane <code>MessageLane</code> The lane.
+     * @param condition <code>Predicate</code> The condition the message must meet.
+     * @return The message removed, or <i>'null'</i> if the lane is empty or the message at its head does not meet the condition.
+     */
+    E pollIf (MessageLane lane, Predicate <? super E> condition) {
+        return this.queues[lane.ordinal()].pollIf(condition);
+    }
+
+    /**
+     * This method discards every message in the queue; it is safe to call alongside the consumer.
+     */
+    void clear () {
+
+        for (MessageQueue <E> queue : this.queues) {
+            while (queue.poll() != null) {}
+        }
+
+    }
+
+    /**
+     * This method removes and returns the next message, parking the calling Thread until one is available.
+     *
+     * This method must only be called by the single consumer Thread; only that Thread is unparked by producers.
+     * @return The next message.
+     * @throws InterruptedException if the calling Thread is interrupted whilst waiting for a message.
+     */
+    E take () throws InterruptedException {
+
+        E element = this.poll();
+
+        while (element == null) {
+
+            this.waitingConsumer = Thread.currentThread();
+            element = this.poll(); // Check again, a producer may have missed the consumer registering.
+
+            if (element == null) {
+                LockSupport.park(this);
+                element = this.poll();
+            }
+
+            this.waitingConsumer = null;
+
+            if (element == null && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        return element;
+
+    }
+
+    /**
+     * This method returns the number of messages currently held in every lane.
+     * @return <code>Integer</code> The queue depth.
+     */
+    int size () {
+
+        int size = 0;
+        for (MessageQueue <E> queue : this.queues) {
+            size += queue.size();
+        }
+        return size;
+
+    }
+
+    /**
+     * This method returns the number of slots in every lane.
+     * @return <code>Integer</code> The capacity of the queue.
+     */
+    int getCapacity () {
+
+        int capacity = 0;
+        for (MessageQueue <E> queue : this.queues) {
+            capacity += queue.getCapacity();
+        }
+        return capacity;
+
+    }
+
+    /**
+     * This method returns the greatest depth that any lane has reached.
+     * @return <code>Integer</code> The high water mark of the busiest lane.
+     */
+    int getHighWaterMark () {
+
+        int highWaterMark = 0;
+        for (MessageQueue <E> queue : this.queues) {
+            highWaterMark = Math.max(highWaterMark, queue.getHighWaterMark());
+        }
+        return highWaterMark;
+
+    }
+
+    /**
+     * This method returns the number of messages that have been accepted by every lane.
+     * @return <code>Long</code> The number of messages queued.
+     */
+    long getOfferedCount () {
+
+        long offered = 0;
+        for (MessageQueue <E> queue : this.queues) {
+            offered += queue.getOfferedCount();
+        }
+        return offered;
+
+    }
+
+    /**
+     * This method returns the number of times a producer had to retry because another producer claimed the same slot.
+     * @return <code>Long</code> The contention count.
+     */
+    long getContendedCount () {
+
+        long contended = 0;
+        for (MessageQueue <E> queue : this.queues) {
+            contended += queue.getContendedCount();
+        }
+        return contended;
+
+    }
+
+    /**
+     * This method returns the number of times a producer found its lane full.
+     * @return <code>Long</code> The rejection count.
+     */
+    long getRejectedCount () {
+
+        long rejected = 0;
+        for (MessageQueue <E> queue : this.queues) {
+            rejected += queue.getRejectedCount();
+        }
+        return rejected;
+
+    }
+
+    /**
+     * This method returns a summary of the depth, weight and waiting time of each lane.
+     * @return <code>String</code> A formatted summary of the lane metrics.
+     */
+    String getLaneStatistics () {
+
+        StringBuilder statistics = new StringBuilder();
+
+        for (int i = 0; i < LANES.length; i++) {
+            statistics.append(String.format ("%s [weight %d, depth %d/%d, peak %d] %s%n", LANES[i].toString(), LANES[i].getWeight(),
+                this.queues[i].size(), this.queues[i].getCapacity(), this.queues[i].getHighWaterMark(), this.waits[i].toString()));
+        }
+
+        return statistics.toString();
+
+    }
+
+}
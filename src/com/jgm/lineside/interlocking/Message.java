@@ -1,5 +1,7 @@
 package com.jgm.lineside.interlocking;
 
+import com.jgm.lineside.AssetKind;
+
 /**
  * The Message Class provides objects representing Message that have been received or that require transmitting.
  * 
@@ -7,11 +9,19 @@ package com.jgm.lineside.interlocking;
  * @version v1.0 October 2016.
  */
 
-public class Message {
+public class Message implements Queueable {
 
     private final MessageType msgType; // The type of the message, i.e. STATE_CHANGE, HAND_SHAKE etc...
     private final String msgBody; // The message body.
     private final int msgHash; // The hash of the relevant portion of the message.
+    private volatile long sequence = 0; // The sequence number assigned when the message is first sent; 0 until then.
+    private final AssetKind assetKind; // The kind of asset a state change relates to, otherwise null.
+    private final int assetHandle; // The handle of the asset a state change relates to.
+    private final int stateA; // The first state ordinal of the asset, e.g. the points position or signal aspect.
+    private final int stateB; // The second state ordinal of the asset, e.g. the points detection.
+    private final long stateVersion; // The state version stamped on a state change, otherwise 0.
+    private long queuedAt; // The value of System.nanoTime when the message was last added to the outgoing message stack.
+    private volatile MessageLane lane = null; // The priority lane chosen when the message was first queued; null until then.
     
     /**
     * This is the Constructor method for the Message Class object.
@@ -22,10 +32,36 @@ public class Message {
     */
     protected Message (MessageType type, String message, int hash) {
         
+        this(type, message, hash, null, 0, 0, 0, 0);
+    
+    }
+    
+    /**
+    * This is the Constructor method for a Message Class object that reports the state of a line side asset.
+    * 
+    * The asset kind, handle and state ordinals carry the same information as the message body in a form that can be
+    * encoded into a fixed-width binary frame.
+    *  
+    * @param type A <code>MessageType</code> constant that informs the receiving module regarding the purpose of the message.
+    * @param message A <code>String</code> that contains that actual message body text.
+    * @param hash An <code>int</code> that contains the hashCode of the relevant portions of the message.
+    * @param assetKind An <code>AssetKind</code> constant, the kind of asset the message relates to.
+    * @param assetHandle An <code>int</code> that contains the handle of the asset.
+    * @param stateA An <code>int</code> that contains the first state ordinal of the asset.
+    * @param stateB An <code>int</code> that contains the second state ordinal of the asset.
+    * @param stateVersion A <code>long</code> that contains the state version stamped on the state change.
+    */
+    protected Message (MessageType type, String message, int hash, AssetKind assetKind, int assetHandle, int stateA, int stateB, long stateVersion) {
+        
         // Assign the values received in the constructor to the instance variables.
         this.msgBody = message;
         this.msgHash = hash;
         this.msgType = type;
+        this.assetKind = assetKind;
+        this.assetHandle = assetHandle;
+        this.stateA = stateA;
+        this.stateB = stateB;
+        this.stateVersion = stateVersion;
     
     }
 
@@ -53,4 +89,86 @@ public class Message {
         return msgHash;
     }
 
+    /**
+     * This method returns the kind of asset the message relates to.
+     * @return <code>AssetKind</code> The kind of asset, or <i>'null'</i> if the message does not relate to a single asset.
+     */
+    protected AssetKind getAssetKind() {
+        return assetKind;
+    }
+
+    /**
+     * This method returns the handle of the asset the message relates to.
+     * @return <code>Integer</code> The handle of the asset.
+     */
+    protected int getAssetHandle() {
+        return assetHandle;
+    }
+
+    /**
+     * This method returns the first state ordinal of the asset, e.g. the points position or the signal aspect.
+     * @return <code>Integer</code> The first state ordinal.
+     */
+    protected int getStateA() {
+        return stateA;
+    }
+
+    /**
+     * This method returns the second state ordinal of the asset, e.g. the points detection.
+     * @return <code>Integer</code> The second state ordinal.
+     */
+    protected int getStateB() {
+        return stateB;
+    }
+
+    /**
+     * This method returns the state version stamped on a state change.
+     * @return <code>Long</code> The state version, or 0 if the message is not a state change.
+     */
+    protected long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * This method returns the sequence number assigned to the message when it was first sent.
+     * @return <code>Long</code> containing the sequence number, or 0 if the message has not yet been sent.
+     */
+    protected long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * This method sets the sequence number of the message; it is called once, when the message is first sent.
+     * @param sequence <code>Long</code> containing the sequence number.
+     */
+    protected void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * This method returns the priority lane chosen when the message was first queued.
+     * @return <code>MessageLane</code> The lane, or <i>'null'</i> if the message has not yet been queued.
+     */
+    protected MessageLane getLane() {
+        return lane;
+    }
+
+    /**
+     * This method sets the priority lane of the message; it is called once, when the message is first queued.
+     * @param lane <code>MessageLane</code> The lane.
+     */
+    protected void setLane(MessageLane lane) {
+        this.lane = lane;
+    }
+
+    @Override
+    public void setQueuedAt(long nanos) {
+        this.queuedAt = nanos;
+    }
+
+    @Override
+    public long getQueuedAt() {
+        return queuedAt;
+    }
+
 }
@@ -1,14 +1,31 @@
 package com.jgm.lineside.interlocking;
 
+import com.jgm.lineside.AssetKind;
+import com.jgm.lineside.AssetRegistry;
 import com.jgm.lineside.LineSideModule;
+import com.jgm.lineside.datalogger.Colour;
 import com.jgm.lineside.points.PointsPosition;
+import com.jgm.lineside.scheduling.KeyedExecutor;
+import com.jgm.lineside.scheduling.TimingWheel;
 import com.jgm.lineside.signals.MovementAuthorityClass;
 import com.jgm.lineside.signals.Signal;
 import com.jgm.lineside.signals.SignalAspect;
+import com.jgm.lineside.statistics.LatencyHistogram;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.Socket;
-import java.util.LinkedList;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
 
 /**
  * This Class provides static methods to handle and process incoming and outgoing messages.
@@ -18,11 +35,89 @@ import java.util.Map;
 public abstract class MessageHandler {
     
     private static final String MESSAGE_END = "MESSAGE_END"; // Constant that MUST be the last portion of all messages!
-    private static final LinkedList <Message> OUTGOING_STACK = new LinkedList<>(); // An ArrayList that contains all outgoing messages.
-    private static final LinkedList <Message> INCOMING_STACK = new LinkedList<>(); // An ArrayList that contains all incoming messages.
+    private static final int OUTGOING_STACK_CAPACITY = 4096; // The number of pre-allocated slots in the outgoing message queue.
+    private static final int INCOMING_STACK_CAPACITY = 1024; // The number of pre-allocated slots in the incoming message queue.
+    private static final LaneQueue <Message> OUTGOING_STACK = new LaneQueue<>("Outgoing", OUTGOING_STACK_CAPACITY, MessageHandler::outgoingLane); // The lock-free priority lanes that contain all outgoing messages.
+    private static final LaneQueue <InboundMessage> INCOMING_STACK = new LaneQueue<>("Incoming", INCOMING_STACK_CAPACITY, MessageHandler::incomingLane); // The lock-free priority lanes that contain all incoming messages.
+    private static final MessageQueue <InboundMessage> FREE_RECORDS = new MessageQueue<>(INCOMING_STACK_CAPACITY); // The pool of records that incoming frames are decoded into.
+    private static final AtomicLong REJECTED_FRAMES = new AtomicLong(); // The number of incoming frames that were not valid.
+    private static final AsciiLookup <PointsPosition> POINTS_POSITIONS = new AsciiLookup<>(PointsPosition.values()); // Finds a PointsPosition within a message body.
+    private static final AsciiLookup <SignalAspect> SIGNAL_ASPECTS = new AsciiLookup<>(SignalAspect.values()); // Finds a SignalAspect within a message body.
+    private static final AsciiLookup <MovementAuthorityClass> MOVEMENT_AUTHORITY_CLASSES = new AsciiLookup<>(MovementAuthorityClass.values()); // Finds a MovementAuthorityClass within a message body.
     private static OutgoingMessage outgoing = null; // The OutgoingMessage object used to send messages to the Remote Interlocking.
     private static IncomingMessage incoming = null; // The IncomingMessage object where messages received from the Remote Interlocking are received.
     private static Socket connectionToRemoteInterlocking = null; // The Socket (Connection) to the Remote Interlocking.
+    private static Boolean connected = false; // A flag to indicate that the connection to the Remote Interlocking is established.
+    private static final Boolean DISCARD_QUEUE_ON_RECONNECT = Boolean.getBoolean("lineside.discardQueueOnReconnect"); // A flag to indicate that queued messages are discarded, rather than sent, once the connection is re-established.
+    private static final int PENDING_WINDOW_SIZE = 1024; // The number of sent messages that may await acknowledgement.
+    private static final long RETRANSMIT_INITIAL_MILLIS = 1000; // The time to wait for an acknowledgement before the first retransmission.
+    private static final long RETRANSMIT_MAX_MILLIS = 16000; // The longest time to wait for an acknowledgement, after backing off.
+    private static final int MAX_BATCH_FRAMES = Integer.getInteger("lineside.writeBatchFrames", 256); // The greatest number of messages written to the Socket with a single flush.
+    private static final long MAX_LINGER_NANOS = TimeUnit.MICROSECONDS.toNanos(Integer.getInteger("lineside.writeLingerMicros", 0)); // The longest time to wait for further messages before flushing a batch.
+    private static final BackpressurePolicy BACKPRESSURE_POLICY = BackpressurePolicy.fromProperty(); // What happens when a message is queued whilst the outgoing message stack is full.
+    private static final Predicate <Message> EVICTABLE = (message) -> message.getMsgType() == MessageType.STATE_CHANGE && message.getSequence() == 0; // A STATE_CHANGE not yet sent; it may be discarded under DROP_OLDEST_STATE_CHANGE.
+    private static final AtomicLong DROPPED = new AtomicLong(); // The number of outgoing messages discarded, or refused, because the outgoing message stack was full.
+    private static final int MAX_SEND_ATTEMPTS = 5; // The number of times a message is sent before it is abandoned.
+    private static final PendingWindow PENDING_WINDOW = new PendingWindow(PENDING_WINDOW_SIZE); // Messages sent but not yet acknowledged.
+    private static final TimingWheel RETRANSMISSION_TIMER = new TimingWheel("RetransmissionTimer-Thread", 10, 512); // Times out unacknowledged messages.
+    private static final LatencyHistogram ACK_LATENCY = new LatencyHistogram("ACK round trip"); // The time between sending a message and receiving its acknowledgement.
+    private static final AtomicLong RETRANSMITTED = new AtomicLong(); // The number of messages retransmitted.
+    private static final AtomicLong ABANDONED = new AtomicLong(); // The number of messages abandoned without acknowledgement.
+    private static volatile Boolean acknowledgementsReceived = false; // Set once the Remote Interlocking has acknowledged a message by sequence number.
+    private static final AtomicLong HASH_ACKS = new AtomicLong(); // The number of messages acknowledged by hash code, under the TEXT protocol.
+    private static final long HANDSHAKE_TIMEOUT_MILLIS = 2000; // The time to wait for the Remote Interlocking to reply to a HAND_SHAKE.
+    private static volatile ProtocolVersion protocolVersion = ProtocolVersion.TEXT; // The protocol version agreed with the Remote Interlocking.
+    private static volatile ProtocolVersion offeredVersion = ProtocolVersion.TEXT; // The protocol version received in the Remote Interlocking's HAND_SHAKE reply.
+    private static volatile CountDownLatch handshakeReply = new CountDownLatch(1); // Released when the Remote Interlocking replies to a HAND_SHAKE.
+    private static final ProtocolVersion OFFERED_PROTOCOL = ProtocolVersion.agree(
+        Integer.getInteger("lineside.protocolVersion", ProtocolVersion.getHighest().getVersion())); // The highest protocol version offered; 1 (TEXT) never sends a HAND_SHAKE.
+    private static volatile Boolean handshakeUnanswered = false; // Set once a HAND_SHAKE has gone unanswered; the Remote Interlocking is then not sent another.
+    private static final byte[] FRAME_BUFFER = new byte[BinaryFrame.MAX_FRAME_LENGTH]; // The buffer used to encode binary frames.
+    /*
+     * STATE_CHANGE coalescing (enabled with -Dlineside.coalesceStateChanges=true).
+     *
+     * Whilst a STATE_CHANGE for an asset is waiting in the OUTGOING_STACK, a newer STATE_CHANGE for the same asset replaces
+     * it in PENDING_STATE rather than being queued behind it. Only the first pending STATE_CHANGE for an asset holds a place
+     * in the OUTGOING_STACK; when that place is reached, the latest state is taken from PENDING_STATE and sent.
+     *
+     * Ordering guarantees:
+     *   - For a single asset, states are sent in the order they were produced and the latest state is always sent;
+     *     intermediate states may be skipped.
+     *   - Between assets, a coalesced state is sent at the queue position of the first pending state for its asset, so it
+     *     may overtake messages for other assets that were queued after that first state.
+     *   - Messages other than STATE_CHANGE are never coalesced and keep their queue order.
+     *   - A state that has been superseded by a newer state for the same asset is not retransmitted.
+     *   - A signal replaced to danger is queued in the URGENT lane even whilst a state for the signal holds a place in the
+     *     STATE lane; whichever place is reached first sends the latest state, and the other place is skipped.
+     *
+     * Without coalescing, a signal replaced to danger is only queued in the URGENT lane when no earlier state for the signal
+     * is waiting in the STATE lane; otherwise it is queued behind that state, so that the states of an asset are never reordered.
+     */
+    private static final Boolean COALESCE_STATE_CHANGES = Boolean.getBoolean("lineside.coalesceStateChanges"); // A flag to indicate that superseded STATE_CHANGE messages are coalesced.
+    private static final ConcurrentHashMap <Long, Message> PENDING_STATE = new ConcurrentHashMap<>(); // The latest queued STATE_CHANGE, by asset.
+    private static final ConcurrentHashMap <Long, Long> LAST_SENT_STATE = new ConcurrentHashMap<>(); // The sequence number of the last STATE_CHANGE sent, by asset.
+    private static final ConcurrentHashMap <Long, Integer> QUEUED_IN_STATE_LANE = new ConcurrentHashMap<>(); // The number of STATE_CHANGE messages waiting in the STATE lane, by asset; counted only without coalescing.
+    private static final AtomicLong COALESCED = new AtomicLong(); // The number of STATE_CHANGE messages replaced by a newer state before being sent.
+    private static final AtomicLong SUPERSEDED = new AtomicLong(); // The number of STATE_CHANGE messages not retransmitted as a newer state had been sent.
+    private static final AssetStateLog STATE_LOG = new AssetStateLog(); // The latest state of each asset, by state version.
+    private static volatile long heldStateVersion = -1; // The state version held by the Remote Interlocking, as given in its HAND_SHAKE reply; -1 if not given.
+    private static final AtomicLong DELTA_RESYNCS = new AtomicLong(); // The number of times only the changed assets were re-sent.
+    private static final AtomicLong DELTA_STATES = new AtomicLong(); // The number of asset states re-sent by delta resynchronisation.
+    private static final AtomicLong FULL_RESYNCS = new AtomicLong(); // The number of times the state of every asset was re-sent.
+    private static final Boolean COMPRESS_SNAPSHOTS = Boolean.parseBoolean(System.getProperty("lineside.snapshotCompression", "true")); // A flag to indicate that the SNAPSHOT state table is compressed.
+    private static final int SNAPSHOT_PART_CHARACTERS = 49152; // The greatest number of payload characters sent in a single SNAPSHOT message.
+    private static final AtomicLong SNAPSHOTS = new AtomicLong(); // The number of SNAPSHOT messages sent.
+    private static final AtomicLong SNAPSHOT_BYTES = new AtomicLong(); // The number of payload characters sent in SNAPSHOT messages.
+    private static final KeyedExecutor REQUEST_EXECUTOR = new KeyedExecutor("RequestExecutor-Thread", 
+        Integer.getInteger("lineside.requestThreads", Runtime.getRuntime().availableProcessors())); // Actions the requests for each asset in order, and the requests for different assets in parallel.
+    private static final int LAMP_MASK_SIGNALS = 256; // The greatest number of signals reported in a single LAMP_MASKS message.
+    private static final BitSet[] ANNOUNCED_HANDLES = new BitSet[AssetKind.values().length]; // The asset handles, by kind, already reported on this connection.
+    
+    static {
+        for (int i = 0; i < ANNOUNCED_HANDLES.length; i++) {
+            ANNOUNCED_HANDLES[i] = new BitSet();
+        }
+    }
     
     /**
      * This method closes the connection to the Remote Interlocking.
@@ -30,142 +125,595 @@ public abstract class MessageHandler {
     public static synchronized void closeConnections() {
         
         try {
-            outgoing.setConnected(false);
-            outgoing.close();
-            incoming.setConnected(false);
-            incoming.close();
-            connectionToRemoteInterlocking.close();
+            if (outgoing != null) {
+                outgoing.setConnected(false);
+                outgoing.close();
+            }
+            if (incoming != null) { // There is no IncomingMessage Thread when the SELECTOR transport is used.
+                incoming.setConnected(false);
+                incoming.close();
+            }
+            if (connectionToRemoteInterlocking != null) {
+                connectionToRemoteInterlocking.close();
+            }
         } catch (IOException ex) {}
         
+        connected = false;
+        MessageHandler.class.notifyAll(); // Wake the RemoteInterlockingClient Thread, so that it can reconnect.
+        
     } 
     
-    /** 
-     * This method removes messages from the outgoing message stack, based on hash.
-     * @param hash <code>Integer</code> The hash code of the message that should be removed from the outgoing message stack.
+    /**
+     * This method records that the connection to the Remote Interlocking has been established.
+     */
+    public static synchronized void connectionEstablished() {
+        connected = true;
+    }
+    
+    /**
+     * This method waits until the connection to the Remote Interlocking is lost.
+     * @throws InterruptedException if the calling Thread is interrupted whilst waiting.
      */
-    private static synchronized void removeAcknowledgedMessage (int hash) {
+    public static synchronized void awaitConnectionLost() throws InterruptedException {
         
-        for (int i = 0; i < OUTGOING_STACK.size(); i++) { // Loop through the stack.
-            if (OUTGOING_STACK.get(i).getMsgHash() == hash) {
-                OUTGOING_STACK.remove(i); // Remove the message as the hash's match.
-                break;
+        while (connected) {
+            MessageHandler.class.wait();
+        }
+        
+    }
+    
+    /**
+     * This method prepares the MessageHandler for a new connection to the Remote Interlocking.
+     * 
+     * Messages awaiting acknowledgement are forgotten, as the Remote Interlocking is resynchronised once the connection
+     * has been re-established. Messages waiting in the OUTGOING_STACK are kept, and sent on the new connection, unless
+     * -Dlineside.discardQueueOnReconnect=true is given, in which case they are discarded.
+     */
+    public static void prepareForReconnection() {
+        
+        if (DISCARD_QUEUE_ON_RECONNECT) {
+            OUTGOING_STACK.clear(); // Discard the queued messages.
+            PENDING_STATE.clear();
+            QUEUED_IN_STATE_LANE.clear();
+        }
+        
+        PENDING_WINDOW.clear(); // The retransmission timers of the cleared messages expire without effect.
+        LAST_SENT_STATE.clear();
+        acknowledgementsReceived = false; // The Remote Interlocking must show it acknowledges messages on the new connection.
+        
+    }
+    
+    /**
+     * This method reports that the connection to the Remote Interlocking has been lost, and closes the connection.
+     * 
+     * Reports from a connection that has already been replaced are ignored.
+     * @param connection <code>Socket</code> The connection that has been lost.
+     */
+    protected static synchronized void remoteInterlockingConnectionLost(Socket connection) {
+        
+        if (!connected || connection != connectionToRemoteInterlocking) {
+            return;
+        }
+        
+        LineSideModule.dataLogger.sendToDataLogger(String.format ("WARNING: The connection to the remote interlocking has been severed.",
+            Colour.RED.getColour(), Colour.RESET.getColour()), 
+            true, true);
+        closeConnections();
+        
+    }
+    
+    /**
+     * This method adds a message to a message queue.
+     * 
+     * The queue is lock-free, so the calling Thread never waits on the Thread that is writing to the Remote Interlocking;
+     * only when every slot in the queue is occupied does the calling Thread back off until a slot is freed.
+     * @param queue <code>LaneQueue</code> The queue that the message is to be added to.
+     * @param message The message to add.
+     */
+    private static <E extends Queueable> void enqueue (LaneQueue <E> queue, E message) {
+        
+        while (!queue.offer(message)) {
+            LockSupport.parkNanos(50000); // The queue is full, back off briefly and try again.
+        }
+        
+    }
+    
+    /**
+     * This method adds a message to the outgoing message stack, applying the BACKPRESSURE_POLICY if the stack is full.
+     * @param message <code>Message</code> The message to add.
+     * @return <code>Boolean</code> <i>'true'</i> if the message was queued, otherwise <i>'false'</i> (FAIL_FAST only).
+     */
+    private static Boolean enqueueOutgoing (Message message) {
+        
+        if (message.getLane() == null) {
+            message.setLane(outgoingLane(message));
+        }
+        
+        countStateLane(message, true);
+        
+        while (!OUTGOING_STACK.offer(message)) {
+            
+            switch (BACKPRESSURE_POLICY) {
+                
+                case FAIL_FAST:
+                    countStateLane(message, false);
+                    DROPPED.incrementAndGet();
+                    return false;
+                    
+                case DROP_OLDEST_STATE_CHANGE:
+                    // Only the STATE lane holds STATE_CHANGE messages that may be discarded; a full URGENT lane is never relieved this way.
+                    Message evicted = (message.getLane() == MessageLane.STATE) ? OUTGOING_STACK.pollIf(MessageLane.STATE, EVICTABLE) : null;
+                    if (evicted != null) {
+                        countStateLane(evicted, false);
+                        if (COALESCE_STATE_CHANGES) {
+                            // The evicted message carried the latest pending state of its asset, unless a newer state holds its own place in the URGENT lane.
+                            PENDING_STATE.computeIfPresent(assetKey(evicted), 
+                                (key, latest) -> (latest != evicted && latest.getLane() == MessageLane.URGENT) ? latest : null);
+                        }
+                        DROPPED.incrementAndGet();
+                        break;
+                    }
+                    LockSupport.parkNanos(50000); // The head of the lane is not a STATE_CHANGE, back off briefly and try again.
+                    break;
+                    
+                default:
+                    LockSupport.parkNanos(50000); // The queue is full, back off briefly and try again.
+                    
             }
         }
+        
+        return true;
+        
     }
     
     /**
      * This method processes each message contained within the incoming message stack.
+     * 
+     * The calling Thread is blocked until at least one message is available; it is woken as soon as a message is added
+     * to the incoming message stack, and then processes every message that is waiting.
+     * Each record is returned to the pool once it has been processed.
+     * @throws InterruptedException if the calling Thread is interrupted whilst waiting for a message.
      */
-    public static synchronized void processIncomingMessages() {
+    public static void processIncomingMessages() throws InterruptedException {
     
-        while (!INCOMING_STACK.isEmpty()) { // Proceed if there are messages in the Incoming Message Stack (Queue)
+        InboundMessage message = INCOMING_STACK.take(); // Wait for the next message to arrive.
+        
+        while (message != null) { // Proceed whilst there are messages in the Incoming Message Stack (Queue)
             
-            String[] splitMessage;
+            try {
+                processIncomingMessage(message);
+            } finally {
+                FREE_RECORDS.offer(message); // Return the record to the pool.
+            }
             
-            switch (INCOMING_STACK.get(0).getMsgType()) { // Get the type of message.
-                
-                case ACK:
-                    /*
-                     * Remove the corresponding message from the OUTGOING_MESSAGE_STACK.
-                     * Remember, the message body of an ACK message contains the hash code
-                     * sent message that requires acknowledgement.
-                     */
-                    removeAcknowledgedMessage(Integer.parseInt(INCOMING_STACK.get(0).getMsgBody()));
-                    break;
+            message = INCOMING_STACK.poll(); // Move on to the next message, if there is one.
+        }
+        
+    }
+    
+    /**
+     * This method actions a single message received from the Remote Interlocking.
+     * 
+     * Messages with an unrecognised verb, or too few fields for their verb, are ignored.
+     * @param message <code>InboundMessage</code> The decoded message.
+     */
+    private static void processIncomingMessage(InboundMessage message) {
+        
+        RequestVerb verb = message.getVerb();
+        int fields = message.getFieldCount();
+        
+        if (verb == null && message.getType() != MessageType.ACK) {
+            return;
+        }
+        
+        switch (message.getType()) { // Get the type of message.
 
-                case STATE_CHANGE:
+            case ACK:
+                /*
+                 * Clear the corresponding message(s) from the PENDING_WINDOW.
+                 * Remember, the message body of an ACK message contains the sequence number
+                 * of the sent message that requires acknowledgement, e.g.
+                 *   SEQ.1234   - acknowledges message 1234 only;
+                 *   UPTO.1234  - acknowledges every message up to and including 1234.
+                 * Under the TEXT protocol the body is instead the hash code of the message, e.g. 1718221310; messages sent
+                 * without a sequence number are not held for retransmission, so the acknowledgement is only counted.
+                 */
+                if (!protocolVersion.hasSequenceNumbers()) {
+                    if (verb == null && fields == 1 && message.getNumber(0) >= 0) {
+                        HASH_ACKS.incrementAndGet();
+                    }
                     break;
-                
-                case REQUEST:
-                   /*
-                    *   Examples:
-                    *   POINTS.994.REVERSE
-                    *   SIGNAL.CE.110.CE.112.MAIN.NULL
-                    *   SIGNAL.CE.110.CE.112.MAIN.YELLOW
-                    */
-                    splitMessage = INCOMING_STACK.get(0).getMsgBody().split("\\.");
-                    switch (splitMessage[0]) {
-                        case "POINTS":
-                            LineSideModule.incomingPointsRequest(   splitMessage[1], 
-                                                                    PointsPosition.valueOf(splitMessage[2]));
-                            break;
-                        case "CONTROLLED_SIGNAL":
-                            LineSideModule.incomingControlledSignalRequest( splitMessage[1], 
-                                                                            splitMessage[2], 
-                                                                            splitMessage[3], 
-                                                                            splitMessage[4], 
-                                                                            MovementAuthorityClass.valueOf(splitMessage[5]),
-                                                                            splitMessage[6]);
+                }
+                long sequence = (verb != null && fields == 2) ? message.getNumber(1) : -1;
+                if (sequence >= 0) {
+                    acknowledgementsReceived = true;
+                    switch (verb) {
+                        case SEQ:
+                            acknowledgeMessage(sequence);
                             break;
-                        case "AUTOMATIC_SIGNAL":
-                            LineSideModule.incomingAutomaticSignalRequest(  splitMessage[1], 
-                                                                            splitMessage[2], 
-                                                                            Boolean.valueOf(splitMessage[3]));
+                        case UPTO:
+                            PENDING_WINDOW.removeUpTo(sequence, MessageHandler::recordAcknowledgement);
                             break;
-                                    
                     }
-                    
-                    break;
-                
-                case TECHNICIAN:
-                    
-                    splitMessage = INCOMING_STACK.get(0).getMsgBody().split("\\.");
-                    switch (splitMessage[0]) {
-                        case "GET_LAMPS_ALL":
-                            // "GET_LAMPS_ALL.CE.115"
-                            Map signalLamps = Signal.getSignalObject(splitMessage[1], splitMessage[2]).getSignalLampMap();
-                            signalLamps.forEach((key, value) -> {
-                            
-                                if ((Boolean) value) {
-                                    
-                                    addOutgoingMessageToStack(MessageType.TECHNICIAN, String.format ("LAMP_OK.%s.%s.%s", 
-                                        key.toString(), splitMessage[1], splitMessage[2]));
-                                    
-                                } else {
-                                    
-                                    addOutgoingMessageToStack(MessageType.TECHNICIAN, String.format ("LAMP_FAIL.%s.%s.%s", 
-                                        key.toString(), splitMessage[1], splitMessage[2]));
-                                    
-                                }
-                            
-                            });
+                }
+                break;
+
+            case STATE_CHANGE:
+                break;
+
+            case HAND_SHAKE:
+                // "PROTOCOL.2" - the protocol version the Remote Interlocking wishes to use, optionally followed by the state version it holds.
+                long version = ((fields == 2 || fields == 3) && verb == RequestVerb.PROTOCOL) ? message.getNumber(1) : -1;
+                if (version >= 0 && version <= 255) {
+                    heldStateVersion = (fields == 3) ? message.getNumber(2) : -1;
+                    offeredVersion = ProtocolVersion.agree((int) version);
+                    handshakeReply.countDown();
+                }
+                break;
+
+            case REQUEST:
+               /*
+                *   Examples:
+                *   POINTS.994.REVERSE
+                *   SIGNAL.CE.110.CE.112.MAIN.NULL
+                *   SIGNAL.CE.110.CE.112.MAIN.YELLOW
+                *   RESYNC.1479081600000042
+                *
+                *   Asset requests are handed to the REQUEST_EXECUTOR, keyed by the asset they act upon, so requests for the same
+                *   asset are actioned in the order received whilst requests for different assets are actioned at the same time.
+                *   A signal is keyed as prefix.identity; as no field may contain a '.', no two assets share a key.
+                *   The fields are read first, as the record is returned to the pool once this method returns.
+                */
+                switch (verb) {
+                    case POINTS:
+                        PointsPosition position = (fields >= 3) ? message.getEnum(2, POINTS_POSITIONS) : null;
+                        if (position != null) {
+                            String points = message.getField(1);
+                            REQUEST_EXECUTOR.execute(points, () -> LineSideModule.incomingPointsRequest(points, position));
+                        }
+                        break;
+                    case CONTROLLED_SIGNAL:
+                        MovementAuthorityClass moveAuthClass = (fields >= 7) ? message.getEnum(5, MOVEMENT_AUTHORITY_CLASSES) : null;
+                        if (moveAuthClass != null) {
+                            String signalPrefix = message.getField(1);
+                            String signalIdentity = message.getField(2);
+                            String toPrefix = message.getField(3);
+                            String toIdentity = message.getField(4);
+                            String requestedAspect = message.getField(6);
+                            REQUEST_EXECUTOR.execute(signalPrefix + "." + signalIdentity, () -> 
+                                LineSideModule.incomingControlledSignalRequest(signalPrefix, signalIdentity, toPrefix, toIdentity, moveAuthClass, requestedAspect));
+                        }
+                        break;
+                    case AUTOMATIC_SIGNAL:
+                        if (fields >= 4) {
+                            String signalPrefix = message.getField(1);
+                            String signalIdentity = message.getField(2);
+                            Boolean mostRestrictiveAspect = message.getBoolean(3);
+                            REQUEST_EXECUTOR.execute(signalPrefix + "." + signalIdentity, () -> 
+                                LineSideModule.incomingAutomaticSignalRequest(signalPrefix, signalIdentity, mostRestrictiveAspect));
+                        }
+                        break;
+                    case RESYNC:
+                        long since = (fields == 2) ? message.getNumber(1) : -1;
+                        if (since >= 0) {
+                            resynchronise(since);
+                        }
+                        break;
+                }
+                break;
+
+            case TECHNICIAN:
+
+                switch (verb) {
+                    case GET_LAMPS_ALL:
+                        // "GET_LAMPS_ALL.CE.115"
+                        if (fields < 3) {
                             break;
-                            
-                        case "FAIL_LAMP":
-                            // "FAIL_LAMP.RED.CE.115"
-                            Signal.getSignalObject(splitMessage[2], splitMessage[3]).failSignalLamp(SignalAspect.valueOf(splitMessage[1]));
-                            addOutgoingMessageToStack(MessageType.TECHNICIAN, String.format ("LAMP_FAIL.%s.%s.%s",
-                                splitMessage[1], splitMessage[2], splitMessage[3]));
+                        }
+                        String prefix = message.getField(1);
+                        String identity = message.getField(2);
+                        Signal lampsSignal = Signal.getSignalObject(prefix, identity);
+                        if (lampsSignal == null) {
                             break;
-                            
-                        case "RESTORE_LAMP":
-                            // "RESTORE_LAMP.RED.CE.115"
-                            Signal.getSignalObject(splitMessage[2], splitMessage[3]).restoreSignalLamp(SignalAspect.valueOf(splitMessage[1]));
+                        }
+                        int lampsFitted = lampsSignal.getLampsFitted();
+                        int lampsProved = lampsSignal.getLampsProved();
+                        for (SignalAspect lamp : SignalAspect.values()) {
+
+                            if ((lampsFitted & (1 << lamp.ordinal())) != 0) {
+
+                                addOutgoingMessageToStack(MessageType.TECHNICIAN, String.format ("%s.%s.%s.%s", 
+                                    ((lampsProved & (1 << lamp.ordinal())) != 0) ? "LAMP_OK" : "LAMP_FAIL", lamp.toString(), prefix, identity));
+
+                            }
+
+                        }
+                        break;
+
+                    case GET_LAMP_MASKS:
+                        // "GET_LAMP_MASKS" (every signal), "GET_LAMP_MASKS.CE" (every signal with the prefix) or "GET_LAMP_MASKS.CE.115.CE.116"
+                        List <Signal> maskSignals = new ArrayList<>();
+                        if (fields <= 2) {
+                            String maskPrefix = (fields == 2) ? message.getField(1) : null;
+                            for (int handle = 0; handle < AssetRegistry.size(Signal.class); handle++) {
+                                Signal maskSignal = AssetRegistry.get(Signal.class, handle);
+                                if (maskSignal != null && (maskPrefix == null || maskPrefix.equals(maskSignal.getPrefix()))) {
+                                    maskSignals.add(maskSignal);
+                                }
+                            }
+                        } else {
+                            for (int field = 1; field + 1 < fields; field += 2) {
+                                Signal maskSignal = Signal.getSignalObject(message.getField(field), message.getField(field + 1));
+                                if (maskSignal != null) {
+                                    maskSignals.add(maskSignal);
+                                }
+                            }
+                        }
+                        addOutgoingLampMasksToStack(maskSignals);
+                        break;
+
+                    case FAIL_LAMP:
+                        // "FAIL_LAMP.RED.CE.115"
+                        SignalAspect failedLamp = (fields >= 4) ? message.getEnum(1, SIGNAL_ASPECTS) : null;
+                        Signal failedSignal = (failedLamp != null) ? Signal.getSignalObject(message.getField(2), message.getField(3)) : null;
+                        if (failedSignal != null) {
+                            failedSignal.failSignalLamp(failedLamp);
+                            addOutgoingMessageToStack(MessageType.TECHNICIAN, String.format ("LAMP_FAIL.%s.%s.%s",
+                                failedLamp.toString(), message.getField(2), message.getField(3)));
+                        }
+                        break;
+
+                    case RESTORE_LAMP:
+                        // "RESTORE_LAMP.RED.CE.115"
+                        SignalAspect restoredLamp = (fields >= 4) ? message.getEnum(1, SIGNAL_ASPECTS) : null;
+                        Signal restoredSignal = (restoredLamp != null) ? Signal.getSignalObject(message.getField(2), message.getField(3)) : null;
+                        if (restoredSignal != null) {
+                            restoredSignal.restoreSignalLamp(restoredLamp);
                             addOutgoingMessageToStack(MessageType.TECHNICIAN, String.format ("LAMP_OK.%s.%s.%s",
-                                splitMessage[1], splitMessage[2], splitMessage[3]));
-                            break;
-                    }
-                    break;
-            }
-            
-            INCOMING_STACK.remove(0); // Remove the message we have just processed from the message stack.
+                                restoredLamp.toString(), message.getField(2), message.getField(3)));
+                        }
+                        break;
+                }
+                break;
         }
         
     }
     
     /**
      * This method processes each message contained within the outgoing message stack.
+     * 
+     * The calling Thread is blocked until at least one message is available; it is woken as soon as a message is added
+     * to the outgoing message stack, and then sends every message that is waiting.
+     * Messages are written to the Socket in batches: every message waiting (up to MAX_BATCH_FRAMES) is buffered and
+     * sent with a single flush. When the stack empties, the batch is held for up to MAX_LINGER_NANOS in case further
+     * messages arrive before it is flushed.
+     * @throws InterruptedException if the calling Thread is interrupted whilst waiting for a message.
      */
-    public static synchronized void processOutgoingMessages() {
+    public static void processOutgoingMessages() throws InterruptedException {
     
-        while (!OUTGOING_STACK.isEmpty()) {
+        Message message = OUTGOING_STACK.take(); // Wait for the next message to be queued.
+        int batch = 0; // The number of messages buffered since the last flush.
+        long lingerDeadline = System.nanoTime() + MAX_LINGER_NANOS; // The time by which the batch must be flushed.
+        
+        while (message != null) {
             
-            // Send Message
-            sendMessage (OUTGOING_STACK.get(0));
-            // Remove from OUTGOING_STACK
-            OUTGOING_STACK.remove(0);
+            if (Thread.interrupted()) {
+                throw new InterruptedException(); // The connection has been closed; leave the remaining messages for the next connection.
+            }
+            
+            Message latest = latestState(message);
+            
+            // Send Message; unless the latest state of the asset has already been sent from the URGENT lane.
+            if (latest != null) {
+                transmitMessage (latest);
+                batch ++;
+            }
+            
+            if (batch >= MAX_BATCH_FRAMES) {
+                outgoing.flushMessages();
+                batch = 0;
+                lingerDeadline = System.nanoTime() + MAX_LINGER_NANOS;
+            }
+            
+            // Move on to the next message, if there is one, lingering briefly before the batch is flushed.
+            message = OUTGOING_STACK.poll();
+            
+            while (message == null && batch > 0 && System.nanoTime() < lingerDeadline) {
+                LockSupport.parkNanos(Math.min(50000, lingerDeadline - System.nanoTime()));
+                message = OUTGOING_STACK.poll();
+            }
                  
         }
+        
+        outgoing.flushMessages();
+        
+    }
+    
+    /**
+     * This method returns the message to send in place of one taken from the outgoing message stack.
+     * 
+     * When STATE_CHANGE messages are coalesced, the latest state of the asset is sent in place of the one queued.
+     * @param message <code>Message</code> The message taken from the outgoing message stack.
+     * @return <code>Message</code> The message to send, or <i>'null'</i> if the latest state of the asset has already been sent.
+     */
+    private static Message latestState(Message message) {
+        
+        countStateLane(message, false);
+        
+        if (COALESCE_STATE_CHANGES && message.getAssetKind() != null && message.getSequence() == 0) {
+            return PENDING_STATE.remove(assetKey(message));
+        }
+        
+        return message;
+        
+    }
+    
+    /**
+     * This method takes the next message to send from the outgoing message stack, without waiting and without sending it.
+     * @return <code>Message</code> The next message to send, or <i>'null'</i> if the outgoing message stack is empty.
+     */
+    static Message pollOutgoingMessage() {
+        
+        Message message;
+        
+        while ((message = OUTGOING_STACK.poll()) != null) {
+            Message latest = latestState(message);
+            if (latest != null) {
+                return latest;
+            }
+        }
+        
+        return null;
+        
+    }
+    
+    /**
+     * This method keeps count of the STATE_CHANGE messages waiting in the STATE lane for each asset, when they are not coalesced.
+     * @param message <code>Message</code> The message added to, or taken from, the outgoing message stack.
+     * @param queued <code>Boolean</code> <i>'true'</i> if the message has been added, <i>'false'</i> if it has been taken.
+     */
+    private static void countStateLane(Message message, Boolean queued) {
+        
+        if (COALESCE_STATE_CHANGES || message.getAssetKind() == null || message.getLane() != MessageLane.STATE) {
+            return;
+        }
+        
+        if (queued) {
+            QUEUED_IN_STATE_LANE.merge(assetKey(message), 1, Integer::sum);
+        } else {
+            QUEUED_IN_STATE_LANE.computeIfPresent(assetKey(message), (key, count) -> (count > 1) ? count - 1 : null);
+        }
+        
+    }
+    
+    /**
+     * This method sends a message and starts its retransmission timer.
+     * 
+     * A message being sent for the first time is given the next sequence number and placed in the PENDING_WINDOW;
+     * a message being retransmitted is only sent if it is still awaiting acknowledgement.
+     * Until the Remote Interlocking has acknowledged a message by sequence number, messages are numbered but not
+     * tracked, so that a Remote Interlocking which does not acknowledge messages is not sent every message repeatedly;
+     * nor are they tracked under the TEXT protocol, where messages are acknowledged by hash code.
+     * @param message A <code>Message</code> object required to be sent to the Remote Interlocking.
+     * @throws InterruptedException if the calling Thread is interrupted whilst waiting for room in the PENDING_WINDOW.
+     */
+    private static void transmitMessage(Message message) throws InterruptedException {
+        
+        PendingWindow.Entry entry;
+        
+        if ((!acknowledgementsReceived || !protocolVersion.hasSequenceNumbers()) && message.getSequence() == 0) {
+            PENDING_WINDOW.assign(message);
+            sendMessage(message);
+            return;
+        }
+        
+        if (message.getSequence() == 0) {
+            if (PENDING_WINDOW.isFull()) {
+                outgoing.flushMessages(); // The messages awaiting acknowledgement must have been sent before waiting for room.
+            }
+            entry = PENDING_WINDOW.register(message);
+        } else {
+            entry = PENDING_WINDOW.get(message.getSequence());
+            if (entry == null) {
+                return; // The message was acknowledged whilst waiting to be retransmitted.
+            }
+        }
+        
+        entry.attempts ++;
+        sendMessage(message);
+        
+        if (COALESCE_STATE_CHANGES && message.getAssetKind() != null) {
+            LAST_SENT_STATE.put(assetKey(message), entry.sequence);
+        }
+        
+        // Back off exponentially with each attempt.
+        long timeout = Math.min(RETRANSMIT_INITIAL_MILLIS << (entry.attempts - 1), RETRANSMIT_MAX_MILLIS);
+        entry.timeout = RETRANSMISSION_TIMER.schedule(timeout, () -> retransmitMessage(entry));
+        
+    }
+    
+    /**
+     * This method is called by the RETRANSMISSION_TIMER when a message has not been acknowledged in time.
+     * 
+     * The message is queued to be sent again, unless it has already been sent the maximum number of times, in which case it is abandoned.
+     * @param entry <code>PendingWindow.Entry</code> The window entry of the unacknowledged message.
+     */
+    private static void retransmitMessage(PendingWindow.Entry entry) {
+        
+        if (PENDING_WINDOW.get(entry.sequence) != entry) {
+            return; // The message has been acknowledged.
+        }
+        
+        if (COALESCE_STATE_CHANGES && entry.message.getAssetKind() != null
+            && LAST_SENT_STATE.getOrDefault(assetKey(entry.message), entry.sequence) != entry.sequence) {
+            
+            PENDING_WINDOW.remove(entry.sequence); // A newer state for the asset has been sent; do not resend the old one.
+            SUPERSEDED.incrementAndGet();
+            
+        } else if (entry.attempts >= MAX_SEND_ATTEMPTS) {
+            
+            PENDING_WINDOW.remove(entry.sequence);
+            ABANDONED.incrementAndGet();
+            LineSideModule.dataLogger.sendToDataLogger(String.format ("%sWARNING: Message %d was not acknowledged by the Remote Interlocking after %d attempts.%s",
+                Colour.RED.getColour(), entry.sequence, entry.attempts, Colour.RESET.getColour()),
+                true, true);
+            
+        } else if (retransmitOffer(entry.message)) {
+            
+            RETRANSMITTED.incrementAndGet();
+            
+        } else {
+            
+            entry.timeout = RETRANSMISSION_TIMER.schedule(RETRANSMIT_INITIAL_MILLIS, () -> retransmitMessage(entry)); // The queue is full, try again later.
+            
+        }
+        
+    }
+    
+    /**
+     * This method adds a message to be retransmitted to the outgoing message stack, in the lane it was first queued in.
+     * @param message <code>Message</code> The message to retransmit.
+     * @return <code>Boolean</code> <i>'true'</i> if the message was queued, <i>'false'</i> if the stack is full.
+     */
+    private static Boolean retransmitOffer(Message message) {
+        
+        countStateLane(message, true);
+        
+        if (!OUTGOING_STACK.offer(message)) {
+            countStateLane(message, false);
+            return false;
+        }
+        
+        return true;
+        
+    }
+    
+    /**
+     * This method clears an acknowledged message from the PENDING_WINDOW.
+     * @param sequence <code>Long</code> The sequence number of the message acknowledged.
+     */
+    private static void acknowledgeMessage(long sequence) {
+        
+        PendingWindow.Entry entry = PENDING_WINDOW.remove(sequence);
+        
+        if (entry != null) {
+            recordAcknowledgement(entry);
+        }
+        
+    }
+    
+    /**
+     * This method records the round trip time of an acknowledged message.
+     * 
+     * Only messages acknowledged after a single attempt are recorded, as it is not possible to tell which attempt a retransmitted message's acknowledgement relates to.
+     * @param entry <code>PendingWindow.Entry</code> The window entry of the acknowledged message.
+     */
+    private static void recordAcknowledgement(PendingWindow.Entry entry) {
+        
+        if (entry.attempts == 1) {
+            ACK_LATENCY.record(System.nanoTime() - entry.firstSentNanos);
+        }
+        
     }
     
     /**
@@ -179,113 +727,482 @@ public abstract class MessageHandler {
      */
     private static synchronized void sendMessage(Message message) {
        
+        if (protocolVersion.isBinary()) {
+            
+            Boolean includeBody = true;
+            if (message.getAssetKind() != null) {
+                BitSet announced = ANNOUNCED_HANDLES[message.getAssetKind().ordinal()];
+                includeBody = !announced.get(message.getAssetHandle()); // Only name the asset the first time its handle is used.
+                announced.set(message.getAssetHandle());
+            }
+            
+            int length = BinaryFrame.encode(FRAME_BUFFER, protocolVersion, LineSideModule.getLineSideModuleIdentity(), message, includeBody);
+            outgoing.bufferFrame(FRAME_BUFFER, length);
+            return;
+            
+        }
+        
         /*
         *   Messages must be formatted thus: SENDER|TYPE|BODY|HASH|END_MESSAGE
+        *   Where sequence numbers are agreed: SENDER|TYPE|BODY|HASH|SEQUENCE|END_MESSAGE
+        *   Where state versions are agreed, state changes also carry theirs: SENDER|TYPE|BODY|HASH|SEQUENCE|STATE_VERSION|END_MESSAGE
         */
-      
-        outgoing.sendMessageToRemoteInterlocking(String.format ("%s|%s|%s|%s|%s", 
+        
+        StringBuilder frame = new StringBuilder(String.format ("%s|%s|%s|%s", 
             LineSideModule.getLineSideModuleIdentity(), 
             message.getMsgType().toString(), 
             message.getMsgBody(), 
-            message.getMsgHash(), 
-            MESSAGE_END));
+            message.getMsgHash()));
+        
+        if (protocolVersion.hasSequenceNumbers()) {
+            frame.append('|').append(message.getSequence());
+        }
+        
+        if (protocolVersion.hasStateVersions() && message.getAssetKind() != null) {
+            frame.append('|').append(message.getStateVersion());
+        }
+        
+        outgoing.bufferMessage(frame.append('|').append(MESSAGE_END).toString());
         
     }
     
     /**
-     * This method adds a message to the incoming message stack ready for processing.
+     * This method returns a record, from the pool, that an incoming frame can be decoded into.
      * 
-     * Note: This method does not perform any checks on the message, this should be don prior to passing the message to this method.
-     * @param message A <code>String</code> that contains the message, as received from the Remote Interlocking, i.e. incomplete.
+     * This method must only be called by the Thread reading from the Remote Interlocking.
+     * @return <code>InboundMessage</code> An empty record.
+     */
+    protected static InboundMessage acquireIncomingRecord() {
+        
+        InboundMessage record = FREE_RECORDS.poll();
+        return (record != null) ? record : new InboundMessage();
+        
+    }
+    
+    /**
+     * This method validates and decodes a frame received from the Remote Interlocking, and adds it to the incoming message stack.
+     * 
+     * Adding a message wakes the Thread waiting in processIncomingMessages immediately. Frames that are not valid are counted and ignored.
+     * @param frame <code>byte[]</code> The buffer holding the frame, as received from the Remote Interlocking.
+     * @param length <code>Integer</code> The length of the frame.
+     * @return <code>Boolean</code> <i>'true'</i> if the frame was valid, otherwise <i>'false'</i>.
+     */
+    protected static Boolean addIncomingFrameToStack(byte[] frame, int length) {
+        
+        InboundMessage record = acquireIncomingRecord();
+        
+        if (FrameDecoder.decode(frame, length, LineSideModule.getRiIdentity(), record)) {
+            enqueue(INCOMING_STACK, record);
+            return true;
+        }
+        
+        REJECTED_FRAMES.incrementAndGet();
+        FREE_RECORDS.offer(record);
+        return false;
+        
+    }
+    
+    /**
+     * This method agrees the protocol version with the Remote Interlocking.
+     * 
+     * A HAND_SHAKE message offering the highest protocol version supported is sent (as text) directly to the Remote Interlocking,
+     * and the calling Thread waits for the reply. A Remote Interlocking that does not reply within HANDSHAKE_TIMEOUT_MILLIS is
+     * assumed to only understand the TEXT protocol, and is not sent a HAND_SHAKE on any later connection; nor is a HAND_SHAKE
+     * sent when the TEXT protocol has been selected with -Dlineside.protocolVersion=1. This method must be called once the
+     * connection streams have been set up, and before any queued messages are sent.
+     * @return <code>ProtocolVersion</code> The protocol version agreed.
+     */
+    public static ProtocolVersion negotiateProtocolVersion() {
+        
+        protocolVersion = ProtocolVersion.TEXT; // The HAND_SHAKE is always sent as text.
+        offeredVersion = ProtocolVersion.TEXT;
+        heldStateVersion = -1;
+        handshakeReply = new CountDownLatch(1);
+        
+        synchronized (MessageHandler.class) {
+            for (BitSet announced : ANNOUNCED_HANDLES) {
+                announced.clear(); // A new connection; every asset must be named again.
+            }
+        }
+        
+        if (OFFERED_PROTOCOL == ProtocolVersion.TEXT || handshakeUnanswered) {
+            return protocolVersion; // An older Remote Interlocking, which would not recognise the HAND_SHAKE message.
+        }
+        
+        String body = String.format ("PROTOCOL.%d", OFFERED_PROTOCOL.getVersion());
+        String sender = LineSideModule.getLineSideModuleIdentity();
+        sendMessage(new Message(MessageType.HAND_SHAKE, body, 
+            String.format ("%s|%s|%s", sender, MessageType.HAND_SHAKE.toString(), body).hashCode()));
+        outgoing.flushMessages();
+        
+        try {
+            if (handshakeReply.await(HANDSHAKE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                protocolVersion = (offeredVersion.compareTo(OFFERED_PROTOCOL) > 0) ? OFFERED_PROTOCOL : offeredVersion;
+            } else {
+                handshakeUnanswered = true;
+                LineSideModule.dataLogger.sendToDataLogger(String.format ("%sNo reply to the HAND_SHAKE; using the TEXT protocol from now on.%s",
+                    Colour.YELLOW.getColour(), Colour.RESET.getColour()), true, true);
+            }
+        } catch (InterruptedException ex) {}
+        
+        return protocolVersion;
+        
+    }
+    
+    /**
+     * This method returns the protocol version agreed with the Remote Interlocking.
+     * @return <code>ProtocolVersion</code> The protocol version in use.
      */
-    protected static synchronized void addIncomingMessageToStack(String message) {
+    public static ProtocolVersion getProtocolVersion() {
+        return protocolVersion;
+    }
+    
+    /**
+     * This method queues the Signal Lamp bitmasks of a number of signals, in as few TECHNICIAN messages as possible.
+     * 
+     * Each message is LAMP_MASKS.prefix.identity.fitted.proved[.prefix.identity.fitted.proved...], holding up to
+     * LAMP_MASK_SIGNALS signals. The bitmasks are in hexadecimal, with a bit set for each lamp by the ordinal of the
+     * SignalAspect the lamp shows; a lamp that is fitted but not proved has failed.
+     * @param signals <code>List</code> The signals to report.
+     */
+    private static void addOutgoingLampMasksToStack(List <Signal> signals) {
+        
+        StringBuilder masks = new StringBuilder("LAMP_MASKS");
+        int count = 0;
         
-        // Take the incoming message, and split it into 5 parts.
-        String[] splitMessage = message.split("\\|");
+        for (Signal signal : signals) {
+            
+            masks.append('.').append(signal.getPrefix())
+                .append('.').append(signal.getIdentity())
+                .append('.').append(Integer.toHexString(signal.getLampsFitted()))
+                .append('.').append(Integer.toHexString(signal.getLampsProved()));
+            
+            if (++count == LAMP_MASK_SIGNALS) {
+                addOutgoingMessageToStack(MessageType.TECHNICIAN, masks.toString());
+                masks.setLength("LAMP_MASKS".length());
+                count = 0;
+            }
+            
+        }
         
-        // Create a new Message object and assign to the Incoming stack ArrayList.
-        INCOMING_STACK.add(new Message(
-            MessageType.valueOf(splitMessage[1]), splitMessage[2], Integer.parseInt(splitMessage[3])));
+        if (count > 0) {
+            addOutgoingMessageToStack(MessageType.TECHNICIAN, masks.toString());
+        }
         
     }
     
     /**
      * This method adds a message to the outgoing message stack ready for processing.
      * 
+     * Adding a message wakes the Thread waiting in processOutgoingMessages immediately.
+     * 
      * @param type A <code>MessageType</code> constant, indicating the type of message.
      * @param message A <code>String</code> that contains the message, as received from the Remote Interlocking, i.e. incomplete.
+     * @return <code>Boolean</code> <i>'true'</i> if the message was queued, <i>'false'</i> if it was refused as the stack is full.
      */
-    public static synchronized void addOutgoingMessageToStack(MessageType type, String message) {
+    public static Boolean addOutgoingMessageToStack(MessageType type, String message) {
         String sender = LineSideModule.getLineSideModuleIdentity();
         int hashCode = String.format ("%s|%s|%s", sender, type.toString(), message).hashCode();
-        OUTGOING_STACK.add(new Message(type, message, hashCode));
+        return enqueueOutgoing(new Message(type, message, hashCode));
     }
     
     /**
-     * This static method validates the format (not content) of a message.
-     * @param message <code>String</code> containing the message to validate.
-     * @return <code>Boolean</code> <i>'true'</i> is returned to indicate that the message format is correct, otherwise <i>'false'</i> is returned.
+     * This method adds a STATE_CHANGE message, reporting the state of a single line side asset, to the outgoing message stack.
+     * 
+     * The asset handle and state ordinals are sent in place of the message body when the BINARY protocol is in use.
+     * 
+     * @param kind An <code>AssetKind</code> constant, indicating the kind of asset.
+     * @param handle <code>Integer</code> The handle of the asset.
+     * @param stateA <code>Integer</code> The first state ordinal of the asset, e.g. the points position or signal aspect.
+     * @param stateB <code>Integer</code> The second state ordinal of the asset, e.g. the points detection.
+     * @param message A <code>String</code> that contains the message body, as sent in the TEXT protocol.
+     * @return <code>Boolean</code> <i>'true'</i> if the message was queued (or coalesced), <i>'false'</i> if it was refused as the stack is full.
      */
-    protected static synchronized Boolean isMessageFormattedCorrectly (String message) {
-        /*
-        *   Messages must be formatted thus: SENDER|TYPE|BODY|HASH|END_MESSAGE
-        */
+    public static Boolean addOutgoingStateChangeToStack(AssetKind kind, int handle, int stateA, int stateB, String message) {
+        return queueStateChange(recordStateChange(kind, handle, stateA, stateB, message));
+    }
+    
+    /**
+     * This method records the state of a single line side asset, stamped with the next state version, without sending it.
+     * 
+     * The state recorded is sent by delta resynchronisation, or as part of the next SNAPSHOT.
+     * 
+     * @param kind An <code>AssetKind</code> constant, indicating the kind of asset.
+     * @param handle <code>Integer</code> The handle of the asset.
+     * @param stateA <code>Integer</code> The first state ordinal of the asset, e.g. the points position or signal aspect.
+     * @param stateB <code>Integer</code> The second state ordinal of the asset, e.g. the points detection.
+     * @param message A <code>String</code> that contains the message body, as sent in the TEXT protocol.
+     * @return <code>Message</code> The STATE_CHANGE recorded.
+     */
+    public static Message recordStateChange(AssetKind kind, int handle, int stateA, int stateB, String message) {
+        String sender = LineSideModule.getLineSideModuleIdentity();
+        int hashCode = String.format ("%s|%s|%s", sender, MessageType.STATE_CHANGE.toString(), message).hashCode();
+        Message stateChange = new Message(MessageType.STATE_CHANGE, message, hashCode, kind, handle, stateA, stateB, STATE_LOG.nextVersion());
+        STATE_LOG.record(assetKey(stateChange), stateChange);
+        return stateChange;
+    }
+    
+    /**
+     * This method adds a SNAPSHOT of the latest recorded state of every line side asset to the outgoing message stack.
+     * 
+     * The state table holds one line per asset, BODY|STATE_VERSION, as sent in a text STATE_CHANGE. It is compressed
+     * (unless -Dlineside.snapshotCompression=false is given), Base64 encoded, and split into as few parts as the frame
+     * length allows, each sent as a SNAPSHOT message:
+     *   SNAPSHOT.snapshotVersion.part.parts.encoding.payload
+     * The Remote Interlocking applies the table once every part of the snapshot version has been received.
+     * 
+     * @return <code>Boolean</code> <i>'true'</i> if every part was queued, <i>'false'</i> if a part was refused as the stack is full.
+     */
+    public static Boolean addOutgoingSnapshotToStack() {
         
-        System.out.println(message);
-        String[] splitMessage = message.split("\\|");
+        long snapshotVersion = STATE_LOG.getVersion();
+        StringBuilder table = new StringBuilder();
         
-        try {
+        for (Message state : STATE_LOG.changedSince(0)) { // Every asset recorded.
+            table.append(state.getMsgBody()).append('|').append(state.getStateVersion()).append('\n');
+        }
         
-            // Check the Message Length.
-            if (splitMessage.length < 5) {
-                throw new IOException("Message is incorrect length.");
-            }
+        byte[] tableBytes = table.toString().getBytes(StandardCharsets.UTF_8);
+        String encoding = "NONE";
+        
+        if (COMPRESS_SNAPSHOTS) {
             
-            // Check the Message Sender is valid.
-            if (!splitMessage[0].matches("^[A-Z_0-9]{5,15}$")) {
-                throw new IOException("The message sender is invalid.");
-            }
+            Deflater deflater = new Deflater();
+            deflater.setInput(tableBytes);
+            deflater.finish();
             
-            if (!splitMessage[0].equals(LineSideModule.getRiIdentity())) {
-                throw new IOException("The message sender is invalid.");
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(tableBytes.length / 4 + 64);
+            byte[] block = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(block, 0, deflater.deflate(block));
             }
+            deflater.end();
             
-            // Check to see if a valid type has been specified.
-            Boolean validType = false;
-            for (MessageType value : MessageType.values()) {
-                if (value.toString().equals(splitMessage[1])) {
-                    validType = true;
-                    break;
-                } 
-            }
-            MessageType type = MessageType.valueOf(splitMessage[1]);
-            
-            if (!validType) {
-                throw new IOException ("Invalid message type.");
-            }
+            tableBytes = compressed.toByteArray();
+            encoding = "DEFLATE";
             
-            // Check to make sure that the message body contains valid text.
-            if (!splitMessage[2].matches("^[A-Za-z_0-9.-_]{4,}$")) {
-                throw new IOException ("Invalid message body");
-            }
-           
-            // Check HashCode.
-            if (String.format ("%s|%s|%s", splitMessage[0], type.toString(), splitMessage[2]).hashCode()!= Integer.parseInt(splitMessage[3])) {
-                throw new IOException("Message hash code is invalid");
+        }
+        
+        String payload = Base64.getEncoder().encodeToString(tableBytes);
+        int parts = Math.max(1, (payload.length() + SNAPSHOT_PART_CHARACTERS - 1) / SNAPSHOT_PART_CHARACTERS);
+        Boolean queued = true;
+        
+        for (int part = 0; part < parts; part++) {
+            String chunk = payload.substring(part * SNAPSHOT_PART_CHARACTERS, Math.min(payload.length(), (part + 1) * SNAPSHOT_PART_CHARACTERS));
+            queued &= addOutgoingMessageToStack(MessageType.SNAPSHOT, 
+                String.format ("SNAPSHOT.%d.%d.%d.%s.%s", snapshotVersion, part + 1, parts, encoding, chunk));
+        }
+        
+        SNAPSHOTS.incrementAndGet();
+        SNAPSHOT_BYTES.addAndGet(payload.length());
+        return queued;
+        
+    }
+    
+    /**
+     * This method indicates whether the protocol version agreed with the Remote Interlocking allows SNAPSHOT messages.
+     * @return <code>Boolean</code> <i>'true'</i> if SNAPSHOT messages may be sent, otherwise <i>'false'</i>.
+     */
+    public static Boolean isSnapshotAgreed() {
+        return protocolVersion == ProtocolVersion.SNAPSHOT;
+    }
+    
+    /**
+     * This method adds a STATE_CHANGE message to the outgoing message stack, coalescing it with a pending state for the same asset.
+     * @param stateChange <code>Message</code> The STATE_CHANGE.
+     * @return <code>Boolean</code> <i>'true'</i> if the message has been queued (or coalesced), otherwise <i>'false'</i>.
+     */
+    private static Boolean queueStateChange(Message stateChange) {
+        
+        Message pending = null;
+        
+        stateChange.setLane(outgoingLane(stateChange));
+        
+        if (!COALESCE_STATE_CHANGES && stateChange.getLane() == MessageLane.URGENT 
+            && QUEUED_IN_STATE_LANE.containsKey(assetKey(stateChange))) {
+            stateChange.setLane(MessageLane.STATE); // An earlier state for the signal waits in the STATE lane; it must be sent first.
+        }
+        
+        if (COALESCE_STATE_CHANGES) {
+            pending = PENDING_STATE.put(assetKey(stateChange), stateChange);
+            // A signal replaced to danger is always queued in the URGENT lane, rather than waiting for a place held in the STATE lane.
+            if (pending != null && stateChange.getLane() != MessageLane.URGENT) {
+                COALESCED.incrementAndGet(); // A state for this asset is already queued; it now carries the latest state.
+                return true;
             }
-            
-            // Check Message End.
-            if (!splitMessage[4].equals(MESSAGE_END)) {
-                throw new IOException ("Incorrectly formatted message end.");
+        }
+        
+        if (!enqueueOutgoing(stateChange)) {
+            if (COALESCE_STATE_CHANGES && pending == null) {
+                PENDING_STATE.remove(assetKey(stateChange), stateChange); // There is no place in the stack to carry the pending state.
             }
-            
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
-            return false;
-        } 
+            return pending != null; // A place already held in the STATE lane carries the latest state.
+        }
         
         return true;
     }
+    
+    /**
+     * This method brings the Remote Interlocking up to date from the state version it holds.
+     * 
+     * If the state version was issued since the LineSide Module started, only the latest state of each asset changed since
+     * is re-sent (stamped with its original state version); otherwise the state of every asset is sent.
+     * @param since <code>Long</code> The state version held by the Remote Interlocking, or -1 if it holds none.
+     */
+    public static void resynchronise(long since) {
+        
+        if (!STATE_LOG.canResynchronise(since)) {
+            FULL_RESYNCS.incrementAndGet();
+            LineSideModule.sendUpdateAll();
+            return;
+        }
+        
+        List <Message> changed = STATE_LOG.changedSince(since);
+        
+        for (Message state : changed) {
+            // A new Message object is queued, as the one recorded may already carry a sequence number.
+            queueStateChange(new Message(MessageType.STATE_CHANGE, state.getMsgBody(), state.getMsgHash(), state.getAssetKind(), 
+                state.getAssetHandle(), state.getStateA(), state.getStateB(), state.getStateVersion()));
+        }
+        
+        DELTA_RESYNCS.incrementAndGet();
+        DELTA_STATES.addAndGet(changed.size());
+        
+    }
+    
+    /**
+     * This method brings the Remote Interlocking up to date from the state version given in its HAND_SHAKE reply.
+     */
+    public static void resynchronise() {
+        resynchronise(heldStateVersion);
+    }
+    
+    /**
+     * This method returns the state version of the most recent state change.
+     * @return <code>Long</code> The state version.
+     */
+    public static long getStateVersion() {
+        return STATE_LOG.getVersion();
+    }
+    
+    /**
+     * This method returns the key used to coalesce STATE_CHANGE messages for the same asset.
+     * @param message <code>Message</code> A STATE_CHANGE message that relates to a single asset.
+     * @return <code>Long</code> The asset kind and handle combined.
+     */
+    private static long assetKey(Message message) {
+        return ((long) message.getAssetKind().ordinal() << 32) | (message.getAssetHandle() & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * This method chooses the priority lane of an outgoing message.
+     * @param message <code>Message</code> The message.
+     * @return <code>MessageLane</code> The lane.
+     */
+    private static MessageLane outgoingLane(Message message) {
+        
+        if (message.getLane() != null) {
+            return message.getLane(); // The lane chosen when the message was first queued.
+        }
+        
+        switch (message.getMsgType()) {
+            case REQUEST:
+            case HAND_SHAKE:
+                return MessageLane.URGENT;
+            case ACK:
+                return MessageLane.ACK;
+            case TECHNICIAN:
+                return MessageLane.BULK;
+            default:
+                // A signal being replaced to danger (SIGNAL_ON) overtakes other state changes.
+                Boolean signalOn = (message.getAssetKind() == AssetKind.CONTROLLED_SIGNAL || message.getAssetKind() == AssetKind.AUTOMATIC_SIGNAL)
+                    && message.getStateA() == SignalAspect.RED.ordinal();
+                return signalOn ? MessageLane.URGENT : MessageLane.STATE;
+        }
+        
+    }
+    
+    /**
+     * This method chooses the priority lane of an incoming message.
+     * @param message <code>InboundMessage</code> The message.
+     * @return <code>MessageLane</code> The lane.
+     */
+    private static MessageLane incomingLane(InboundMessage message) {
+        
+        switch (message.getType()) {
+            case REQUEST:
+            case HAND_SHAKE:
+                return MessageLane.URGENT;
+            case ACK:
+                return MessageLane.ACK;
+            case TECHNICIAN:
+                return MessageLane.BULK;
+            default:
+                return MessageLane.STATE;
+        }
+        
+    }
+    
+    /**
+     * This method returns the number of messages waiting in the outgoing message stack.
+     * @return <code>Integer</code> The depth of the outgoing message queue.
+     */
+    public static int getOutgoingQueueDepth() {
+        return OUTGOING_STACK.size();
+    }
+    
+    /**
+     * This method returns the number of messages waiting in the incoming message stack.
+     * @return <code>Integer</code> The depth of the incoming message queue.
+     */
+    public static int getIncomingQueueDepth() {
+        return INCOMING_STACK.size();
+    }
+    
+    /**
+     * This method returns a summary of the depth and contention metrics of the incoming and outgoing message queues.
+     * @return <code>String</code> A formatted summary of the message queue metrics.
+     */
+    public static String getQueueStatistics() {
+        
+        return String.format ("Outgoing [depth %d/%d, peak %d, queued %d, contended %d, full %d, dropped %d (%s), coalesced %d, superseded %d] Resync [version %d, delta %d (states %d), full %d, snapshots %d (%d bytes)] Incoming [depth %d/%d, peak %d, queued %d, contended %d, full %d, rejected %d] Requests [%s]",
+            OUTGOING_STACK.size(), OUTGOING_STACK.getCapacity(), OUTGOING_STACK.getHighWaterMark(), OUTGOING_STACK.getOfferedCount(), 
+            OUTGOING_STACK.getContendedCount(), OUTGOING_STACK.getRejectedCount(), DROPPED.get(), BACKPRESSURE_POLICY.toString(), 
+            COALESCED.get(), SUPERSEDED.get(), STATE_LOG.getVersion(), DELTA_RESYNCS.get(), DELTA_STATES.get(), FULL_RESYNCS.get(), SNAPSHOTS.get(), SNAPSHOT_BYTES.get(),
+            INCOMING_STACK.size(), INCOMING_STACK.getCapacity(), INCOMING_STACK.getHighWaterMark(), INCOMING_STACK.getOfferedCount(), 
+            INCOMING_STACK.getContendedCount(), INCOMING_STACK.getRejectedCount(), REJECTED_FRAMES.get(), REQUEST_EXECUTOR.toString());
+        
+    }
+    
+    /**
+     * This method returns a summary of the depth, weight and waiting time of each priority lane of the message queues.
+     * @return <code>String</code> A formatted summary of the lane metrics, one lane per line.
+     */
+    public static String getLaneStatistics() {
+        
+        return String.format ("Outgoing lanes:%n%sIncoming lanes:%n%s", 
+            OUTGOING_STACK.getLaneStatistics(), INCOMING_STACK.getLaneStatistics());
+        
+    }
+    
+    /**
+     * This method returns a summary of the number of messages and bytes written to the Socket with each flush.
+     * @return <code>String</code> A formatted summary of the write batching metrics.
+     */
+    public static String getBatchStatistics() {
+        return (outgoing == null) ? "Flushes [not connected]" : outgoing.getBatchStatistics();
+    }
+
+    /**
+     * This method returns a summary of the acknowledgement window and the ACK round trip times.
+     * @return <code>String</code> A formatted summary of the acknowledgement metrics.
+     */
+    public static String getAcknowledgementStatistics() {
+        
+        return String.format ("Awaiting ACK %d, retransmitted %d, abandoned %d, acknowledged by hash %d, %s",
+            PENDING_WINDOW.size(), RETRANSMITTED.get(), ABANDONED.get(), HASH_ACKS.get(), ACK_LATENCY.toString());
+        
+    }
 
     /**
      * This method returns the OutgoingMessage object.
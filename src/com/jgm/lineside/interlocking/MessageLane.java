@@ -0,0 +1,70 @@
+package com.jgm.lineside.interlocking;
+
+/**
+ * This Enumeration defines the priority lanes of the incoming and outgoing message stacks.
+ * <p>
+ * Each lane is served in turn, a lane being allowed to send (or process) up to its weight in messages before the next
+ * lane is served, so a busy lane can never hold up a more urgent one for long. The weights are set with the system
+ * property lineside.laneWeights, one for each lane in order, e.g. -Dlineside.laneWeights=8,4,2,1.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum MessageLane {
+
+    /**
+     * REQUEST messages, and signals being replaced to danger (the SIGNAL_ON aspect change).
+     */
+    URGENT(8),
+
+    /**
+     * ACK messages.
+     */
+    ACK(4),
+
+    /**
+     * STATE_CHANGE and SNAPSHOT messages.
+     */
+    STATE(2),
+
+    /**
+     * TECHNICIAN messages, i.e. lamp reports.
+     */
+    BULK(1);
+
+    private final int defaultWeight; // The weight of the lane, unless one is given by the system property.
+    private static final int[] WEIGHTS = weightsFromProperty(); // The weight of each lane, by ordinal.
+
+    MessageLane (int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * This method returns the number of messages the lane may send (or process) before the next lane is served.
+     * @return <code>Integer</code> The weight of the lane.
+     */
+    public int getWeight () {
+        return WEIGHTS[this.ordinal()];
+    }
+
+    /**
+     * This method reads the lane weights from the system property, falling back to the default weight of any lane not given.
+     */
+    private static int[] weightsFromProperty () {
+
+        MessageLane[] lanes = values();
+        int[] weights = new int[lanes.length];
+        String[] given = System.getProperty("lineside.laneWeights", "").split(",");
+
+        for (int i = 0; i < lanes.length; i++) {
+            weights[i] = lanes[i].defaultWeight;
+            try {
+                weights[i] = Math.max(1, Integer.parseInt(given[i].trim()));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {}
+        }
+
+        return weights;
+
+    }
+
+}
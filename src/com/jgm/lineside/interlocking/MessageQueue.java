@@ -0,0 +1,244 @@
+package com.jgm.lineside.interlocking;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * This Class provides a bounded, lock-free, multi-producer/single-consumer message queue.
+ * <p>
+ * The queue is a ring of pre-allocated slots; each slot carries a sequence number that tells producers and the consumer
+ * whether the slot is free or holds a message. Producers claim a slot with a single compare-and-set and never take a lock,
+ * so a Thread queueing a message is never held up by the Thread writing to the Remote Interlocking.
+ * The single consumer parks when the queue is empty and is unparked by the next producer.
+ * The head is also claimed with a compare-and-set, so that a producer may evict the message at the head of a full queue.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ * @param <E> The type of object held in the queue.
+ */
+final class MessageQueue <E> {
+
+    private final int capacity; // The number of slots in the ring (a power of 2).
+    private final int mask; // Used to convert a position into a slot index.
+    private final AtomicReferenceArray <E> slots; // The pre-allocated slots that hold the messages.
+    private final AtomicLongArray sequences; // The sequence number of each slot.
+    private final AtomicLong tail = new AtomicLong(); // The next position to be claimed by a producer.
+    private final AtomicLong head = new AtomicLong(); // The next position to be read by the consumer.
+    private volatile Thread waitingConsumer = null; // The consumer Thread, whilst it is parked waiting for a message.
+
+    private final AtomicLong offered = new AtomicLong(); // The number of messages accepted by the queue.
+    private final AtomicLong contended = new AtomicLong(); // The number of times a producer lost a race for a slot and had to retry.
+    private final AtomicLong rejected = new AtomicLong(); // The number of times a producer found the queue full.
+    private volatile int highWaterMark = 0; // The greatest depth the queue has reached.
+
+    /**
+     * This is the Constructor Method for a MessageQueue object.
+     * @param requestedCapacity <code>Integer</code> The minimum number of messages that the queue must hold; rounded up to a power of 2.
+     */
+    MessageQueue (int requestedCapacity) {
+
+        int size = 2;
+        while (size < requestedCapacity) {
+            size <<= 1;
+        }
+
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i); // Each slot is free for the first pass of the ring.
+        }
+
+    }
+
+    /**
+     * This method attempts to add a message to the tail of the queue.
+     * @param element The message to add.
+     * @return <code>Boolean</code> <i>'true'</i> if the message was queued, <i>'false'</i> if the queue is full.
+     */
+    boolean offer (E element) {
+
+        long position = this.tail.get();
+
+        while (true) {
+
+            int index = (int) position & this.mask;
+            long difference = this.sequences.get(index) - position;
+
+            if (difference == 0) { // The slot is free; try and claim it.
+
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.slots.lazySet(index, element);
+                    this.sequences.set(index, position + 1); // Publish the slot to the consumer; a full volatile store, so that it cannot be reordered with the read of waitingConsumer below.
+                    break;
+                }
+                this.contended.incrementAndGet(); // Another producer claimed the slot first.
+                position = this.tail.get();
+
+            } else if (difference < 0) { // The consumer has not yet freed this slot; the queue is full.
+
+                this.rejected.incrementAndGet();
+                return false;
+
+            } else { // Another producer has moved the tail on; try again from the new tail.
+
+                this.contended.incrementAndGet();
+                position = this.tail.get();
+
+            }
+        }
+
+        this.offered.incrementAndGet();
+
+        int depth = this.size();
+        if (depth > this.highWaterMark) {
+            this.highWaterMark = depth;
+        }
+
+        Thread consumer = this.waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer); // Wake the consumer.
+        }
+
+        return true;
+
+    }
+
+    /**
+     * This method removes and returns the message at the head of the queue.
+     * @return The message at the head of the queue, or <i>'null'</i> if the queue is empty.
+     */
+    E poll () {
+        return this.pollIf(null);
+    }
+
+    /**
+     * This method removes and returns the message at the head of the queue, if it meets a condition.
+     *
+     * This method is used by producers to evict a message from a full queue; it is safe to call alongside the consumer.
+     * @param condition <code>Predicate</code> The condition the message must meet, or <i>'null'</i> to remove any message.
+     * @return The message removed, or <i>'null'</i> if the queue is empty or the message at the head does not meet the condition.
+     */
+    E pollIf (Predicate <? super E> condition) {
+
+        long position = this.head.get();
+
+        while (true) {
+
+            int index = (int) position & this.mask;
+            long difference = this.sequences.get(index) - (position + 1);
+
+            if (difference < 0) {
+                return null; // The slot has not been published yet; the queue is empty.
+            }
+
+            if (difference == 0) {
+
+                E element = this.slots.get(index);
+
+                if (condition != null && !condition.test(element)) {
+                    return null;
+                }
+
+                if (this.head.compareAndSet(position, position + 1)) {
+                    this.slots.lazySet(index, null);
+                    this.sequences.lazySet(index, position + this.capacity); // Free the slot for the next pass of the ring.
+                    return element;
+                }
+            }
+
+            position = this.head.get(); // Another Thread removed the message first; try again from the new head.
+
+        }
+
+    }
+
+    /**
+     * This method removes and returns the message at the head of the queue, parking the calling Thread until one is available.
+     *
+     * This method must only be called by the single consumer Thread; only that Thread is unparked by producers.
+     * @return The message at the head of the queue.
+     * @throws InterruptedException if the calling Thread is interrupted whilst waiting for a message.
+     */
+    E take () throws InterruptedException {
+
+        E element = this.poll();
+
+        while (element == null) {
+
+            this.waitingConsumer = Thread.currentThread();
+            element = this.poll(); // Check again, a producer may have missed the consumer registering.
+
+            if (element == null) {
+                LockSupport.park(this);
+                element = this.poll();
+            }
+
+            this.waitingConsumer = null;
+
+            if (element == null && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        return element;
+
+    }
+
+    /**
+     * This method returns the number of messages currently held in the queue.
+     * @return <code>Integer</code> The queue depth.
+     */
+    int size () {
+
+        long depth = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(depth, this.capacity));
+
+    }
+
+    /**
+     * This method returns the number of slots in the queue.
+     * @return <code>Integer</code> The capacity of the queue.
+     */
+    int getCapacity () {
+        return this.capacity;
+    }
+
+    /**
+     * This method returns the greatest depth that the queue has reached.
+     * @return <code>Integer</code> The high water mark of the queue.
+     */
+    int getHighWaterMark () {
+        return this.highWaterMark;
+    }
+
+    /**
+     * This method returns the number of messages that have been accepted by the queue.
+     * @return <code>Long</code> The number of messages queued.
+     */
+    long getOfferedCount () {
+        return this.offered.get();
+    }
+
+    /**
+     * This method returns the number of times a producer had to retry because another producer claimed the same slot.
+     * @return <code>Long</code> The contention count.
+     */
+    long getContendedCount () {
+        return this.contended.get();
+    }
+
+    /**
+     * This method returns the number of times a producer found the queue full.
+     * @return <code>Long</code> The rejection count.
+     */
+    long getRejectedCount () {
+        return this.rejected.get();
+    }
+
+}
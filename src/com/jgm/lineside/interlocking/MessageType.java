@@ -2,10 +2,11 @@ package com.jgm.lineside.interlocking;
 /**
  * This Enumeration defines the types of inter-module communications.
  * 
- * ACK: Acknowledge previous message, the last part of the message must include the hashCode.
+ * ACK: Acknowledge previous message(s), the message body must include the sequence number (SEQ.n or UPTO.n).
  * SETUP: Used during initial hand-shaking to setup up the assets between the LSM and RI.
  * STATE_CHANGE: Used to signify that the following message contains a state change directive.
- * HAND_SHAKE: Used during the initial setup of LSM > Remote Interlocking communications.
+ * HAND_SHAKE: Used during the initial setup of LSM > Remote Interlocking communications to agree the protocol version (PROTOCOL.n).
+ * SNAPSHOT: Used to publish the state of every line side asset at once (SNAPSHOT.version.part.parts.encoding.payload).
  * NULL: Used to signify the message content is not to be read.
  * RESEND: If there is an issue in the validation of the hash code, then RESEND requires that the last message is sent again.
  * 
@@ -14,6 +15,6 @@ package com.jgm.lineside.interlocking;
  */
 public enum MessageType {
     
-    ACK, STATE_CHANGE, REQUEST, TECHNICIAN;
+    ACK, STATE_CHANGE, REQUEST, TECHNICIAN, HAND_SHAKE, SNAPSHOT;
     
 }
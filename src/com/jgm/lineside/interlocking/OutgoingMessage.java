@@ -1,24 +1,41 @@
 package com.jgm.lineside.interlocking;
 
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This Class provides a Threaded Object that sends messages to the Remote Interlocking.
+ * <p>
+ * The OutgoingMessage Thread is the writer stage: it parks whilst the outgoing message stack is empty, and drains the
+ * stack into the send buffer, flushing it to the Socket in batches, for as long as the connection remains.
  * @author Jonathan Moss
  * @version v1.0 October 2016
  */
 public final class OutgoingMessage extends DataOutputStream implements Runnable{
 
-     private Boolean stayConnected = true; // The connection flag; whilst true, the Thread keeps running.
+     private volatile Boolean stayConnected = true; // The connection flag; whilst true, the Thread keeps running.
+     private volatile Thread writerThread = null; // The Thread running this object, once started.
+     private final Socket connection; // The connection that this object writes to.
+     private static final int BUFFER_BYTES = 65536; // The size of the send buffer; messages are only flushed to the Socket in batches.
+     private int framesInBatch = 0; // The number of messages written since the last flush.
+     private int bytesAtLastFlush = 0; // The number of bytes written up to the last flush.
+     private final AtomicLong flushes = new AtomicLong(); // The number of flushes to the Socket.
+     private final AtomicLong framesFlushed = new AtomicLong(); // The number of messages flushed to the Socket.
+     private final AtomicLong bytesFlushed = new AtomicLong(); // The number of bytes flushed to the Socket.
+     private volatile int maxFramesPerFlush = 0; // The greatest number of messages sent with a single flush.
+     private volatile int maxBytesPerFlush = 0; // The greatest number of bytes sent with a single flush.
     
     /**
      * This is the Constructor Method for the OutgoingMessage Class Object.
      * @param out <code>OutputStream</code> object associated with the  connected Socket Object.
      */
     public OutgoingMessage(OutputStream out) {
-        super(out);
+        super(new BufferedOutputStream(out, BUFFER_BYTES));
+        this.connection = MessageHandler.getConnectionToRemoteInterlocking();
         this.setMessageHandlerReference();
     }
     
@@ -31,23 +48,92 @@ public final class OutgoingMessage extends DataOutputStream implements Runnable{
 
     @Override
     public void run() {
-        while (stayConnected) {} // This is to make sure this Thread stays live, when required.
+        
+        this.writerThread = Thread.currentThread();
+        
+        while (this.stayConnected) {
+            try {
+                MessageHandler.processOutgoingMessages(); // Parks until a message is queued, then sends everything waiting.
+            } catch (InterruptedException ex) {} // Interrupted by setConnected(false); the loop condition ends the Thread.
+        }
+        
     }
     
     /**
-     * This method sends a message to the Remote Interlocking.
+     * This method writes a message into the send buffer.
+     * 
+     * The message is not sent to the Remote Interlocking until flushMessages is called, or the buffer fills.
      * @param msg <code>String</code> that contains correctly formated message to be sent to the Remote Interlocking.
      */
-    public synchronized void sendMessageToRemoteInterlocking(String msg) {
+    public synchronized void bufferMessage(String msg) {
         
         try {
             this.writeUTF(msg);
+            this.framesInBatch ++;
+        } catch (IOException ex) {
+            MessageHandler.remoteInterlockingConnectionLost(this.connection); // There has been a problem; close the connections.
+        }
+    }
+    
+    /**
+     * This method writes a binary frame into the send buffer.
+     * 
+     * The frame is preceded by its length as 2 bytes, in the same way as a message written using writeUTF.
+     * The frame is not sent to the Remote Interlocking until flushMessages is called, or the buffer fills.
+     * @param frame <code>byte[]</code> The buffer containing the frame.
+     * @param length <code>Integer</code> The length of the frame.
+     */
+    public synchronized void bufferFrame(byte[] frame, int length) {
+        
+        try {
+            this.writeShort(length);
+            this.write(frame, 0, length);
+            this.framesInBatch ++;
+        } catch (IOException ex) {
+            MessageHandler.remoteInterlockingConnectionLost(this.connection); // There has been a problem; close the connections.
+        }
+    }
+    
+    /**
+     * This method sends every buffered message to the Remote Interlocking with a single flush, and records the size of the batch.
+     */
+    public synchronized void flushMessages() {
+        
+        if (this.framesInBatch == 0) {
+            return;
+        }
+        
+        try {
             this.flush();
         } catch (IOException ex) {
-            MessageHandler.closeConnections(); // There has been a problem; close the connections.
+            MessageHandler.remoteInterlockingConnectionLost(this.connection); // There has been a problem; close the connections.
         }
+        
+        int bytesInBatch = this.size() - this.bytesAtLastFlush;
+        this.bytesAtLastFlush = this.size();
+        
+        this.flushes.incrementAndGet();
+        this.framesFlushed.addAndGet(this.framesInBatch);
+        this.bytesFlushed.addAndGet(bytesInBatch);
+        this.maxFramesPerFlush = Math.max(this.maxFramesPerFlush, this.framesInBatch);
+        this.maxBytesPerFlush = Math.max(this.maxBytesPerFlush, bytesInBatch);
+        this.framesInBatch = 0;
+        
+    }
+    
+    /**
+     * This method returns a summary of the number of frames and bytes sent with each flush.
+     * @return <code>String</code> A formatted summary of the write batching metrics.
+     */
+    public String getBatchStatistics() {
+        
+        long count = Math.max(1, this.flushes.get());
+        return String.format ("Flushes %d [frames/flush mean %d, max %d] [bytes/flush mean %d, max %d]",
+            this.flushes.get(), this.framesFlushed.get() / count, this.maxFramesPerFlush, 
+            this.bytesFlushed.get() / count, this.maxBytesPerFlush);
+        
     }
-       
+    
      /**
      * This method returns the stayConnected status flag.
      * @return <code>Boolean</code> <i>'true'</i> indicates that the thread should keep running, otherwise <i>'false'</i>.
@@ -61,7 +147,14 @@ public final class OutgoingMessage extends DataOutputStream implements Runnable{
      * @param connected <code>Boolean</code> <i>'true'</i> indicates that the thread should keep running, otherwise <i>'false'</i>.
      */
     protected void setConnected(Boolean connected) {
+        
         this.stayConnected = connected;
+        
+        Thread writer = this.writerThread;
+        if (!connected && writer != null && writer != Thread.currentThread()) {
+            writer.interrupt(); // Wake the Thread if it is parked waiting for a message.
+        }
+        
     }
 
 }
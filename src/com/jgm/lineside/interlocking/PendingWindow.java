@@ -0,0 +1,225 @@
+package com.jgm.lineside.interlocking;
+
+import com.jgm.lineside.scheduling.TimingWheel;
+
+/**
+ * This Class provides the window of messages that have been sent to the Remote Interlocking but not yet acknowledged.
+ * <p>
+ * Each message is given a sequence number when it is first sent. The window is a table indexed by sequence number, so
+ * registering a message and clearing it on acknowledgement are both O(1); a cumulative acknowledgement clears every
+ * message up to and including the sequence number given. The window holds a fixed number of messages; when it is full
+ * the sender waits until a message is acknowledged or abandoned.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+final class PendingWindow {
+
+    private final Entry[] entries; // The unacknowledged messages, indexed by sequence number.
+    private final int mask; // Used to convert a sequence number into a table index.
+    private long nextSequence = 1; // The sequence number that will be given to the next message sent.
+    private long lowestUnacknowledged = 1; // The lowest sequence number that may still be awaiting acknowledgement.
+    private int pending = 0; // The number of messages awaiting acknowledgement.
+
+    /**
+     * This is the Constructor Method for a PendingWindow object.
+     * @param windowSize <code>Integer</code> The number of messages that may await acknowledgement; rounded up to a power of 2.
+     */
+    PendingWindow (int windowSize) {
+
+        int size = 2;
+        while (size < windowSize) {
+            size <<= 1;
+        }
+
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+
+    }
+
+    /**
+     * This method gives a message the next sequence number and records it as awaiting acknowledgement.
+     *
+     * The calling Thread waits whilst the window is full.
+     * @param message <code>Message</code> The message being sent for the first time.
+     * @return <code>Entry</code> The window entry for the message.
+     * @throws InterruptedException if the calling Thread is interrupted whilst waiting for room in the window.
+     */
+    synchronized Entry register (Message message) throws InterruptedException {
+
+        while (this.nextSequence - this.lowestUnacknowledged >= this.entries.length) {
+            this.wait(100); // The window is full; wait for an acknowledgement (or for a message to be abandoned).
+        }
+
+        long sequence = this.nextSequence ++;
+        Entry entry = new Entry(message, sequence);
+        message.setSequence(sequence);
+        this.entries[(int) sequence & this.mask] = entry;
+        this.pending ++;
+        return entry;
+
+    }
+
+    /**
+     * This method gives a message the next sequence number without recording it as awaiting acknowledgement.
+     * @param message <code>Message</code> The message being sent.
+     */
+    synchronized void assign (Message message) {
+
+        message.setSequence(this.nextSequence ++);
+        this.advance();
+
+    }
+
+    /**
+     * This method returns the window entry for a sequence number.
+     * @param sequence <code>Long</code> The sequence number.
+     * @return <code>Entry</code> The entry, or <i>'null'</i> if the message is no longer awaiting acknowledgement.
+     */
+    synchronized Entry get (long sequence) {
+
+        Entry entry = this.entries[(int) sequence & this.mask];
+        return (entry != null && entry.sequence == sequence) ? entry : null;
+
+    }
+
+    /**
+     * This method clears a single message from the window.
+     * @param sequence <code>Long</code> The sequence number of the message acknowledged (or abandoned).
+     * @return <code>Entry</code> The entry cleared, or <i>'null'</i> if the message was not awaiting acknowledgement.
+     */
+    synchronized Entry remove (long sequence) {
+
+        int index = (int) sequence & this.mask;
+        Entry entry = this.entries[index];
+
+        if (entry == null || entry.sequence != sequence) {
+            return null;
+        }
+
+        this.clearEntry(index, entry);
+        this.advance();
+        return entry;
+
+    }
+
+    /**
+     * This method clears every message up to and including the given sequence number (a cumulative acknowledgement).
+     * @param sequence <code>Long</code> The highest sequence number acknowledged.
+     * @param listener <code>Listener</code> Informed of each entry cleared.
+     * @return <code>Integer</code> The number of messages cleared.
+     */
+    synchronized int removeUpTo (long sequence, Listener listener) {
+
+        long upTo = Math.min(sequence, this.nextSequence - 1);
+        int cleared = 0;
+
+        for (long s = this.lowestUnacknowledged; s <= upTo; s++) {
+
+            int index = (int) s & this.mask;
+            Entry entry = this.entries[index];
+
+            if (entry != null && entry.sequence == s) {
+                this.clearEntry(index, entry);
+                listener.cleared(entry);
+                cleared ++;
+            }
+        }
+
+        this.advance();
+        return cleared;
+
+    }
+
+    /**
+     * This method clears every message from the window.
+     */
+    synchronized void clear () {
+
+        for (int i = 0; i < this.entries.length; i++) {
+            if (this.entries[i] != null) {
+                this.clearEntry(i, this.entries[i]);
+            }
+        }
+
+        this.lowestUnacknowledged = this.nextSequence;
+        this.notifyAll();
+
+    }
+
+    /**
+     * This method returns an indication of whether the window is full, i.e. whether register would wait.
+     * @return <code>Boolean</code> <i>'true'</i> if the window is full, otherwise <i>'false'</i>.
+     */
+    synchronized boolean isFull () {
+        return this.nextSequence - this.lowestUnacknowledged >= this.entries.length;
+    }
+
+    /**
+     * This method returns the number of messages awaiting acknowledgement.
+     * @return <code>Integer</code> The number of messages awaiting acknowledgement.
+     */
+    synchronized int size () {
+        return this.pending;
+    }
+
+    /**
+     * This method removes an entry from the table and cancels its retransmission timer.
+     */
+    private void clearEntry (int index, Entry entry) {
+
+        this.entries[index] = null;
+        this.pending --;
+
+        if (entry.timeout != null) {
+            entry.timeout.cancel();
+        }
+
+    }
+
+    /**
+     * This method moves the lowest unacknowledged sequence number past any entries that have been cleared.
+     */
+    private void advance () {
+
+        while (this.lowestUnacknowledged < this.nextSequence && this.entries[(int) this.lowestUnacknowledged & this.mask] == null) {
+            this.lowestUnacknowledged ++;
+        }
+
+        this.notifyAll(); // There may be room in the window for a waiting sender.
+
+    }
+
+    /**
+     * This interface is used to inform the caller of each entry cleared by a cumulative acknowledgement.
+     */
+    interface Listener {
+
+        /**
+         * This method is called for each entry cleared.
+         * @param entry <code>Entry</code> The entry cleared.
+         */
+        void cleared (Entry entry);
+
+    }
+
+    /**
+     * This Class provides an entry in the window; a message awaiting acknowledgement.
+     */
+    static final class Entry {
+
+        final Message message; // The message sent.
+        final long sequence; // The sequence number given to the message.
+        final long firstSentNanos; // The time the message was first sent.
+        volatile int attempts = 0; // The number of times the message has been sent.
+        volatile TimingWheel.Timeout timeout = null; // The retransmission timer.
+
+        private Entry (Message message, long sequence) {
+            this.message = message;
+            this.sequence = sequence;
+            this.firstSentNanos = System.nanoTime();
+        }
+
+    }
+
+}
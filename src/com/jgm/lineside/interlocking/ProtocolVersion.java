@@ -0,0 +1,109 @@
+package com.jgm.lineside.interlocking;
+
+/**
+ * This Enumeration defines the versions of the protocol used between the LineSide Module and the Remote Interlocking.
+ * <p>
+ * The LineSide Module offers its highest version in a HAND_SHAKE message when the connection comes up; the Remote Interlocking
+ * replies with the version it wishes to use. A Remote Interlocking that does not reply is assumed to only understand TEXT.
+ * <p>
+ * Each version adds to the one before: sequence numbers (SEQUENCED_TEXT), then state versions (VERSIONED_TEXT), then
+ * binary frames (BINARY), then the SNAPSHOT message.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum ProtocolVersion {
+
+    /**
+     * The original pipe-delimited text frames, i.e. SENDER|TYPE|BODY|HASH|MESSAGE_END, understood by every Remote
+     * Interlocking; a message is acknowledged by its hash code.
+     */
+    TEXT(1),
+
+    /**
+     * Text frames carrying a sequence number, i.e. SENDER|TYPE|BODY|HASH|SEQUENCE|MESSAGE_END; messages are acknowledged
+     * by sequence number (SEQ.n or UPTO.n), and retransmitted until they are.
+     */
+    SEQUENCED_TEXT(2),
+
+    /**
+     * SEQUENCED_TEXT frames; a state change also carries its state version, i.e. SENDER|TYPE|BODY|HASH|SEQUENCE|STATE_VERSION|MESSAGE_END.
+     */
+    VERSIONED_TEXT(3),
+
+    /**
+     * Fixed-width binary frames protected by a CRC-32C checksum, carrying the sequence number and state version.
+     */
+    BINARY(4),
+
+    /**
+     * BINARY frames; the state of every asset may also be published in a single, compressed, SNAPSHOT.
+     */
+    SNAPSHOT(5);
+
+    private final int version;
+
+    ProtocolVersion (int version) {
+        this.version = version;
+    }
+
+    /**
+     * This method returns the version number exchanged in the HAND_SHAKE message.
+     * @return <code>Integer</code> The version number.
+     */
+    public int getVersion () {
+        return this.version;
+    }
+
+    /**
+     * This method indicates whether messages carry a sequence number, and are acknowledged by it, in this version.
+     * @return <code>Boolean</code> <i>'true'</i> if messages carry a sequence number, otherwise <i>'false'</i>.
+     */
+    public Boolean hasSequenceNumbers () {
+        return this.compareTo(SEQUENCED_TEXT) >= 0;
+    }
+
+    /**
+     * This method indicates whether state changes carry their state version in this version.
+     * @return <code>Boolean</code> <i>'true'</i> if state changes carry their state version, otherwise <i>'false'</i>.
+     */
+    public Boolean hasStateVersions () {
+        return this.compareTo(VERSIONED_TEXT) >= 0;
+    }
+
+    /**
+     * This method indicates whether binary frames are used in this version.
+     * @return <code>Boolean</code> <i>'true'</i> if binary frames are used, otherwise <i>'false'</i>.
+     */
+    public Boolean isBinary () {
+        return this.compareTo(BINARY) >= 0;
+    }
+
+    /**
+     * This method returns the highest protocol version supported by this LineSide Module.
+     * @return <code>ProtocolVersion</code> The highest protocol version.
+     */
+    public static ProtocolVersion getHighest () {
+        return values()[values().length - 1];
+    }
+
+    /**
+     * This method returns the highest protocol version supported by both this LineSide Module and the version number given.
+     * @param version <code>Integer</code> The version number received from the Remote Interlocking.
+     * @return <code>ProtocolVersion</code> The protocol version to use.
+     */
+    public static ProtocolVersion agree (int version) {
+
+        ProtocolVersion agreed = TEXT;
+
+        for (ProtocolVersion value : values()) {
+            if (value.version <= version) {
+                agreed = value;
+            }
+        }
+
+        return agreed;
+
+    }
+
+}
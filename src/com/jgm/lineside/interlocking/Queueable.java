@@ -0,0 +1,23 @@
+package com.jgm.lineside.interlocking;
+
+/**
+ * This interface is implemented by the objects held in a LaneQueue, so that the time each spends waiting can be measured.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+interface Queueable {
+
+    /**
+     * This method records the time at which the object was queued.
+     * @param nanos <code>Long</code> The value of System.nanoTime when the object was queued.
+     */
+    void setQueuedAt (long nanos);
+
+    /**
+     * This method returns the time at which the object was queued.
+     * @return <code>Long</code> The value of System.nanoTime when the object was queued.
+     */
+    long getQueuedAt ();
+
+}
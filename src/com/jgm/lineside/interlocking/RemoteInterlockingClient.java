@@ -6,12 +6,19 @@ import com.jgm.lineside.LineSideModule;
 import static com.jgm.lineside.LineSideModule.dataLogger;
 import static com.jgm.lineside.LineSideModule.exitCommandLine;
 import com.jgm.lineside.datalogger.Colour;
+import com.jgm.lineside.scheduling.Activities;
+import com.jgm.lineside.transport.ChannelConnection;
+import com.jgm.lineside.transport.FrameListener;
+import com.jgm.lineside.transport.SelectorTransport;
+import com.jgm.lineside.transport.TransportMode;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class provides the functionality to connect to the Remote Interlocking Server.
@@ -40,6 +47,16 @@ public class RemoteInterlockingClient extends Thread {
      */
     private Socket conn;
     
+    /**
+     * The delay before the first attempt to reconnect to the Remote Interlocking, in milliseconds; doubled with each failed attempt.
+     */
+    private static final long RECONNECT_INITIAL_MILLIS = 50;
+    
+    /**
+     * The longest delay between attempts to reconnect to the Remote Interlocking, in milliseconds.
+     */
+    private static final long RECONNECT_MAX_MILLIS = 10000;
+    
     /**
      * This is the constructor method for the RemoteInterlockingClient
      * @param remoteInterlockingIP <code>String</code> containing the IP Address of the Remote Interlocking.
@@ -65,51 +82,126 @@ public class RemoteInterlockingClient extends Thread {
         }
     }
     
-    // This method sets up the Input and Output Stream Thread objects.
-    private void setUpStreams() {
+    // This method sets up the Input and Output Stream Thread objects; it returns false if the streams could not be set up.
+    private Boolean setUpStreams() {
         
         try {
-            new Thread(new IncomingMessage(this.conn.getInputStream())).start();
-            new Thread(new OutgoingMessage(this.conn.getOutputStream())).start();
-            dataLogger.sendToDataLogger(String.format ("%s%s%s",
-                Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour()), 
+            OutgoingMessage outgoing;
+            Socket connection = this.conn;
+            MessageHandler.connectionEstablished(); // From here on, a lost connection is reported to this Thread.
+            if (TransportMode.getConfigured() == TransportMode.SELECTOR) {
+                // The SelectorTransport Thread reads from the connection; frames are written by the OutgoingMessage Thread.
+                ChannelConnection channelConnection = SelectorTransport.getInstance().register(connection.getChannel(), new FrameListener() {
+                    
+                    @Override
+                    public void frameReceived(byte[] frame, int length) {
+                        MessageHandler.addIncomingFrameToStack(frame, length);
+                    }
+                    
+                    @Override
+                    public void connectionLost() { // Handed off, as the loss is logged and the SelectorTransport Thread must not block.
+                        Activities.start("RemoteInterlocking-Lost", () -> MessageHandler.remoteInterlockingConnectionLost(connection));
+                    }
+                    
+                }, "RemoteInterlocking");
+                outgoing = new OutgoingMessage(channelConnection.getOutputStream());
+            } else {
+                Activities.startService("IncomingMessage-Thread", new IncomingMessage(connection.getInputStream()));
+                outgoing = new OutgoingMessage(connection.getOutputStream());
+            }
+            ProtocolVersion version = MessageHandler.negotiateProtocolVersion(); // Agree the protocol before any queued messages are sent.
+            Activities.startService("OutgoingMessage-Thread", outgoing); // The writer stage starts sending queued messages once the protocol is agreed.
+            dataLogger.sendToDataLogger(String.format ("%s%s%s [%s protocol]",
+                Colour.GREEN.getColour(), getOK(), Colour.RESET.getColour(), version.toString()), 
                 true, true);
             LineSideModule.setLookingForRemoteInterlocking(false);
+            return true;
         } catch (IOException ex) {
             dataLogger.sendToDataLogger (String.format ("%s%s%s",
                     Colour.RED.getColour(), getFailed(), Colour.RESET.getColour()),
                     true, true);
-            exitCommandLine();
+            MessageHandler.closeConnections();
+            return false;
         }
         
     }
     
-    // This Method establishes a connection with the Remote Interlocking.
-    private void connectToServer() {
+    // This Method establishes a connection with the Remote Interlocking; it returns false if no connection could be made.
+    private Boolean connectToServer() {
         if (this.conn == null || !this.conn.isConnected()) {
             try {
-                this.conn = new Socket(); // Create a new Socket Object.
+                // Create a new Socket Object; from a SocketChannel if the SELECTOR transport is to serve the connection.
+                this.conn = (TransportMode.getConfigured() == TransportMode.SELECTOR) ? SocketChannel.open().socket() : new Socket();
                 this.conn.connect(sockAddress, 10000); // Attempt a connection.
                 MessageHandler.setConnectionToRemoteInterlocking(this.conn); // Register the connection on the MessageHandler.
             } catch (IllegalArgumentException iae) {
                 dataLogger.sendToDataLogger (String.format ("%s%s: Invalid IP Address.%s",
                         Colour.RED.getColour(), getFailed(), Colour.RESET.getColour()),
                         true, true);
-                exitCommandLine();
+                return false;
             } catch (IOException e) {
                 dataLogger.sendToDataLogger (String.format ("%s%s: Cannot find the Remote Interlocking Server.%s",
                         Colour.RED.getColour(), getFailed(), Colour.RESET.getColour()),
                         true, true);
-                exitCommandLine();
+                return false;
             }
         }
+        return true;
+    }
+    
+    /**
+     * This method re-establishes a lost connection to the Remote Interlocking, whilst the line side assets carry on as normal.
+     * 
+     * Attempts are spaced by an exponentially increasing, randomly jittered, delay so that a Remote Interlocking that is
+     * restarting is not overwhelmed. Once connected, the Remote Interlocking is sent the state of every asset that has changed
+     * since the state version it reported in its HAND_SHAKE reply, or the full state of every asset if it reported none.
+     */
+    private void reconnect() {
+        
+        MessageHandler.prepareForReconnection(); // Apply the queue policy, and forget messages awaiting acknowledgement.
+        int attempt = 0;
+        
+        while (true) {
+            
+            long backoff = Math.min(RECONNECT_INITIAL_MILLIS << Math.min(attempt, 20), RECONNECT_MAX_MILLIS);
+            long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1); // Between half and all of the backoff.
+            attempt ++;
+            
+            dataLogger.sendToDataLogger(String.format ("Attempting to reconnect to the Remote Interlocking (attempt %d, in %dms)...", attempt, delay),
+                true, false);
+            
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {}
+            
+            this.conn = null;
+            
+            if (this.connectToServer() && this.setUpStreams()) {
+                MessageHandler.resynchronise(); // Bring the Remote Interlocking up to date; only the changes, if it gave the state version it holds.
+                return;
+            }
+        }
+        
     }
     
     @Override
     public void run() {
         
-        this.connectToServer();
-        this.setUpStreams();
+        if (!this.connectToServer() || !this.setUpStreams()) {
+            exitCommandLine(); // The Remote Interlocking could not be found when the LineSide Module started.
+        }
+        
+        while (true) { // Reconnect in place each time the connection is lost.
+            
+            try {
+                MessageHandler.awaitConnectionLost();
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            
+            this.reconnect();
+            
+        }
         
     }
 
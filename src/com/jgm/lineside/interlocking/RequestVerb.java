@@ -0,0 +1,69 @@
+package com.jgm.lineside.interlocking;
+
+/**
+ * This Enumeration defines the verbs that begin the body of a message received from the Remote Interlocking.
+ *
+ * The verb is the first portion of the message body, e.g. POINTS in POINTS.994.REVERSE.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum RequestVerb {
+
+    /**
+     * REQUEST: POINTS.identity.position
+     */
+    POINTS,
+
+    /**
+     * REQUEST: CONTROLLED_SIGNAL.prefix.identity.toPrefix.toIdentity.movementAuthorityClass.aspect
+     */
+    CONTROLLED_SIGNAL,
+
+    /**
+     * REQUEST: AUTOMATIC_SIGNAL.prefix.identity.mostRestrictiveAspect
+     */
+    AUTOMATIC_SIGNAL,
+
+    /**
+     * TECHNICIAN: GET_LAMPS_ALL.prefix.identity
+     */
+    GET_LAMPS_ALL,
+
+    /**
+     * TECHNICIAN: GET_LAMP_MASKS[.prefix[.identity[.prefix.identity...]]] - every signal, every signal with the prefix, or
+     * the signals listed; answered by LAMP_MASKS messages carrying the lamp bitmasks of many signals each.
+     */
+    GET_LAMP_MASKS,
+
+    /**
+     * TECHNICIAN: FAIL_LAMP.aspect.prefix.identity
+     */
+    FAIL_LAMP,
+
+    /**
+     * TECHNICIAN: RESTORE_LAMP.aspect.prefix.identity
+     */
+    RESTORE_LAMP,
+
+    /**
+     * ACK: SEQ.sequence - acknowledges a single message.
+     */
+    SEQ,
+
+    /**
+     * ACK: UPTO.sequence - acknowledges every message up to and including the sequence number.
+     */
+    UPTO,
+
+    /**
+     * HAND_SHAKE: PROTOCOL.version[.stateVersion] - the state version, if given, is the latest held by the Remote Interlocking.
+     */
+    PROTOCOL,
+
+    /**
+     * REQUEST: RESYNC.stateVersion - re-send the state of every asset changed since the state version.
+     */
+    RESYNC;
+
+}
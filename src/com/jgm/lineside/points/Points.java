@@ -1,4 +1,6 @@
 package com.jgm.lineside.points;
+import com.jgm.lineside.AssetRegistry;
+import com.jgm.lineside.scheduling.Activities;
 import java.util.*;
 
 /**
@@ -9,9 +11,8 @@ import java.util.*;
  */
 public class Points {
     
-    private final static HashMap <String, Integer> POINTS_HM = new HashMap <>(); // Map to store each pointIndex and point Identity.
-    private static int pointsTally = 0; // Keeping a tally on how many points objects have been created.
     private final String identity; // Store the String Variable of the points identity, e.g. "4076A"
+    private final int handle; // The compact handle of the points, used when reporting their state to the Remote Interlocking.
     private PointsPosition positionOfPoints; // Store the position of the points, either Normal, Reverse or Unknown.
     private Boolean pointDetection; // Are the points detected (true) or otherwise (false).
     private Boolean arePointsSecured; // Are the points secured (true) or not (false) by a Clip and/or Scotch.
@@ -19,8 +20,7 @@ public class Points {
     private PointsPower pointsPower; // Is power available to the points; POWER = move under power, OFF_POWER = need to be wound manually.
     private int powerOperationSeconds = 5; // The time it takes for a set of points to move from one position to another under power operation.
     private int manualOperationSeconds = 100; // The time it takes for a set of points to be moved from one position to another manually.
-    private Thread threadObject; // Used as a container for the thread that moves the points.
-    private Boolean pointsAreMoving; // A flag to indicate true when the points are moving, otherwise false.
+    private volatile Boolean pointsAreMoving; // A flag to indicate true when the points are moving, otherwise false; cleared by the scheduler without the monitor.
     
     /**
      * This method (Constructor) creates a points object and assigns the default properties.
@@ -36,9 +36,8 @@ public class Points {
         this.detectionAvailable = DetectionAvailable.BOTH; // Detection is available in both Normal and Reverse
         this.pointsPower = PointsPower.POWER; // The points are operating under power.
         this.pointsAreMoving = false; // Sets the flag indicating that the points are not moving at this moment in time.
-        // Add the instance to the static HashMap for indexing later.
-        Points.POINTS_HM.put(this.identity, Points.pointsTally);
-        Points.pointsTally ++; // Increase the count.
+        // Register the instance in the AssetRegistry for indexing later.
+        this.handle = AssetRegistry.register(Points.class, null, this.identity, this);
     }
     
     /**
@@ -141,7 +140,7 @@ public class Points {
      * This method is required by the Technicians Interface and Interlocking Components.
      * 
      */
-    public void movePointsUnderPower (PointsPosition toPosition) {
+    public synchronized void movePointsUnderPower (PointsPosition toPosition) {
         // Check of the points are already moving?
         if (!this.pointsAreMoving)  { // Points are not moving.
             // Check if the points are operating under power.
@@ -151,13 +150,8 @@ public class Points {
                     // Check if the points are secured
                     if (!this.arePointsSecured) { // The points are not secured.
                         // Move Points...
-                            if (this.threadObject == null || this.threadObject.getState() == Thread.State.TERMINATED) {
-                                this.setPointsAreMoving(true);
-                                this.threadObject = new PointsMovingPower(this, toPosition, this.powerOperationSeconds);
-                                this.threadObject.start();
-                            } else {
-                                this.sendMessage("Cannot process last request to move the points...");
-                            }
+                            this.setPointsAreMoving(true); // Set before the activity starts, so a further request waits for the points to finish moving.
+                            Activities.start(String.format ("PointsMovingPower-%s", this.identity), new PointsMovingPower(this, toPosition, this.powerOperationSeconds));
                     } else {
                          this.setDetectionStatus(false); // The points are secured; lose detection.
                     }
@@ -190,10 +184,19 @@ public class Points {
      * Further, to be effective, all points should be instantiated within a single array.
      * 
      * @param identity a <code>String</code> indicating the identity of the points.
-     * @return <code>integer</code> representing the array index of the Points object within the array.
+     * @return <code>integer</code> representing the array index of the Points object within the array, or -1 if there are no such points.
      */
     public static int returnPointIndex(String identity) {
-        return Points.POINTS_HM.get(identity);
+        return AssetRegistry.getHandle(Points.class, null, identity);
+    }
+    
+    /**
+     * This method returns a Points object from its identity.
+     * @param identity a <code>String</code> indicating the identity of the points.
+     * @return <code>Points</code> The Points object, or <i>'null'</i> if there are no such points.
+     */
+    public static Points getPointsObject(String identity) {
+        return AssetRegistry.find(Points.class, null, identity);
     }
 
     /**
@@ -207,6 +210,14 @@ public class Points {
         return this.identity;
     }
     
+    /**
+     * This method returns the handle of the points; a small integer, unique amongst points, that identifies them to the Remote Interlocking.
+     * @return <code>Integer</code> The handle of the points.
+     */
+    public int getHandle() {
+        return this.handle;
+    }
+    
     /**
      * This method sets the power status of the points - in other words, the power arrangements.
      * @param pointsPower a <code>PointsPower</code> constant. <i>POWER</i> indicates that the points motors are able to move the points, <i>OFF_POWER</i> indicates that the
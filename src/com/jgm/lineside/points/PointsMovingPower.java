@@ -1,13 +1,15 @@
 package com.jgm.lineside.points;
 
 import com.jgm.lineside.LineSideModule;
+import com.jgm.lineside.scheduling.Activities;
 
 /**
- * This class is a blueprint for a threaded object that moves the points from one position to another. 
+ * This class is a blueprint for an activity that moves the points from one position to another; it is started by Activities.start,
+ * and schedules the completion of the movement once the points have had time to traverse. 
  * @author Jonathan Moss
  * @version 1.0 17/08/2016
  */
-public class PointsMovingPower extends Thread {
+public class PointsMovingPower implements Runnable {
     
     // Declare fields.
     private final Points pointObject; // A reference to the instantiated point object.
@@ -16,7 +18,7 @@ public class PointsMovingPower extends Thread {
     private final String identity; // The identity of the points.
     
     /**
-     * The constructor method for the pointsMovingPower class. Running this method creates a thread object that simulates the moving
+     * The constructor method for the pointsMovingPower class. Running this method creates an activity that simulates the moving
      * of points from 1 position to another.
      * @param pointObject A reference to a <code>Points</code> object.
      * @param toPosition A <code>PointsPosition</code> value that determines the required position of the points.
@@ -40,9 +42,14 @@ public class PointsMovingPower extends Thread {
         this.pointObject.dropDetection(); // Remove detection.
         this.pointObject.setPointsPosition(PointsPosition.UNKNOWN); // Move the points to unknown.
         LineSideModule.sendUpdatePoints(this.pointObject);
-        try {
-            Thread.sleep(this.secondsToMotor * 1000); // Simulate the points taking time to traverse from position A to position B.
-        } catch (InterruptedException ie) {}
+        // Simulate the points taking time to traverse from position A to position B; no Thread is held whilst they do.
+        Activities.schedule(String.format ("PointsMovingPower-%s", this.identity), this.secondsToMotor * 1000, this::finishMoving);
+    }
+    
+    /**
+     * This method completes the movement of the points, once they have had time to traverse to the new position.
+     */
+    private void finishMoving() {
         this.pointObject.setPointsPosition(toPosition); // Show the points in the new position.
         this.pointObject.attemptDetection(); // Attempt to gain detection.
         this.pointObject.setPointsAreMoving(false); // Show the points as having finished moving.
@@ -0,0 +1,235 @@
+package com.jgm.lineside.scheduling;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This Class provides static methods to start the activities of the LineSide Module in the selected ExecutionMode.
+ * <p>
+ * An activity is short lived work that may wait, such as the points moving or an intermittent track circuit failure; a
+ * service is a loop that runs for as long as the LineSide Module, or a connection, such as a Socket reader. Activities
+ * and services keep their Thread names whatever the mode, so they can still be told apart in a Thread dump; in the POOL
+ * mode the carrier Thread takes the name of the activity whilst running it.
+ * <p>
+ * An activity that waits for a known time should rather be split in two, the second part being scheduled with
+ * Activities.schedule; no Thread is then held whilst waiting. Where an activity must wait, it should call Activities.sleep
+ * rather than Thread.sleep, so that in the POOL mode the waiting carrier is replaced rather than holding up the other
+ * activities.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class Activities {
+
+    private static final ExecutionMode REQUESTED_MODE = ExecutionMode.fromProperty(); // The mode selected by the system property.
+    private static final ThreadFactory VIRTUAL_THREADS = (REQUESTED_MODE == ExecutionMode.VIRTUAL) ? virtualThreadFactory() : null; // Creates virtual Threads; 'null' if they are not available.
+    private static final ExecutionMode MODE = (REQUESTED_MODE == ExecutionMode.VIRTUAL && VIRTUAL_THREADS == null)
+        ? ExecutionMode.POOL : REQUESTED_MODE; // The mode in use.
+    private static final ForkJoinPool CARRIERS = (MODE == ExecutionMode.POOL) ? carrierPool() : null; // The carrier Threads of the POOL mode.
+    private static final AtomicLong STARTED = new AtomicLong(); // The number of activities and services started.
+    private static final AtomicLong FAILED = new AtomicLong(); // The number of activities and services that ended by throwing an exception.
+    private static final AtomicInteger RUNNING = new AtomicInteger(); // The number of activities and services running (or waiting to run).
+    private static final AtomicInteger PEAK = new AtomicInteger(); // The greatest number of activities and services running at once.
+
+    /**
+     * This is the Constructor Method; it is private as the Class only provides static methods.
+     */
+    private Activities () {}
+
+    /**
+     * This method starts a short lived activity.
+     *
+     * When the SimulationClock is in the DISCRETE_EVENT mode, the activity is instead run by the SimulationClock, at the
+     * current simulated time, so that it keeps its place amongst the simulated events.
+     * @param name <code>String</code> The name of the activity, given to the Thread that runs it.
+     * @param activity <code>Runnable</code> The activity.
+     */
+    public static void start (String name, Runnable activity) {
+
+        Runnable tracked = track(activity);
+
+        if (SimulationClock.getMode() == ClockMode.DISCRETE_EVENT) {
+            SimulationClock.schedule(0, tracked);
+            return;
+        }
+
+        switch (MODE) {
+            case POOL:
+                CARRIERS.execute(() -> {
+                    Thread carrier = Thread.currentThread();
+                    String carrierName = carrier.getName();
+                    carrier.setName(name);
+                    try {
+                        tracked.run();
+                    } finally {
+                        carrier.setName(carrierName);
+                    }
+                });
+                break;
+            case VIRTUAL:
+                newVirtualThread(name, tracked).start();
+                break;
+            default:
+                new Thread(tracked, name).start();
+        }
+
+    }
+
+    /**
+     * This method schedules a short lived activity to be started after a simulated delay.
+     *
+     * No Thread is held whilst the activity is waiting to start; the SimulationClock starts the activity, as for
+     * Activities.start, once the delay has passed.
+     * @param name <code>String</code> The name of the activity, given to the Thread that runs it.
+     * @param delayMillis <code>Long</code> The simulated delay, in milliseconds, before the activity is started.
+     * @param activity <code>Runnable</code> The activity.
+     * @return <code>Timeout</code> A handle that can be used to cancel the activity before it is started.
+     */
+    public static TimingWheel.Timeout schedule (String name, long delayMillis, Runnable activity) {
+
+        if (SimulationClock.getMode() == ClockMode.DISCRETE_EVENT) {
+            return SimulationClock.schedule(delayMillis, () -> track(activity).run()); // Run in its place amongst the simulated events.
+        }
+
+        return SimulationClock.schedule(delayMillis, () -> start(name, activity));
+
+    }
+
+    /**
+     * This method starts a long running service; it is given a Thread of its own, a virtual Thread in the VIRTUAL mode.
+     * @param name <code>String</code> The name of the service, given to the Thread that runs it.
+     * @param service <code>Runnable</code> The service.
+     */
+    public static void startService (String name, Runnable service) {
+
+        Runnable tracked = track(service);
+
+        if (MODE == ExecutionMode.VIRTUAL) {
+            newVirtualThread(name, tracked).start();
+        } else {
+            new Thread(tracked, name).start();
+        }
+
+    }
+
+    /**
+     * This method causes the calling activity to wait for the given time.
+     *
+     * Within a carrier Thread of the POOL mode, the pool is told that the carrier is waiting, so that it can start another
+     * carrier to run the other activities in the meantime.
+     * @param millis <code>Long</code> The time to wait, in milliseconds.
+     * @throws InterruptedException if the activity is interrupted whilst waiting.
+     */
+    public static void sleep (long millis) throws InterruptedException {
+
+        Thread current = Thread.currentThread();
+
+        if (CARRIERS == null || !(current instanceof ForkJoinWorkerThread) || ((ForkJoinWorkerThread) current).getPool() != CARRIERS) {
+            Thread.sleep(millis);
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+
+            @Override
+            public boolean block () throws InterruptedException {
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                }
+                return true;
+
+            }
+
+            @Override
+            public boolean isReleasable () {
+                return System.nanoTime() - deadline >= 0;
+            }
+
+        });
+
+    }
+
+    /**
+     * This method returns the ExecutionMode in use; this is POOL where VIRTUAL was selected but is not available.
+     * @return <code>ExecutionMode</code> The mode.
+     */
+    public static ExecutionMode getMode () {
+        return MODE;
+    }
+
+    /**
+     * This method returns a summary of the activities and services started, and of the activities scheduled.
+     * @return <code>String</code> A formatted summary of the activity and timer metrics.
+     */
+    public static String getStatistics () {
+
+        return String.format ("%s%s [started %d, running %d, peak %d, failed %d%s] %s",
+            MODE.toString(), (MODE != REQUESTED_MODE) ? String.format (" (%s not available)", REQUESTED_MODE.toString()) : "",
+            STARTED.get(), RUNNING.get(), PEAK.get(), FAILED.get(),
+            (CARRIERS == null) ? "" : String.format (", carriers %d", CARRIERS.getPoolSize()), SimulationClock.getStatistics());
+
+    }
+
+    // This method wraps an activity, so that it is counted whilst running.
+    private static Runnable track (Runnable activity) {
+
+        STARTED.incrementAndGet();
+        PEAK.accumulateAndGet(RUNNING.incrementAndGet(), Math::max);
+
+        return () -> {
+            try {
+                activity.run();
+            } catch (RuntimeException ex) {
+                FAILED.incrementAndGet();
+                throw ex;
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        };
+
+    }
+
+    // This method returns an unstarted virtual Thread.
+    private static Thread newVirtualThread (String name, Runnable task) {
+
+        Thread thread = VIRTUAL_THREADS.newThread(task);
+        thread.setName(name);
+        return thread;
+
+    }
+
+    // This method returns the factory of virtual Threads, or 'null' if this Java does not provide them.
+    private static ThreadFactory virtualThreadFactory () {
+
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null); // Thread.ofVirtual(), looked up as the LineSide Module is built for Java 8.
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+
+    }
+
+    // This method returns the pool of carrier Threads.
+    private static ForkJoinPool carrierPool () {
+
+        int carriers = Integer.getInteger("lineside.carrierThreads", Runtime.getRuntime().availableProcessors());
+
+        return new ForkJoinPool(Math.max(1, carriers), (pool) -> {
+            ForkJoinWorkerThread carrier = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            carrier.setName("ActivityCarrier-" + carrier.getPoolIndex());
+            carrier.setDaemon(true);
+            return carrier;
+        }, null, true);
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.jgm.lineside.scheduling;
+
+/**
+ * This Enumeration defines how simulated time passes for the line side assets, e.g. points traversing and intermittent
+ * track circuit failures.
+ * <p>
+ * The mode is selected with the system property lineside.clock, e.g. -Dlineside.clock=DISCRETE_EVENT.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum ClockMode {
+
+    /**
+     * Simulated time passes at the same rate as real time (the default).
+     */
+    REAL,
+
+    /**
+     * Simulated time jumps straight to the next scheduled event, so a scenario runs as fast as the events can be
+     * processed. Events are run one at a time, in the order of their simulated time; events due at the same time are run
+     * in the order they were scheduled.
+     */
+    DISCRETE_EVENT;
+
+    /**
+     * This method returns the mode selected by the system property, falling back to REAL.
+     * @return <code>ClockMode</code> The mode.
+     */
+    static ClockMode fromProperty () {
+
+        try {
+            return ClockMode.valueOf(System.getProperty("lineside.clock", REAL.toString()).toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return REAL;
+        }
+
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.jgm.lineside.scheduling;
+
+/**
+ * This Enumeration defines how the activities of the LineSide Module (e.g. points moving, intermittent track circuit
+ * failures, and the Socket reader and message processing loops) are run.
+ * <p>
+ * The mode is selected with the system property lineside.executionMode, e.g. -Dlineside.executionMode=VIRTUAL.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum ExecutionMode {
+
+    /**
+     * Each activity is given a new platform Thread of its own (the default).
+     */
+    THREAD,
+
+    /**
+     * Short activities share a small pool of carrier Threads, sized with the system property lineside.carrierThreads, and
+     * carriers are reused from one activity to the next. A carrier that waits within an activity is temporarily replaced,
+     * so the other activities are not held up; the pool therefore grows whilst many activities are waiting at once, and
+     * shrinks back once the carriers fall idle. Long running loops are still given a platform Thread of their own.
+     */
+    POOL,
+
+    /**
+     * Each activity, including the long running loops, is given a virtual Thread of its own. Virtual Threads are only
+     * available from Java 21; on an earlier Java the POOL mode is used instead.
+     */
+    VIRTUAL;
+
+    /**
+     * This method returns the mode selected by the system property, falling back to THREAD.
+     * @return <code>ExecutionMode</code> The mode.
+     */
+    static ExecutionMode fromProperty () {
+
+        try {
+            return ExecutionMode.valueOf(System.getProperty("lineside.executionMode", THREAD.toString()).toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return THREAD;
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.jgm.lineside.scheduling;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This Class provides an executor that runs tasks for the same key in the order they were submitted, and tasks for
+ * different keys in parallel.
+ * <p>
+ * The executor is made up of a number of stripes, each a single Thread with its own queue. A task is run by the stripe
+ * chosen by the hash of its key, so every task for a key is run by the same Thread, in order; tasks for keys that hash to
+ * different stripes run at the same time. Two keys may share a stripe, in which case their tasks are simply run one
+ * after the other.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class KeyedExecutor {
+
+    private final ThreadPoolExecutor[] stripes; // The single Thread executor of each stripe.
+    private final AtomicLong submitted = new AtomicLong(); // The number of tasks submitted.
+    private final AtomicLong failed = new AtomicLong(); // The number of tasks that ended by throwing an exception.
+
+    /**
+     * This is the Constructor Method for a KeyedExecutor object; the stripe Threads are started as tasks are submitted.
+     * @param name <code>String</code> The name given to the stripe Threads, followed by the stripe number.
+     * @param stripeCount <code>Integer</code> The number of stripes, i.e. the greatest number of tasks run at the same time.
+     */
+    public KeyedExecutor (String name, int stripeCount) {
+
+        this.stripes = new ThreadPoolExecutor[Math.max(1, stripeCount)];
+
+        for (int i = 0; i < this.stripes.length; i++) {
+
+            String threadName = String.format ("%s-%d", name, i);
+            this.stripes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), (task) -> {
+                Thread thread = new Thread(task);
+                thread.setName(threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        }
+
+    }
+
+    /**
+     * This method submits a task to be run after every task previously submitted for the same key.
+     * @param key The key of the task, e.g. the asset that the task acts upon.
+     * @param task <code>Runnable</code> The task.
+     */
+    public void execute (Object key, Runnable task) {
+
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16); // Spread the high bits, so that similar keys are not all given the same stripe.
+
+        this.submitted.incrementAndGet();
+        this.stripes[Math.floorMod(hash, this.stripes.length)].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                this.failed.incrementAndGet(); // A failed task must not stop the later tasks for the key being run.
+            }
+        });
+
+    }
+
+    /**
+     * This method returns the number of stripes.
+     * @return <code>Integer</code> The number of stripes.
+     */
+    public int getStripeCount () {
+        return this.stripes.length;
+    }
+
+    @Override
+    public String toString () {
+
+        int waiting = 0;
+        for (ThreadPoolExecutor stripe : this.stripes) {
+            waiting += stripe.getQueue().size();
+        }
+
+        return String.format ("Stripes %d [submitted %d, waiting %d, failed %d]",
+            this.stripes.length, this.submitted.get(), waiting, this.failed.get());
+
+    }
+
+}
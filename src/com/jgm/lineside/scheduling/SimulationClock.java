@@ -0,0 +1,171 @@
+package com.jgm.lineside.scheduling;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This Class provides static methods to read simulated time, and to schedule tasks against it, in the selected ClockMode.
+ * <p>
+ * Every simulated delay (e.g. points traversing, or an intermittent track circuit failure changing state) is scheduled
+ * through this clock. In the REAL mode tasks are run by a TimingWheel as their time comes. In the DISCRETE_EVENT mode
+ * tasks are held in order of their simulated time, and a single Thread runs them one at a time, moving simulated time
+ * straight on to each in turn; a day long scenario therefore takes only as long as its events take to process.
+ * <p>
+ * Only simulated time is affected; the timeouts of the connection to the Remote Interlocking (e.g. retransmission and
+ * reconnection) always use real time.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class SimulationClock {
+
+    private static final ClockMode MODE = ClockMode.fromProperty(); // The mode selected by the system property.
+    private static final long START_MILLIS = System.currentTimeMillis(); // The real time at which simulated time started.
+    private static final long START_NANOS = System.nanoTime(); // Used to measure the real time elapsed.
+    private static final TimingWheel TIMERS = (MODE == ClockMode.REAL) ? new TimingWheel("SimulationClock-Thread", 10, 1024) : null; // Runs the tasks in the REAL mode.
+    private static final PriorityQueue <Event> EVENTS = new PriorityQueue<>(); // The tasks waiting to be run in the DISCRETE_EVENT mode, in order; guarded by itself.
+    private static final AtomicLong EVENTS_RUN = new AtomicLong(); // The number of tasks run in the DISCRETE_EVENT mode.
+    private static volatile long elapsedMillis = 0; // The simulated time elapsed in the DISCRETE_EVENT mode.
+    private static long sequence = 0; // The order in which the tasks were scheduled; guarded by EVENTS.
+
+    static {
+        if (MODE == ClockMode.DISCRETE_EVENT) {
+            Thread eventThread = new Thread(SimulationClock::runEvents);
+            eventThread.setName("SimulationClock-Thread");
+            eventThread.setDaemon(true);
+            eventThread.start();
+        }
+    }
+
+    /**
+     * This is the Constructor Method; it is private as the Class only provides static methods.
+     */
+    private SimulationClock () {}
+
+    /**
+     * This method returns the ClockMode in use.
+     * @return <code>ClockMode</code> The mode.
+     */
+    public static ClockMode getMode () {
+        return MODE;
+    }
+
+    /**
+     * This method returns the current simulated time.
+     * @return <code>Long</code> The simulated time, in milliseconds since the epoch; simulated time starts at the real time the LineSide Module started.
+     */
+    public static long currentTimeMillis () {
+        return (MODE == ClockMode.REAL) ? System.currentTimeMillis() : START_MILLIS + elapsedMillis;
+    }
+
+    /**
+     * This method schedules a task to run once after the given simulated delay.
+     *
+     * Tasks are short, and must not wait; in the DISCRETE_EVENT mode no other task is run, and simulated time does not
+     * move, until a task has finished.
+     * @param delayMillis <code>Long</code> The simulated delay, in milliseconds, before the task is run.
+     * @param task <code>Runnable</code> The task to run.
+     * @return <code>Timeout</code> A handle that can be used to cancel the task.
+     */
+    public static TimingWheel.Timeout schedule (long delayMillis, Runnable task) {
+
+        if (MODE == ClockMode.REAL) {
+            return TIMERS.schedule(delayMillis, task);
+        }
+
+        synchronized (EVENTS) {
+
+            long due = elapsedMillis + Math.max(0, delayMillis);
+            TimingWheel.Timeout timeout = new TimingWheel.Timeout(task, TimeUnit.MILLISECONDS.toNanos(due));
+            EVENTS.add(new Event(due, sequence ++, timeout));
+            EVENTS.notifyAll();
+            return timeout;
+
+        }
+
+    }
+
+    /**
+     * This method returns a summary of the simulated time and the tasks scheduled.
+     * @return <code>String</code> A formatted summary of the clock metrics.
+     */
+    public static String getStatistics () {
+
+        if (MODE == ClockMode.REAL) {
+            return String.format ("%s %s", MODE.toString(), TIMERS.toString());
+        }
+
+        int pending;
+        synchronized (EVENTS) {
+            pending = EVENTS.size();
+        }
+
+        return String.format ("%s [simulated %ds in %ds, events run %d, pending %d]", MODE.toString(), 
+            TimeUnit.MILLISECONDS.toSeconds(elapsedMillis), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - START_NANOS), 
+            EVENTS_RUN.get(), pending);
+
+    }
+
+    /**
+     * This method is run by the SimulationClock Thread in the DISCRETE_EVENT mode; it runs each task in order of simulated time.
+     */
+    private static void runEvents () {
+
+        while (true) {
+
+            Event event;
+
+            synchronized (EVENTS) {
+
+                while (EVENTS.isEmpty()) {
+                    try {
+                        EVENTS.wait();
+                    } catch (InterruptedException ex) {}
+                }
+
+                event = EVENTS.poll();
+                elapsedMillis = Math.max(elapsedMillis, event.due); // Move simulated time straight on to the event.
+
+            }
+
+            try {
+                event.timeout.runUnlessCancelled();
+            } catch (RuntimeException ex) {
+                // A failing task must not stop simulated time.
+            }
+
+            EVENTS_RUN.incrementAndGet();
+
+        }
+
+    }
+
+    /**
+     * A task waiting to be run in the DISCRETE_EVENT mode.
+     */
+    private static final class Event implements Comparable <Event> {
+
+        private final long due; // The simulated time at which the task is due.
+        private final long sequence; // The order in which the task was scheduled.
+        private final TimingWheel.Timeout timeout; // The task, and its cancelled status.
+
+        Event (long due, long sequence, TimingWheel.Timeout timeout) {
+
+            this.due = due;
+            this.sequence = sequence;
+            this.timeout = timeout;
+
+        }
+
+        @Override
+        public int compareTo (Event other) {
+
+            int order = Long.compare(this.due, other.due);
+            return (order != 0) ? order : Long.compare(this.sequence, other.sequence);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.jgm.lineside.scheduling;
+
+import com.jgm.lineside.statistics.LatencyHistogram;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This Class provides a hashed timing wheel, used to run short tasks after a delay without holding a Thread per task.
+ * <p>
+ * The wheel is a ring of buckets; each bucket represents one tick. A task is placed in the bucket for the tick at which it
+ * falls due, along with the number of complete turns of the wheel that must pass first. A single Thread advances the wheel
+ * one bucket per tick and runs the tasks that have fallen due, so scheduling and cancelling a task are both O(1).
+ * Tasks are run on the wheel Thread and must therefore be short; anything that blocks should be handed on to another Thread.
+ * <p>
+ * The wheel counts the tasks outstanding, and records how late each task was run against its deadline; a task is never
+ * run early, and is normally run within a tick of its deadline.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class TimingWheel {
+
+    private final long tickNanos; // The duration of a single tick.
+    private final int mask; // Used to convert a tick into a bucket index.
+    private final Timeout[] buckets; // The head of the list of Timeouts in each bucket.
+    private final ConcurrentLinkedQueue <Timeout> newTimeouts = new ConcurrentLinkedQueue<>(); // Timeouts waiting to be placed in a bucket.
+    private final long startNanos; // The time at which the wheel started.
+    private volatile long tick = 0; // The number of ticks processed.
+    private final Thread wheelThread; // The Thread that advances the wheel.
+    private final String name; // The name of the wheel.
+    private final AtomicInteger outstanding = new AtomicInteger(); // The number of tasks scheduled but not yet run or discarded.
+    private final AtomicLong expired = new AtomicLong(); // The number of tasks run.
+    private final LatencyHistogram lateness; // The time between the deadline of each task and it being run.
+
+    /**
+     * This is the Constructor Method for a TimingWheel object; the wheel starts turning immediately.
+     * @param name <code>String</code> The name given to the wheel Thread.
+     * @param tickMillis <code>Long</code> The duration of a single tick in milliseconds.
+     * @param wheelSize <code>Integer</code> The number of buckets in the wheel; rounded up to a power of 2.
+     */
+    public TimingWheel (String name, long tickMillis, int wheelSize) {
+
+        int size = 2;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+        this.startNanos = System.nanoTime();
+        this.name = name;
+        this.lateness = new LatencyHistogram(String.format ("%s lateness", name));
+
+        this.wheelThread = new Thread(this::turn);
+        this.wheelThread.setName(name);
+        this.wheelThread.setDaemon(true);
+        this.wheelThread.start();
+
+    }
+
+    /**
+     * This method schedules a task to run once after the given delay.
+     * @param delayMillis <code>Long</code> The delay, in milliseconds, before the task is run.
+     * @param task <code>Runnable</code> The task to run.
+     * @return <code>Timeout</code> A handle that can be used to cancel the task.
+     */
+    public Timeout schedule (long delayMillis, Runnable task) {
+
+        long deadline = System.nanoTime() - this.startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, deadline);
+        this.outstanding.incrementAndGet();
+        this.newTimeouts.add(timeout);
+        return timeout;
+
+    }
+
+    /**
+     * This method returns the number of tasks scheduled that have been neither run nor discarded following cancellation.
+     * @return <code>Integer</code> The number of tasks outstanding.
+     */
+    public int getOutstanding () {
+        return this.outstanding.get();
+    }
+
+    /**
+     * This method returns the histogram of how late each task was run against its deadline.
+     * @return <code>LatencyHistogram</code> The lateness of the tasks run.
+     */
+    public LatencyHistogram getLateness () {
+        return this.lateness;
+    }
+
+    @Override
+    public String toString () {
+        return String.format ("%s [outstanding %d, run %d] %s", this.name, this.outstanding.get(), this.expired.get(), this.lateness.toString());
+    }
+
+    /**
+     * This method is run by the wheel Thread; it advances the wheel one bucket per tick.
+     */
+    private void turn () {
+
+        while (true) {
+
+            long deadline = this.tickNanos * (this.tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - this.startNanos);
+
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException ex) {}
+                continue;
+            }
+
+            this.transferNewTimeouts();
+            this.expireBucket(this.buckets[(int) (this.tick & this.mask)], (int) (this.tick & this.mask));
+            this.tick ++;
+
+        }
+
+    }
+
+    /**
+     * This method places newly scheduled Timeouts into the bucket for the tick at which they fall due.
+     */
+    private void transferNewTimeouts () {
+
+        Timeout timeout;
+
+        while ((timeout = this.newTimeouts.poll()) != null) {
+
+            if (timeout.cancelled) {
+                this.outstanding.decrementAndGet();
+                continue;
+            }
+
+            long dueTick = Math.max(timeout.deadline / this.tickNanos, this.tick); // Never place a Timeout in a bucket that has already passed.
+            timeout.remainingRounds = (dueTick - this.tick) / this.buckets.length;
+
+            int index = (int) (dueTick & this.mask);
+            timeout.next = this.buckets[index];
+            this.buckets[index] = timeout;
+
+        }
+
+    }
+
+    /**
+     * This method runs every Timeout in the bucket that has fallen due, and counts down those that are due on a later turn.
+     * @param head <code>Timeout</code> The first Timeout in the bucket.
+     * @param index <code>Integer</code> The index of the bucket.
+     */
+    private void expireBucket (Timeout head, int index) {
+
+        Timeout previous = null;
+        Timeout timeout = head;
+
+        while (timeout != null) {
+
+            Timeout next = timeout.next;
+
+            if (timeout.cancelled || timeout.remainingRounds <= 0) {
+
+                // Unlink the Timeout from the bucket.
+                if (previous == null) {
+                    this.buckets[index] = next;
+                } else {
+                    previous.next = next;
+                }
+
+                this.outstanding.decrementAndGet();
+
+                if (!timeout.cancelled) {
+                    this.expired.incrementAndGet();
+                    this.lateness.record(System.nanoTime() - this.startNanos - timeout.deadline);
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException ex) {
+                        // A failing task must not stop the wheel.
+                    }
+                }
+
+            } else {
+
+                timeout.remainingRounds --;
+                previous = timeout;
+
+            }
+
+            timeout = next;
+
+        }
+
+    }
+
+    /**
+     * This Class provides a handle to a task scheduled on a TimingWheel.
+     */
+    public static final class Timeout {
+
+        private final Runnable task; // The task to run.
+        private final long deadline; // The time, relative to the start of the wheel, that the task falls due.
+        private long remainingRounds; // The number of complete turns of the wheel before the task falls due.
+        private Timeout next; // The next Timeout in the same bucket.
+        private volatile boolean cancelled = false; // A flag to indicate that the task should not be run.
+
+        Timeout (Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * This method runs the task, unless it has been cancelled; it is used where the task is scheduled other than by the wheel.
+         */
+        void runUnlessCancelled () {
+
+            if (!this.cancelled) {
+                this.task.run();
+            }
+
+        }
+
+        /**
+         * This method cancels the task, if it has not already been run.
+         */
+        public void cancel () {
+            this.cancelled = true;
+        }
+
+        /**
+         * This method returns the cancelled status of the task.
+         * @return <code>Boolean</code> <i>'true'</i> indicates the task has been cancelled, otherwise <i>'false'</i>.
+         */
+        public boolean isCancelled () {
+            return this.cancelled;
+        }
+
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.jgm.lineside.signals;
+
+import com.jgm.lineside.LineSideModule;
+import com.jgm.lineside.datalogger.Colour;
+import com.jgm.lineside.scheduling.ClockMode;
+import com.jgm.lineside.scheduling.SimulationClock;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This Class provides the propagation of a change of aspect from a signal to the signals in rear.
+ * <p>
+ * Rather than each signal calling the signals in rear, which call theirs in turn, the signals whose aspect has changed
+ * are placed on a worklist and dealt with breadth-first, one at a time, so the depth of the call stack does not grow with
+ * the length of an automatic section. A signal in rear is only worked out again when the aspect of the signal ahead has
+ * actually changed, and is only placed on the worklist when its own aspect then changes.
+ * <p>
+ * A signal whose aspect changes more than MAX_CHANGES times within a single propagation can only be part of a loop of
+ * signals (each, in effect, the signal in rear of another); the loop is reported and its propagation is stopped there.
+ * <p>
+ * As the layout is loaded, the signals are gathered into connected components (in practice, one for each line and
+ * direction) with a union-find, from the fixed links of the automatic and repeater signals to their applicable signals.
+ * A route set from a controlled signal does not merge components, as it is only linked until the signal is put back to
+ * danger. The changes of aspect within a component are propagated one at a time, whilst the changes of different
+ * components are propagated at the same time on a fork/join pool, sized with the system property
+ * lineside.propagationThreads; 0 (the default) propagates each change on the Thread that made it. In the DISCRETE_EVENT
+ * ClockMode each change is always propagated on the Thread that made it, so that it keeps its place amongst the simulated events.
+ * <p>
+ * When a change reaches a signal of another component, through a route, the change of that signal is handed to its own
+ * component to be passed on. A change handed on more than MAX_HANDOFFS times can only be going round a loop of routes; it
+ * is reported as a loop and stopped there.
+ * <p>
+ * A signal built after the layout has been loaded may still merge two components. Each change therefore holds the
+ * component of its signal as it is when the change starts, rather than when it was submitted, and a merge waits for the
+ * changes running in either component to finish.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class AspectPropagator {
+
+    private static final int MAX_CHANGES = 8; // The number of times a signal may change aspect within a single propagation.
+    private static final int MAX_HANDOFFS = 256; // The number of times a change may be handed from one component to another.
+    private static final AtomicLong PROPAGATIONS = new AtomicLong(); // The number of changes propagated.
+    private static final AtomicLong TOUCHED = new AtomicLong(); // The number of signals in rear passed an aspect.
+    private static final AtomicLong CHANGED = new AtomicLong(); // The number of signals in rear whose aspect changed as a result.
+    private static final AtomicLong MAX_TOUCHED = new AtomicLong(); // The greatest number of signals in rear passed an aspect by a single propagation.
+    private static final AtomicLong LOOPS = new AtomicLong(); // The number of loops of signals detected.
+    private static final AtomicLong HANDOFFS = new AtomicLong(); // The number of changes handed to another component, through a route.
+    private static final AtomicLong FAILED = new AtomicLong(); // The number of propagations that ended by throwing an exception.
+    private static final AtomicInteger COMPONENTS = new AtomicInteger(); // The number of connected components of the signals.
+    private static final ForkJoinPool PROPAGATORS = propagatorPool(); // Propagates the changes of different components at the same time; 'null' to propagate on the calling Thread.
+    private static final Object LINKS = new Object(); // Guards the merging of components.
+
+    /**
+     * This is the Constructor Method; it is private as the Class only provides static methods.
+     */
+    private AspectPropagator () {}
+
+    /**
+     * This method passes the aspect of a signal to the signals in rear, and on through every signal whose aspect changes as a result.
+     * @param origin <code>Signal</code> The signal whose aspect is to be passed on.
+     * @param originChanged <code>Boolean</code> <i>'true'</i> if the aspect of the signal has changed, and must be reported to the Remote Interlocking.
+     */
+    static void propagate (Signal origin, Boolean originChanged) {
+
+        if (PROPAGATORS == null || SimulationClock.getMode() == ClockMode.DISCRETE_EVENT) {
+            propagateNow(origin, originChanged, null, 0);
+            return;
+        }
+
+        root(origin).component.submit(() -> propagateInComponent(origin, originChanged, 0));
+
+    }
+
+    /**
+     * This method returns a new connected component, for a signal that is not yet linked to any other.
+     * @return <code>SignalComponent</code> The component.
+     */
+    static SignalComponent newComponent () {
+
+        COMPONENTS.incrementAndGet();
+        return new SignalComponent((PROPAGATORS == null) ? Runnable::run : PROPAGATORS, FAILED);
+
+    }
+
+    /**
+     * This method merges the connected components of a signal and a signal in rear.
+     * 
+     * A controlled signal is only linked to the signal ahead whilst a route is set, so its component is not merged.
+     * @param signal <code>Signal</code> The signal.
+     * @param signalInRear <code>Signal</code> The signal in rear.
+     */
+    static void link (Signal signal, Signal signalInRear) {
+
+        if (signalInRear instanceof ControlledSignal) {
+            return;
+        }
+
+        synchronized (LINKS) {
+
+            Signal root = root(signal);
+            Signal rootInRear = root(signalInRear);
+
+            if (root == rootInRear) {
+                return;
+            }
+
+            if (root.componentSize < rootInRear.componentSize) { // Hang the smaller component from the larger, keeping the paths short.
+                Signal larger = rootInRear;
+                rootInRear = root;
+                root = larger;
+            }
+
+            synchronized (root.component) { // Wait for the changes running in either component to finish.
+                synchronized (rootInRear.component) {
+                    rootInRear.componentParent = root;
+                    root.componentSize += rootInRear.componentSize;
+                    COMPONENTS.decrementAndGet();
+                }
+            }
+
+        }
+
+    }
+
+    // This method returns the signal at the root of the component of a signal, halving the path to it on the way.
+    private static Signal root (Signal signal) {
+
+        Signal parent;
+
+        while ((parent = signal.componentParent) != signal) {
+            Signal grandparent = parent.componentParent;
+            signal.componentParent = grandparent; // Always an ancestor, even whilst components are being merged.
+            signal = grandparent;
+        }
+
+        return signal;
+
+    }
+
+    // This method propagates a change of aspect on the calling Thread, whilst holding the component of the signal as it is now.
+    private static void propagateInComponent (Signal origin, Boolean originChanged, int handoffs) {
+
+        while (true) {
+
+            Signal root = root(origin);
+
+            synchronized (root.component) {
+                if (root(origin) == root) { // The component was not merged into another whilst waiting.
+                    propagateNow(origin, originChanged, root, handoffs);
+                    return;
+                }
+            }
+
+        }
+
+    }
+
+    // This method propagates a change of aspect on the calling Thread; within the component of the root given, or through every component if it is 'null'.
+    private static void propagateNow (Signal origin, Boolean originChanged, Signal root, int handoffs) {
+
+        ArrayDeque <Signal> worklist = new ArrayDeque<>(); // The signals whose aspect has changed, but has not yet been passed on.
+        Map <Signal, Integer> changes = new IdentityHashMap<>(); // The number of times each signal has changed aspect.
+        long touched = 0;
+        long changed = 0;
+
+        if (originChanged) {
+            origin.reportAspect();
+        }
+
+        changes.put(origin, 1);
+        touched += origin.passAspectToSignalsInRear(worklist);
+
+        Signal signal;
+
+        while ((signal = worklist.poll()) != null) {
+
+            changed ++;
+            Boolean loop = changes.merge(signal, 1, Integer::sum) > MAX_CHANGES;
+
+            if (!loop && root != null && root(signal) != root) { // Reached through a route; the change is passed on by the component of the signal.
+                if (handoffs < MAX_HANDOFFS) {
+                    HANDOFFS.incrementAndGet();
+                    Signal handedOn = signal;
+                    root(signal).component.submit(() -> propagateInComponent(handedOn, true, handoffs + 1));
+                    continue;
+                }
+                loop = true; // The change has been handed round a loop of routes.
+            }
+
+            if (loop) {
+                LOOPS.incrementAndGet();
+                LineSideModule.dataLogger.sendToDataLogger(String.format ("%sWARNING: Signal %s is part of a loop of signals; the change of aspect has not been passed on.%s",
+                    Colour.RED.getColour(), signal.getFullSignalIdentity(), Colour.RESET.getColour()), true, true);
+                continue;
+            }
+
+            signal.reportAspect();
+            touched += signal.passAspectToSignalsInRear(worklist);
+
+        }
+
+        PROPAGATIONS.incrementAndGet();
+        TOUCHED.addAndGet(touched);
+        CHANGED.addAndGet(changed);
+        MAX_TOUCHED.accumulateAndGet(touched, Math::max);
+
+    }
+
+    /**
+     * This method returns a summary of the number of signals touched by each change of aspect.
+     * @return <code>String</code> A formatted summary of the aspect propagation metrics.
+     */
+    public static String getStatistics () {
+
+        long propagations = PROPAGATIONS.get();
+
+        return String.format ("Aspect propagation [changes %d, touched %d (mean %.1f, max %d), changed %d, loops %d, failed %d, components %d, handed on %d, threads %d]",
+            propagations, TOUCHED.get(), (propagations == 0) ? 0.0 : (double) TOUCHED.get() / propagations, MAX_TOUCHED.get(),
+            CHANGED.get(), LOOPS.get(), FAILED.get(), COMPONENTS.get(), HANDOFFS.get(), (PROPAGATORS == null) ? 0 : PROPAGATORS.getParallelism());
+
+    }
+
+    // This method returns the pool that propagates the changes of aspect, or 'null' if they are to be propagated on the calling Thread.
+    private static ForkJoinPool propagatorPool () {
+
+        int threads = Integer.getInteger("lineside.propagationThreads", 0);
+
+        if (threads <= 0) {
+            return null;
+        }
+
+        return new ForkJoinPool(threads, (pool) -> {
+            ForkJoinWorkerThread propagator = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            propagator.setName("AspectPropagator-" + propagator.getPoolIndex());
+            propagator.setDaemon(true);
+            return propagator;
+        }, null, true);
+
+    }
+
+}
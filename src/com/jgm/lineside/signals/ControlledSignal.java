@@ -1,5 +1,7 @@
 package com.jgm.lineside.signals;
 
+import com.jgm.lineside.AssetRegistry;
+
 /**
  * This Class provides the blueprint for a Controlled Signal.
  * @author Jonathan Moss
@@ -63,7 +65,11 @@ public class ControlledSignal extends Signal {
     public void signalOn() {
         
         super.setDisplayHighestAspect(false);
-        Signal.getSignalObject(this.toSignalPrefix, this.toSignalIdentity).removeSignalInRear(this);
+        Signal exitSignal = AssetRegistry.find(Signal.class, this.toSignalPrefix, this.toSignalIdentity); // There is no exit signal until a route has been set.
+        
+        if (exitSignal != null) {
+            exitSignal.removeSignalInRear(this);
+        }
         
     }
     
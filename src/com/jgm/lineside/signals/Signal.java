@@ -1,58 +1,75 @@
 package com.jgm.lineside.signals;
 
-import static com.jgm.lineside.interlocking.MessageHandler.addOutgoingMessageToStack;
-import com.jgm.lineside.interlocking.MessageType;
+import com.jgm.lineside.AssetRegistry;
+import com.jgm.lineside.LineSideModule;
+import com.jgm.lineside.datalogger.Colour;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This Class provides the Superclass functionality for a Signal Object.
+ * <p>
+ * Requests for different signals are actioned at the same time, so each signal guards its own state with its own lock.
+ * The lock is only held whilst the aspect of the signal is worked out and shown; it is released before the aspect is
+ * passed to the signals in rear, so no signal is ever locked whilst another signal is being locked. Each aspect passed to
+ * a signal in rear carries a stamp, taken with the aspect, and a signal in rear ignores an aspect older than the one it
+ * already holds; the signals in rear therefore always settle on the latest aspect of the signal ahead.
+ * <p>
+ * When the layout is loaded, the signals are built in bulk (see beginBulkBuild and endBulkBuild): nothing is propagated
+ * or reported whilst the signals are being created, and the links to the applicable signals are made, and the aspects
+ * worked out, in a single pass once every signal exists.
  * @author Jonathan Moss
  * @version v1.0 October 2016
  */
 public class Signal implements Signals {
     
-    public static ArrayList <Signal> SIGNAL_ARRAY; // The Arraylist that contains a reference to all the Signal Objects.
     
+    private final int handle; // The compact handle of the signal, used when reporting its aspect to the Remote Interlocking.
     private final String prefix; // The Signal prefix.
     private final String identity; // The Signal Identity.
     private final SignalType signalType; // The type of Signal.
-    private final ArrayList <Signal> signalsInRear; // An ArrayList that contains all signals that require an Aspect Update.
+    private final SignalAspect[] bestAspects; // The best aspect to display, by the ordinal of the aspect of the applicable signal.
+    private static final AtomicLong ASPECT_STAMPS = new AtomicLong(); // Stamps each aspect passed to the signals in rear, in the order the aspects were taken.
+    private static final List <PendingLink> PENDING_LINKS = new ArrayList<>(); // The links to applicable signals made whilst building in bulk; guarded by itself.
+    private static volatile Boolean bulkBuild = false; // A Flag set whilst the signals are being built in bulk.
+    private static int bulkFirstHandle = 0; // The handle of the first signal built in bulk.
+    private final CopyOnWriteArrayList <Signal> signalsInRear; // A List that contains all signals that require an Aspect Update; it may be read whilst signals are added or removed.
     private SignalAspect applicableSignalAspect; // The aspect of the signal ahead.
-    private SignalAspect currentAspect; // The current aspect of the signal.
-    private final Map <SignalAspect, Boolean> signalLamps = new LinkedHashMap<>(); // A Map that contains the Signal Lamps and an indication if the lamps are proved to be lit.
-    private Boolean displayHighestAspect = false; // A Flag to set if the signal can display the highest aspect available - in other words step up.
+    private long applicableAspectStamp = 0; // The stamp of the aspect of the signal ahead.
+    private volatile SignalAspect currentAspect; // The current aspect of the signal.
+    private int lampsFitted = 0; // A bitmask of the Signal Lamps fitted, by the ordinal of the aspect each lamp shows.
+    private volatile int lampsProved = 0; // A bitmask of the Signal Lamps proved to be lit, by the ordinal of the aspect each lamp shows.
+    private SignalAspect lowestAspect; // The aspect of the first Signal Lamp fitted; the lowest aspect the signal can show.
+    private volatile Boolean displayHighestAspect = false; // A Flag to set if the signal can display the highest aspect available - in other words step up.
     private SignalAspect doNotStepHigherThan = null;
-    
-    /**
-     * This method allows this class to reference the ArrayList that contains all Signal Objects.
-     * @param signalArray <code>ArrayList</code> The ArrayList that contains all Signal Objects.
-     */
-    public static void setSignalArray (ArrayList signalArray) {
-        SIGNAL_ARRAY = signalArray;
-    }
+    volatile Signal componentParent = this; // The parent of the signal within its connected component; the signal itself at the root.
+    int componentSize = 1; // The number of signals in the connected component, whilst the signal is at the root; guarded by the AspectPropagator.
+    final SignalComponent component = AspectPropagator.newComponent(); // Runs the changes of aspect of the connected component, whilst the signal is at the root.
     
     /**
      * This method returns a Signal Object.
      * 
      * The Signal Prefix and Identity of the Signal Object are passed into this method.
-     * The method returns the relevant Signal Object.
+     * The method returns the relevant Signal Object, found in the AssetRegistry.
      * 
      * @param prefix <code>String</code> The Prefix of the signal.
      * @param identity <code>String</code> The Identity of the signal.
-     * @return <code>Signal</code> The Signal Object.
+     * @return <code>Signal</code> The Signal Object, or <i>'null'</i> if there is no such signal.
      */
     public static Signal getSignalObject (String prefix, String identity) {
     
-        for (int i = 0; i < SIGNAL_ARRAY.size(); i++) {
-            if (SIGNAL_ARRAY.get(i).getPrefix().equals(prefix) && SIGNAL_ARRAY.get(i).identity.equals(identity)) {
-                return SIGNAL_ARRAY.get(i);
-            }
+        Signal signal = AssetRegistry.find(Signal.class, prefix, identity);
+        if (signal == null) {
+            System.out.println("Cant find the signal! " + prefix + identity);
         }
-        System.out.println("Cant find the signal! " + prefix + identity);
-        return null;
+        return signal;
     }
     
     /**
@@ -64,10 +81,12 @@ public class Signal implements Signals {
      */
     public Signal (String signalPrefix, String signalIdentity, SignalType signalType) {
         
-        this.signalsInRear = new ArrayList<>(); // Setup up the Signals In Rear ArrayList.
+        this.signalsInRear = new CopyOnWriteArrayList<>(); // Setup up the Signals In Rear List.
         this.prefix = signalPrefix; // Assign the Signal Prefix.
         this.identity = signalIdentity; // Assign the Signal Identity.
         this.signalType = signalType; // Assign the Signal Type.
+        this.bestAspects = signalType.returnBestAspects(this instanceof RepeaterSignal, signalIdentity.contains("CA")); // A Co-Acting Signal displays an identical aspect to the applicable signal.
+        this.handle = AssetRegistry.register(Signal.class, signalPrefix, signalIdentity, this); // Register the signal, and assign its handle.
         this.createSignalLamps(); // Call the method that creates Signal Lamps for each of the relevant Aspects.
         this.DisplayHighestAspect(); // Call the method to assign an aspect into the Signal based on circumstances.
         
@@ -76,20 +95,15 @@ public class Signal implements Signals {
     @Override
     public void addSignalInRear (Signal signalInRear) {
         
-        // Check to make sure that there is not an identical entry within the ArrayList prior to inserting.
-        if (!this.signalsInRear.contains(signalInRear)) {
-            this.signalsInRear.add(signalInRear);
-        }
-        
+        this.signalsInRear.addIfAbsent(signalInRear); // Make sure that there is not an identical entry within the List.
+        AspectPropagator.link(this, signalInRear); // The signals now share a connected component, unless linked by a route.
         this.updateSignalsInRear(); // Call the method to update all signals in rear with the current Signal Aspect.
         
     }
 
     @Override
     public void removeSignalInRear (Signal signalInRear) {
-        if (!this.signalsInRear.contains(signalInRear)) {
-            this.signalsInRear.remove(signalInRear);
-        }
+        this.signalsInRear.remove(signalInRear);
     }
 
     @Override
@@ -101,6 +115,14 @@ public class Signal implements Signals {
     public String getIdentity() {
         return this.identity;
     }
+    
+    /**
+     * This method returns the handle of the signal; a small integer, unique amongst signals, that identifies it to the Remote Interlocking.
+     * @return <code>Integer</code> The handle of the signal.
+     */
+    public int getHandle() {
+        return this.handle;
+    }
 
     @Override
     public SignalType getSignalType() {
@@ -109,14 +131,163 @@ public class Signal implements Signals {
 
     @Override
     public void applicableSignalAspectUpdate(SignalAspect aspect) {
+        
+        if (this.receiveApplicableAspect(aspect, ASPECT_STAMPS.incrementAndGet())) {
+            AspectPropagator.propagate(this, true);
+        }
+        
+    }
+    
+    /**
+     * This method receives the aspect of the signal ahead, and shows the aspect that follows from it.
+     * 
+     * The aspect is ignored if a later aspect of the signal ahead has already been received, and the aspect of this signal
+     * is only worked out again if the aspect of the signal ahead has changed.
+     * @param aspect <code>SignalAspect</code> The aspect of the signal ahead.
+     * @param stamp <code>Long</code> The stamp taken with the aspect.
+     * @return <code>Boolean</code> <i>'true'</i> if the aspect of this signal has changed, otherwise <i>'false'</i>.
+     */
+    private synchronized Boolean receiveApplicableAspect(SignalAspect aspect, long stamp) {
+        
+        if (stamp < this.applicableAspectStamp) {
+            return false; // This aspect was overtaken by a later aspect of the signal ahead.
+        }
+
+        this.applicableAspectStamp = stamp;
+        
+        if (aspect == this.applicableSignalAspect) {
+            return false; // Nothing has changed ahead, so nothing can change here.
+        }
+        
         this.applicableSignalAspect = aspect;
-        this.DisplayHighestAspect(); 
+        return this.showHighestAspect();
+        
+    }
+    
+    /**
+     * This method starts building signals in bulk.
+     * 
+     * Until endBulkBuild is called, no change of aspect is passed to the signals in rear or reported to the Remote
+     * Interlocking, and the links to applicable signals are only recorded; the applicable signal need not have been built yet.
+     */
+    public static void beginBulkBuild() {
+        
+        synchronized (PENDING_LINKS) {
+            bulkFirstHandle = AssetRegistry.size(Signal.class);
+            bulkBuild = true;
+        }
+        
+    }
+    
+    /**
+     * This method finishes building signals in bulk.
+     * 
+     * The links recorded since beginBulkBuild are made, and the aspect of every signal built in bulk is worked out once, in
+     * a single sweep from the signals that have no applicable signal to their signals in rear. Nothing is reported to the
+     * Remote Interlocking; the aspects are sent with the first full update once it is connected.
+     * @return <code>Integer</code> The number of signals whose applicable signal could not be found.
+     */
+    public static int endBulkBuild() {
+        
+        List <PendingLink> links;
+        int firstHandle;
+        
+        synchronized (PENDING_LINKS) {
+            
+            if (!bulkBuild) {
+                return 0;
+            }
+            
+            links = new ArrayList<>(PENDING_LINKS);
+            PENDING_LINKS.clear();
+            firstHandle = bulkFirstHandle;
+            bulkBuild = false;
+            
+        }
+        
+        int unresolved = 0;
+        Map <Signal, Integer> linksAhead = new IdentityHashMap<>(); // The number of signals ahead of each signal that have not yet been swept.
+        ArrayDeque <Signal> sweep = new ArrayDeque<>(); // The signals whose aspect has been worked out, but not yet passed to the signals in rear.
+        
+        for (PendingLink link : links) {
+            
+            Signal signalAhead = Signal.getSignalObject(link.prefix, link.identity);
+            
+            if (signalAhead == null) {
+                unresolved ++;
+            } else if (signalAhead.signalsInRear.addIfAbsent(link.signal)) {
+                AspectPropagator.link(signalAhead, link.signal);
+                linksAhead.merge(link.signal, 1, Integer::sum);
+                if (signalAhead.handle < firstHandle && linksAhead.putIfAbsent(signalAhead, 0) == null) {
+                    sweep.add(signalAhead); // Built before the bulk build; its aspect is already known.
+                }
+            }
+            
+        }
+        
+        int built = AssetRegistry.size(Signal.class);
+        
+        for (int handle = firstHandle; handle < built; handle++) {
+            
+            Signal signal = AssetRegistry.get(Signal.class, handle);
+            
+            if (signal != null && !linksAhead.containsKey(signal)) {
+                sweep.add(signal);
+            }
+            
+        }
+        
+        Signal signal;
+        
+        while ((signal = sweep.poll()) != null) {
+            
+            SignalAspect curAspect = (signal.currentAspect == SignalAspect.TOP_YELLOW) ? SignalAspect.DOUBLE_YELLOW : signal.currentAspect;
+            
+            for (Signal signalInRear : signal.signalsInRear) {
+                
+                synchronized (signalInRear) {
+                    signalInRear.applicableSignalAspect = curAspect;
+                    signalInRear.applicableAspectStamp = ASPECT_STAMPS.incrementAndGet();
+                    signalInRear.showHighestAspect();
+                }
+                
+                if (linksAhead.merge(signalInRear, -1, Integer::sum) == 0) {
+                    sweep.add(signalInRear); // Every signal ahead has been swept.
+                }
+                
+            }
+            
+        }
+        
+        linksAhead.forEach((loopSignal, remaining) -> {
+            
+            if (remaining > 0) {
+                LineSideModule.dataLogger.sendToDataLogger(String.format ("%sWARNING: Signal %s is part of a loop of signals; its aspect was worked out against a red aspect ahead.%s",
+                    Colour.RED.getColour(), loopSignal.getFullSignalIdentity(), Colour.RESET.getColour()), true, true);
+            }
+            
+        });
+        
+        return unresolved;
         
     }
     
     @Override
     public void informApplicableSignal (String applicableSignalPrefix, String applicableSignalIdentity) {
         
+        if (bulkBuild) {
+            
+            synchronized (PENDING_LINKS) {
+                
+                if (bulkBuild) {
+                    PENDING_LINKS.add(new PendingLink(this, applicableSignalPrefix, applicableSignalIdentity));
+                    return;
+                }
+                
+            }
+            
+        }
+        
         Signal signalObject = Signal.getSignalObject(applicableSignalPrefix, applicableSignalIdentity);
         
         if (signalObject != null) {
@@ -129,17 +300,41 @@ public class Signal implements Signals {
 
     @Override
     public void updateSignalsInRear() {
+        AspectPropagator.propagate(this, false);
+    }
     
-        SignalAspect curAspect = this.currentAspect;
+    /**
+     * This method passes the current aspect of the signal to each signal in rear; it is called by the AspectPropagator.
+     * @param changed <code>Queue</code> The worklist, to which each signal in rear whose aspect changed as a result is added.
+     * @return <code>Integer</code> The number of signals in rear that were passed the aspect.
+     */
+    int passAspectToSignalsInRear(Queue <Signal> changed) {
+    
+        SignalAspect curAspect;
+        long stamp;
+        
+        synchronized (this) {
+            curAspect = this.currentAspect;
+            stamp = ASPECT_STAMPS.incrementAndGet(); // Taken with the aspect, so that a later aspect always has a later stamp.
+        }
         
-        if (this.currentAspect == SignalAspect.TOP_YELLOW) {
+        if (curAspect == SignalAspect.TOP_YELLOW) {
             curAspect = SignalAspect.DOUBLE_YELLOW;
         }
         
-        for (int i = 0; i < this.signalsInRear.size(); i++) {
-            this.signalsInRear.get(i).applicableSignalAspectUpdate(curAspect);
+        int touched = 0;
+        
+        for (Signal signalInRear : this.signalsInRear) {
+            
+            touched ++;
+            if (signalInRear.receiveApplicableAspect(curAspect, stamp)) {
+                changed.add(signalInRear);
+            }
+            
         }
         
+        return touched;
+        
     }
 
     @Override
@@ -148,72 +343,14 @@ public class Signal implements Signals {
     }
 
     @Override
-    public SignalAspect calculateBestAspect() {
+    public synchronized SignalAspect calculateBestAspect() {
         
         if (this.applicableSignalAspect == null) {
             this.applicableSignalAspect = SignalAspect.RED; // Assign a default where no Aspect for the Applicable Signal has been provided (yet).
         }
         
-        // If the Signal is Co-Acting, then the Signal should display an identical aspect.
-        if (this.getIdentity().contains("CA")) {
-            return this.applicableSignalAspect;
-        }
-        
-        // Look at what the Applicable Signal is currently displaying, then decide on an apppropriate aspect to display in this signal.
-        switch (this.applicableSignalAspect) { 
-        
-            case SPAD_INDICATOR_ILLUMINATED:
-            case BLACK:
-            case TOP_YELLOW:
-                if (this instanceof RepeaterSignal) {
-                    return SignalAspect.CAUTION;
-                } else {
-                    return SignalAspect.RED;
-                }
-                
-            case SUB_OFF:
-            case FLASHING_WHITE:
-            case RED:
-                if (this instanceof RepeaterSignal) {
-                    return SignalAspect.CAUTION;
-                } else {
-                    return SignalAspect.YELLOW;
-                }
-                
-            case YELLOW:
-                if (this instanceof RepeaterSignal) {
-                    return SignalAspect.CLEAR;
-                } else {
-                    if (this.getSignalType().toString().contains("_4")) {
-                        return SignalAspect.DOUBLE_YELLOW;
-                    } else {
-                        return SignalAspect.GREEN;
-                    }
-                }
-                
-            case GREEN:
-            case FLASHING_DOUBLE_YELLOW:
-            case DOUBLE_YELLOW:
-                if (this instanceof RepeaterSignal) {
-                    return SignalAspect.CLEAR;
-                } else {
-                    return SignalAspect.GREEN;
-                }
-            
-            case FLASHING_YELLOW:
-                if (this instanceof RepeaterSignal) {
-                    return SignalAspect.CLEAR;
-                } else {
-                    if (this.getSignalType().toString().contains("_4")) {
-                        return SignalAspect.FLASHING_DOUBLE_YELLOW;
-                    } else {
-                        return SignalAspect.GREEN;
-                    }
-                }
-
-        }
-        
-        return SignalAspect.RED;
+        // Look at what the Applicable Signal is currently displaying, then look up an apppropriate aspect to display in this signal.
+        return this.bestAspects[this.applicableSignalAspect.ordinal()];
         
     }
 
@@ -265,28 +402,46 @@ public class Signal implements Signals {
 
         }
         
+        this.lowestAspect = this.getSignalType().returnApplicableSignalAspect()[startingPointWithinArray];
+        
         for (int i = startingPointWithinArray; i < (numberOfApplicableAspects + startingPointWithinArray); i++) {
             
-            this.signalLamps.put(this.getSignalType().returnApplicableSignalAspect()[i], true); // Create the Signal Lamp Map Entry.
+            this.lampsFitted |= lampBit(this.getSignalType().returnApplicableSignalAspect()[i]); // Fit the Signal Lamp.
             
         }
         
+        this.lampsProved = this.lampsFitted; // Every Signal Lamp is proved to be lit to begin with.
+        
     }
     
     @Override
     public final void DisplayHighestAspect() {
         
+        Boolean changed;
+        
+        synchronized (this) {
+            changed = this.showHighestAspect();
+        }
+        
+        if (changed) {
+            this.aspectChanged();
+        }
+        
+    }
+    
+    // This method shows the highest aspect the signal may display; it is called whilst holding the lock of the signal, and returns 'true' if the aspect changed.
+    private Boolean showHighestAspect() {
+        
         if (this.displayHighestAspect) {
-            
+
             if (this.doNotStepHigherThan == null) {
-                this.DisplayAspect(this.calculateBestAspect()); // Go for it! Show a proceed aspect, at the least restrictive aspect available.
+                return this.showAspect(this.calculateBestAspect()); // Go for it! Show a proceed aspect, at the least restrictive aspect available.
             } else {
-                this.DisplayAspect(this.doNotStepHigherThan);
+                return this.showAspect(this.doNotStepHigherThan);
             }
-            
+
         } else {
-            Map.Entry<SignalAspect, Boolean> lampMap = this.signalLamps.entrySet().iterator().next();
-            this.DisplayAspect(lampMap.getKey()); // Show the lowest aspect available.
+            return this.showAspect(this.lowestAspect); // Show the lowest aspect available.
         }
         
     }
@@ -299,16 +454,22 @@ public class Signal implements Signals {
     @Override
     public void setDisplayHighestAspect(Boolean displayHighestAspect) {
         
-        this.doNotStepHigherThan = null;
-        this.displayHighestAspect = displayHighestAspect;
+        synchronized (this) {
+            this.doNotStepHigherThan = null;
+            this.displayHighestAspect = displayHighestAspect;
+        }
+        
         this.DisplayHighestAspect();
     }
     
     @Override
     public void setDisplayHighestAspect(SignalAspect aspect) {
     
-        this.doNotStepHigherThan = aspect;
-        this.displayHighestAspect = true;
+        synchronized (this) {
+            this.doNotStepHigherThan = aspect;
+            this.displayHighestAspect = true;
+        }
+        
         this.DisplayHighestAspect();
         
     }
@@ -316,35 +477,96 @@ public class Signal implements Signals {
     @Override
     public void failSignalLamp(SignalAspect aspect) {
         
-        if (this.signalLamps.containsKey(aspect)) {
-            this.signalLamps.replace(aspect, false);
+        Boolean changed;
+        
+        synchronized (this) {
+            
+            this.lampsProved &= ~lampBit(aspect);
+
+            changed = this.showAspect(this.currentAspect);
+            
         }
         
-        this.DisplayAspect(this.currentAspect);
+        if (changed) {
+            this.aspectChanged();
+        }
         
     }
 
     @Override
     public void restoreSignalLamp(SignalAspect aspect) {
         
-        if (this.signalLamps.containsKey(aspect)) {
-            this.signalLamps.replace(aspect, true);
+        Boolean changed;
+        
+        synchronized (this) {
+            
+            this.lampsProved |= lampBit(aspect) & this.lampsFitted; // Only a Signal Lamp that is fitted can be restored.
+
+            changed = this.showAspect(this.calculateBestAspect());
+            
         }
         
-        this.DisplayAspect(this.calculateBestAspect());
+        if (changed) {
+            this.aspectChanged();
+        }
         
     }
 
     @Override
     public Map<SignalAspect, Boolean> getSignalLampMap() {
         
-        return this.signalLamps;
+        Map <SignalAspect, Boolean> signalLamps = new LinkedHashMap<>();
+        int proved = this.lampsProved;
+        
+        for (SignalAspect aspect : this.getSignalType().returnApplicableSignalAspect()) {
+            
+            if ((this.lampsFitted & lampBit(aspect)) != 0) {
+                signalLamps.put(aspect, (proved & lampBit(aspect)) != 0);
+            }
+            
+        }
+        
+        return signalLamps;
         
     }
+    
+    @Override
+    public int getLampsFitted() {
+        return this.lampsFitted;
+    }
+    
+    @Override
+    public int getLampsProved() {
+        return this.lampsProved;
+    }
+    
+    // This method returns the bit of a Signal Lamp within the bitmasks, from the aspect the lamp shows.
+    private static int lampBit(SignalAspect aspect) {
+        return 1 << aspect.ordinal();
+    }
 
     @Override
     public void DisplayAspect(SignalAspect aspect) {
         
+        Boolean changed;
+        
+        synchronized (this) {
+            changed = this.showAspect(aspect);
+        }
+        
+        if (changed) {
+            this.aspectChanged();
+        }
+        
+    }
+    
+    /**
+     * This method shows an aspect in the signal, if the signal is able to do so; it is called whilst holding the lock of the signal.
+     * @param aspect <code>SignalAspect</code> The SignalAspect that should be displayed, if able to do so.
+     * @return <code>Boolean</code> <i>'true'</i> if the aspect of the signal has changed, otherwise <i>'false'</i>.
+     */
+    private Boolean showAspect(SignalAspect aspect) {
+        
         if (this.isAspectValid(aspect)) { // Validate the aspect for this signal type.
             
             SignalAspect newAspect;
@@ -357,9 +579,9 @@ public class Signal implements Signals {
                 
                 case DOUBLE_YELLOW: // We need special consideration for a 4 aspect signal in connection with Double Yellow.
                     
-                    if (!this.signalLamps.get(aspect)) { // Double Yellow Requested, Double Yellow Aspect Lamp showing false.
+                    if ((this.lampsProved & lampBit(aspect)) == 0) { // Double Yellow Requested, Double Yellow Aspect Lamp showing false.
                         newAspect = SignalAspect.YELLOW; // Show a Yellow Aspect.
-                    } else if (!this.signalLamps.get(SignalAspect.YELLOW)) { // Double Yellow Requested, Bottom Yellow (Yellow) Aspect Lamp showing false.
+                    } else if ((this.lampsProved & lampBit(SignalAspect.YELLOW)) == 0) { // Double Yellow Requested, Bottom Yellow (Yellow) Aspect Lamp showing false.
                         newAspect = SignalAspect.TOP_YELLOW; // Display only a TOP_YELLOW Signal Aspect.
                     } else {
                         newAspect = SignalAspect.DOUBLE_YELLOW; // Otherwise just display the DOUBLE_YELLOW.
@@ -368,82 +590,96 @@ public class Signal implements Signals {
                     
                 default: // Everything Else.
 
-                    // Check if the requested aspect is listed in the SignalLamps Map, and check if the Lamp Value is set to false.
-                    if (this.signalLamps.containsKey(aspect) && !this.signalLamps.get(aspect)) {
+                    // Check if a Signal Lamp is fitted for the requested aspect, and check if the Lamp is not proved to be lit.
+                    if ((this.lampsFitted & ~this.lampsProved & lampBit(aspect)) != 0) {
                         newAspect = SignalAspect.BLACK; // If so, this indicates the Lamp is out, show a Black Signal.
                     } else {
                         newAspect = aspect; // Otherwise, just show the Signal Aspect as desired.
                     }
             } 
          
-            // If the aspect has changed, make sure that all signals in rear that need notification have been notified.
             if (this.currentAspect != newAspect) {
-                
-                String sigType = null;
-                
-                if (this instanceof ControlledSignal) {
-                    
-                    sigType = "CONTROLLED_SIGNAL";
-                    
-                } else if (this instanceof AutomaticSignal || this instanceof RepeaterSignal) {
-                    
-                    sigType = "AUTOMATIC_SIGNAL";
-                    
-                }
-                
                 this.currentAspect = newAspect;
-                this.updateSignalsInRear(); // We only provide updates to Signals In Rear here to make sure that we dont send an update every time.
-                addOutgoingMessageToStack(MessageType.STATE_CHANGE, String.format ("%s.%s.%s.%s",
-                    sigType,
-                    this.getPrefix(),
-                    this.getIdentity(),
-                    this.getCurrentAspect()));
-                
+                return true;
             }
             
         }
         
+        return false;
+        
     }
-
-    @Override
-    public Boolean isAspectValid(SignalAspect aspect) {
+    
+    /**
+     * This method makes sure that all signals in rear that need notification, and the Remote Interlocking, have been notified of a change of aspect.
+     * 
+     * It is called without holding the lock of the signal, so that no signal is locked whilst the signals in rear are.
+     */
+    private void aspectChanged() {
         
-        if (Arrays.toString(this.signalType.returnApplicableSignalAspect()).contains(aspect.toString())) {
-            return true;
-        } else {
-            return false;
+        if (bulkBuild) {
+            return; // The aspects are worked out, and reported, once every signal has been built.
         }
         
+        AspectPropagator.propagate(this, true); // We only provide updates to Signals In Rear here to make sure that we dont send an update every time.
     }
-
-    @Override
-    public Boolean validateAspectAgainstNextAspect(SignalAspect aspect) {
-        
-        int thisSignalAspect = 0;
-        int nextSignalAspect = 0;
+    
+    /**
+     * This method notifies the Remote Interlocking of the current aspect of the signal; it is called by the AspectPropagator.
+     */
+    void reportAspect() {
         
-        for (int i = 0; i < SignalAspect.values().length; i++) {
-            
-            if (SignalAspect.values()[i].equals(aspect)) {
-                thisSignalAspect = i;
-            }
-            
-            if (SignalAspect.values()[i].equals(this.applicableSignalAspect)) {
-                nextSignalAspect = i;
-            }
+        synchronized (this) { // Queued whilst holding the lock, so that the updates of this signal are versioned in the order the aspects were shown.
             
-            if (nextSignalAspect <= thisSignalAspect) {
-                return true;
+            if (this instanceof ControlledSignal) {
+
+                LineSideModule.sendUpdateControlledSignal(this);
+
+            } else if (this instanceof AutomaticSignal || this instanceof RepeaterSignal) {
+
+                LineSideModule.sendUpdateAutomaticSignal(this);
+
             }
             
         }
         
-        return false;
+    }
+
+    @Override
+    public Boolean isAspectValid(SignalAspect aspect) {
+        
+        return this.signalType.isApplicable(aspect);
+        
+    }
+
+    @Override
+    public Boolean validateAspectAgainstNextAspect(SignalAspect aspect) {
+        
+        // The aspect may be displayed if it is no less restrictive than the best aspect the applicable signal allows.
+        return aspect.getRestrictiveness() <= this.calculateBestAspect().getRestrictiveness();
     }
 
     @Override
     public String getFullSignalIdentity() {
         return String.format ("%s%s", this.getPrefix(), this.getIdentity());
     }
+    
+    /**
+     * A link from a signal to its applicable signal, recorded whilst building in bulk.
+     */
+    private static final class PendingLink {
+        
+        private final Signal signal; // The signal in rear.
+        private final String prefix; // The Prefix of the applicable signal.
+        private final String identity; // The Identity of the applicable signal.
+        
+        PendingLink (Signal signal, String prefix, String identity) {
+            
+            this.signal = signal;
+            this.prefix = prefix;
+            this.identity = identity;
+            
+        }
+        
+    }
 
 }
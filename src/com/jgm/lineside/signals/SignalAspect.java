@@ -10,75 +10,93 @@ public enum SignalAspect {
     /**
      * Applicable to Position Light Signals or 4/3 Colour Light Signals with Co-acting Position Light (CA).
      */
-    SUB_OFF, 
+    SUB_OFF(0),
     
     /**
      * Applicable to all Colour Light Stop Signals, LOS, Buffer Stops and Fixed Red Signals. 
      */
-    RED, 
+    RED(0),
     
     /**
      * Applicable to Banner Repeaters only.
      * The signal being repeated is showing a Stop aspect, and the train must be prepared to stop at that signal.
      */
-    CAUTION, 
+    CAUTION(1),
     
     /**
      * Applicable to Banner Repeaters only.
      * The signal being repeated is showing a proceed aspect.
      */
-    CLEAR, 
+    CLEAR(4),
     
     /**
      * Applicable to all Colour Light Signals.
      */
-    YELLOW, 
+    YELLOW(1),
     
     /**
      * Applicable to flashing aspect junction indication (3 and 4 aspect).
      * GREEN > FLASHING_DOUBLE_YELLOW > FLASHING YELLOW > YELLOW (This is the junction signal, it steps up to YY or G on approach - if able to do so), or
      * GREEN > FLASHING_YELLOW > YELLOW (This is the junction signal, it steps up to G on approach - if able to do so). 
      */
-    FLASHING_YELLOW, 
+    FLASHING_YELLOW(2),
     
     /**
      * Applicable to 4 aspect Colour Light Signals only.
      * The next signal is displaying a yellow aspect.
      */
-    DOUBLE_YELLOW, 
+    DOUBLE_YELLOW(2),
 
     /**
      * Applicable to flashing aspect junction indication (4 aspect).
      * GREEN > FLASHING_DOUBLE_YELLOW > FLASHING YELLOW > YELLOW (This is the junction signal, it steps up to YY or G on approach - if able to do so).
      */
-    FLASHING_DOUBLE_YELLOW, 
+    FLASHING_DOUBLE_YELLOW(3),
     
     /**
      * Applicable to 4 aspect Colour Light Signals only, where the bottom yellow lamp has blown.
      */
-    TOP_YELLOW, 
+    TOP_YELLOW(2),
     
     /**
      * Applicable to Colour Light Signals.
      */
-    GREEN,
+    GREEN(4),
     
     /**
      * Applicable to Colour Light Signals only.
      * There is no aspect or indication being displayed at the Signal.
      */
-    BLACK, 
+    BLACK(0),
 
     /**
      * Only applicable to POSA.
      * 2 flashing white lights.
      */
-    FLASHING_WHITE, 
+    FLASHING_WHITE(0),
     
     /**
      * Only applicable for SPAD Indicators.
      * Steady red light between two flashing red lights arranged vertically.
      */
-    SPAD_INDICATOR_ILLUMINATED;
+    SPAD_INDICATOR_ILLUMINATED(0);
+    
+    private final int restrictiveness; // The rank of the aspect, from 0 (stop, or proceed regardless of the next signal) to 4 (the next signal is showing a proceed aspect).
+    
+    SignalAspect(int restrictiveness) {
+        
+        this.restrictiveness = restrictiveness;
+    }
+    
+    /**
+     * This method returns the rank of the aspect; the lower the rank, the more restrictive the aspect.
+     * 
+     * Stop aspects and the aspects of Position Light Signals, which do not depend upon the next signal, rank 0; GREEN and CLEAR rank 4.
+     * @return <code>Integer</code> The rank of the aspect.
+     */
+    public int getRestrictiveness() {
+        
+        return this.restrictiveness;
+    }
     
 }
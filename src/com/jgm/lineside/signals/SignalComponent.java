@@ -0,0 +1,78 @@
+package com.jgm.lineside.signals;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This Class represents a connected component of the signals; a set of signals linked, directly or through other signals,
+ * as signals ahead and signals in rear (in practice, the signals of one line in one direction).
+ * <p>
+ * The changes of aspect propagated within a component are run one at a time, in the order they were submitted, by
+ * whichever Thread of the executor is free; the changes of different components are run at the same time.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+final class SignalComponent implements Runnable {
+
+    private static final int BATCH = 64; // The number of propagations run before the Thread is handed back to the other components.
+    private final Executor executor; // The executor that runs the propagations.
+    private final ConcurrentLinkedQueue <Runnable> pending = new ConcurrentLinkedQueue<>(); // The propagations waiting to be run.
+    private final AtomicBoolean scheduled = new AtomicBoolean(); // 'true' whilst the component has been given to the executor.
+    private final AtomicLong failed; // The number of propagations that ended by throwing an exception, shared by every component.
+
+    /**
+     * This is the Constructor Method for a SignalComponent object.
+     * @param executor <code>Executor</code> The executor that runs the propagations.
+     * @param failed <code>AtomicLong</code> The count of propagations that ended by throwing an exception.
+     */
+    SignalComponent (Executor executor, AtomicLong failed) {
+
+        this.executor = executor;
+        this.failed = failed;
+
+    }
+
+    /**
+     * This method submits a propagation, to be run after every propagation previously submitted to the component.
+     * @param propagation <code>Runnable</code> The propagation.
+     */
+    void submit (Runnable propagation) {
+
+        this.pending.add(propagation);
+
+        if (this.scheduled.compareAndSet(false, true)) {
+            this.executor.execute(this);
+        }
+
+    }
+
+    @Override
+    public void run () {
+
+        Runnable propagation;
+        int run = 0;
+
+        while (run < BATCH && (propagation = this.pending.poll()) != null) {
+
+            run ++;
+
+            try {
+                propagation.run();
+            } catch (RuntimeException ex) {
+                this.failed.incrementAndGet(); // A failed propagation must not stop the later propagations of the component.
+            }
+
+        }
+
+        this.scheduled.set(false);
+
+        if (!this.pending.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+            this.executor.execute(this); // Submitted whilst finishing, or the batch was used up.
+        }
+
+    }
+
+}
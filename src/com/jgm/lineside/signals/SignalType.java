@@ -3,6 +3,9 @@ package com.jgm.lineside.signals;
 /**
  * This Enum provides a model of signal types and applicable signal aspects for each type.
  * 
+ * Each type holds tables, built once, of the aspects applicable to it and of the best aspect to display for each aspect of
+ * the next signal, so that working out an aspect takes a few array lookups.
+ * 
  * @author Jonathan Moss
  * @version v2.0 October 2016
  */
@@ -78,11 +81,30 @@ public enum SignalType {
      */
     SPAD_INDICATOR(SignalAspect.SPAD_INDICATOR_ILLUMINATED, SignalAspect.BLACK);
     
+    private static final SignalAspect[] CO_ACTING_ASPECTS = SignalAspect.values(); // A Co-Acting Signal displays an identical aspect to the next signal, by ordinal.
     private final SignalAspect[] applicable_aspects;
+    private final int validAspects; // A bitmask of the applicable aspects, by ordinal.
+    private final SignalAspect[] bestAspects; // The best aspect for a stop signal of this type, by the ordinal of the aspect of the next signal.
+    private final SignalAspect[] repeaterAspects; // The best aspect for a repeater signal of this type, by the ordinal of the aspect of the next signal.
     
     SignalType(SignalAspect... applicable_aspects) {
         
         this.applicable_aspects = applicable_aspects;
+        
+        int mask = 0;
+        Boolean fourAspect = false;
+        for (SignalAspect aspect : applicable_aspects) {
+            mask |= 1 << aspect.ordinal();
+            fourAspect |= (aspect == SignalAspect.DOUBLE_YELLOW);
+        }
+        this.validAspects = mask;
+        
+        this.bestAspects = new SignalAspect[SignalAspect.values().length];
+        this.repeaterAspects = new SignalAspect[SignalAspect.values().length];
+        for (SignalAspect next : SignalAspect.values()) {
+            this.bestAspects[next.ordinal()] = bestAspect(next, false, fourAspect);
+            this.repeaterAspects[next.ordinal()] = bestAspect(next, true, fourAspect);
+        }
     }
     
     SignalAspect[] returnApplicableSignalAspect() {
@@ -90,5 +112,67 @@ public enum SignalType {
         return this.applicable_aspects;
         
     }
+    
+    /**
+     * This method indicates whether an aspect is applicable to this type of signal.
+     * @param aspect <code>SignalAspect</code> The aspect.
+     * @return <code>Boolean</code> <i>'true'</i> if the aspect is applicable, otherwise <i>'false'</i>.
+     */
+    Boolean isApplicable(SignalAspect aspect) {
+        
+        return (this.validAspects & (1 << aspect.ordinal())) != 0;
+    }
+    
+    /**
+     * This method returns the table of the best aspect to display, by the ordinal of the aspect of the next signal.
+     * @param repeater <code>Boolean</code> <i>'true'</i> for a Repeater Signal, otherwise <i>'false'</i>.
+     * @param coActing <code>Boolean</code> <i>'true'</i> for a Co-Acting Signal, otherwise <i>'false'</i>.
+     * @return <code>SignalAspect[]</code> The table; it must not be modified.
+     */
+    SignalAspect[] returnBestAspects(Boolean repeater, Boolean coActing) {
+        
+        if (coActing) {
+            return CO_ACTING_ASPECTS;
+        }
+        
+        return repeater ? this.repeaterAspects : this.bestAspects;
+    }
+    
+    // This method decides the best aspect to display, from the aspect of the next signal; used to build the tables.
+    private static SignalAspect bestAspect(SignalAspect next, Boolean repeater, Boolean fourAspect) {
+        
+        switch (next) { 
+        
+            case SPAD_INDICATOR_ILLUMINATED:
+            case BLACK:
+            case TOP_YELLOW:
+                return repeater ? SignalAspect.CAUTION : SignalAspect.RED;
+                
+            case SUB_OFF:
+            case FLASHING_WHITE:
+            case RED:
+                return repeater ? SignalAspect.CAUTION : SignalAspect.YELLOW;
+                
+            case YELLOW:
+                if (repeater) {
+                    return SignalAspect.CLEAR;
+                }
+                return fourAspect ? SignalAspect.DOUBLE_YELLOW : SignalAspect.GREEN;
+                
+            case GREEN:
+            case FLASHING_DOUBLE_YELLOW:
+            case DOUBLE_YELLOW:
+                return repeater ? SignalAspect.CLEAR : SignalAspect.GREEN;
+            
+            case FLASHING_YELLOW:
+                if (repeater) {
+                    return SignalAspect.CLEAR;
+                }
+                return fourAspect ? SignalAspect.FLASHING_DOUBLE_YELLOW : SignalAspect.GREEN;
+
+        }
+        
+        return SignalAspect.RED;
+    }
 
 }
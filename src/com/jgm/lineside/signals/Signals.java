@@ -115,11 +115,23 @@ public interface Signals {
     void restoreSignalLamp (SignalAspect aspect);
     
     /**
-     * This method returns the Signal Lamp Map.
+     * This method returns the Signal Lamp Map; a copy, taken from the lamp bitmasks.
      * @return Map <code>LinkedHashMap</code> that contains the Signal Lamps and proving status.
      */
     Map <SignalAspect, Boolean> getSignalLampMap();
     
+    /**
+     * This method returns the Signal Lamps fitted to the signal.
+     * @return <code>Integer</code> A bitmask with a bit set for each Signal Lamp fitted, by the ordinal of the SignalAspect the lamp shows.
+     */
+    int getLampsFitted();
+    
+    /**
+     * This method returns the Signal Lamps proved to be lit.
+     * @return <code>Integer</code> A bitmask with a bit set for each Signal Lamp proved, by the ordinal of the SignalAspect the lamp shows.
+     */
+    int getLampsProved();
+    
     /**
      * This method attempts to display the provided aspect, if able to do so.
      * @param aspect <code>SignalAspect</code> The SignalAspect that should be displayed, if able to do so.
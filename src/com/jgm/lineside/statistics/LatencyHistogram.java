@@ -0,0 +1,130 @@
+package com.jgm.lineside.statistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This Class provides a thread safe histogram of latencies.
+ * <p>
+ * Latencies are recorded in microseconds into buckets whose upper bounds are successive powers of 2, so recording
+ * a value costs a couple of atomic increments and the histogram never grows, however many values are recorded.
+ * Percentiles are reported as the upper bound of the bucket that contains them.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40; // Bucket 'n' holds values below 2^n microseconds.
+
+    private final String name; // The name of the latency being measured.
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // The number of values recorded in each bucket.
+    private final AtomicLong total = new AtomicLong(); // The number of values recorded.
+    private final AtomicLong sum = new AtomicLong(); // The sum of all the values recorded (microseconds).
+    private final AtomicLong max = new AtomicLong(); // The greatest value recorded (microseconds).
+
+    /**
+     * This is the Constructor Method for a LatencyHistogram object.
+     * @param name <code>String</code> The name of the latency being measured.
+     */
+    public LatencyHistogram (String name) {
+        this.name = name;
+    }
+
+    /**
+     * This method records a single latency.
+     * @param nanos <code>Long</code> The latency in nanoseconds.
+     */
+    public void record (long nanos) {
+
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+        this.counts.incrementAndGet(bucket);
+        this.total.incrementAndGet();
+        this.sum.addAndGet(micros);
+
+        long currentMax = this.max.get();
+        while (micros > currentMax && !this.max.compareAndSet(currentMax, micros)) {
+            currentMax = this.max.get();
+        }
+
+    }
+
+    /**
+     * This method returns the number of latencies recorded.
+     * @return <code>Long</code> The number of latencies recorded.
+     */
+    public long getCount () {
+        return this.total.get();
+    }
+
+    /**
+     * This method returns the mean of the latencies recorded.
+     * @return <code>Long</code> The mean latency in microseconds.
+     */
+    public long getMeanMicros () {
+
+        long count = this.total.get();
+        return (count == 0) ? 0 : this.sum.get() / count;
+
+    }
+
+    /**
+     * This method returns the greatest latency recorded.
+     * @return <code>Long</code> The greatest latency in microseconds.
+     */
+    public long getMaxMicros () {
+        return this.max.get();
+    }
+
+    /**
+     * This method returns an upper bound for the given percentile of the latencies recorded.
+     * @param percentile <code>Double</code> The percentile required, between 0 and 100.
+     * @return <code>Long</code> The upper bound of the bucket holding the percentile, in microseconds.
+     */
+    public long getPercentileMicros (double percentile) {
+
+        long count = this.total.get();
+        if (count == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= threshold) {
+                return Math.min(1L << i, this.max.get());
+            }
+        }
+
+        return this.max.get();
+
+    }
+
+    /**
+     * This method clears all the latencies recorded.
+     */
+    public void reset () {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.total.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+
+    }
+
+    @Override
+    public String toString () {
+
+        return String.format ("%s [count %d, mean %dus, p50 %dus, p99 %dus, max %dus]",
+            this.name, this.getCount(), this.getMeanMicros(), this.getPercentileMicros(50), this.getPercentileMicros(99), this.getMaxMicros());
+
+    }
+
+}
@@ -1,7 +1,9 @@
 package com.jgm.lineside.traindetection;
 
-import java.util.HashMap;
-import java.util.Random;
+import com.jgm.lineside.AssetRegistry;
+import com.jgm.lineside.scheduling.Activities;
+import com.jgm.lineside.scheduling.TimingWheel;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class provides the physical representation of a train detection section.
@@ -12,14 +14,15 @@ import java.util.Random;
 public class TrainDetection {
     
     private final String identity; // The identity of the points (without the TC prefix.)
+    private final int handle; // The compact handle of the section, used when reporting its state to the Remote Interlocking.
     private DetectionStatus detectionStatus; // The DetectionStatus (CLEAR or OCCUPIED).
     private FailureStatus failureStatus; // Member to hold the FailureStatus of the points.
     private final TrainDetectionType type; // The type of train detection section - TC or AC.
     private Boolean shuntedTrack = false; // A flag to indicate if the TD Section has been 'shunted'.
     private Boolean trainOccupyingSection = false; // A flag to indication if a train is physically occupying the TD Section.
-    private Boolean intermittentTrackCircuitFailure = false; // A flag to indicate if an intermittent track circuit failure has been set.
-    private final static HashMap <String, Integer> DETECTION_HM = new HashMap <>(); // Map to store each Train Detection Index and Signal Identity.
-    private static int DetectionTally = 0; // A static class variable to contain an integer regarding how many Train Detection Sections have been created.
+    private volatile Boolean intermittentTrackCircuitFailure = false; // A flag to indicate if an intermittent track circuit failure has been set.
+    private volatile TimingWheel.Timeout intermittentFailureTimeout; // The next change of the detection status, whilst an intermittent failure is set.
+    private volatile Object intermittentFailure; // A token for the intermittent failure currently set, or null; each failure set is given a new one.
     
     /**
      * This is the constructor method for a Train Detection Object.
@@ -32,8 +35,7 @@ public class TrainDetection {
         this.type = type;
         this.detectionStatus = DetectionStatus.CLEAR;
         this.failureStatus = FailureStatus.NORMAL;
-        TrainDetection.DETECTION_HM.put(this.identity,TrainDetection.DetectionTally);
-        TrainDetection.DetectionTally ++;
+        this.handle = AssetRegistry.register(TrainDetection.class, null, this.identity, this);
     }
     
     /**
@@ -43,14 +45,23 @@ public class TrainDetection {
     * This method is required by the Technicians Interface and Interlocking Components.
     * 
     * @param identity a <code>String</code> indicating the identity of the points.
-    * @return <code>integer</code> representing the array index of the TD object within the array.
+    * @return <code>integer</code> representing the array index of the TD object within the array, or -1 if there is no such section.
     */
     public static int returnDetectionIndex(String identity) {
         
-        return TrainDetection.DETECTION_HM.get(identity);
+        return AssetRegistry.getHandle(TrainDetection.class, null, identity);
             
     }
     
+    /**
+     * This method returns a Train Detection object from its identity.
+     * @param identity a <code>String</code> indicating the identity of the section.
+     * @return <code>TrainDetection</code> The Train Detection object, or <i>'null'</i> if there is no such section.
+     */
+    public static TrainDetection getDetectionObject(String identity) {
+        return AssetRegistry.find(TrainDetection.class, null, identity);
+    }
+    
     /**
      * This method is used to simulate the technician 'shunting' the train detection section.
      * @param shunt A <code>Boolean</code> - <i>true</i> indicates shunt, <i>false</i> indicates clear.
@@ -115,29 +126,38 @@ public class TrainDetection {
     public void setIntermittentTrackCircuitFailure() {
         if (this.validateCondition("setIntermittentTrackCircuitFailure")) {
             this.intermittentTrackCircuitFailure = true;
-            new Thread(() -> {
-                do {
-                    try {
-                        Random rand = new Random();
-                        Thread.sleep(rand.nextInt(9999));
-                        if (this.detectionStatus == DetectionStatus.CLEAR) {
-                            this.detectionStatus = DetectionStatus.OCCUPIED;
-                        } else {
-                            if (!this.trainOccupyingSection) {
-                                this.detectionStatus = DetectionStatus.CLEAR;
-                            }
-                        }
-                            System.out.println(this.detectionStatus);
-                        } catch (InterruptedException ex) {        
-                    }
-                } while (this.intermittentTrackCircuitFailure);    
-            }).start(); 
+            Object failure = new Object();
+            this.intermittentFailure = failure;
+            this.scheduleIntermittentFailure(failure);
         }
     }
     
+    // This method schedules the next change of the detection status whilst the section has the given intermittent failure.
+    private void scheduleIntermittentFailure(Object failure) {
+        this.intermittentFailureTimeout = Activities.schedule(String.format ("IntermittentFailure-%s", this.identity), 
+            ThreadLocalRandom.current().nextInt(9999), () -> {
+                if (this.intermittentFailure != failure) {
+                    return; // The failure was restored whilst waiting, and perhaps set again with a new token.
+                }
+                if (this.detectionStatus == DetectionStatus.CLEAR) {
+                    this.detectionStatus = DetectionStatus.OCCUPIED;
+                } else {
+                    if (!this.trainOccupyingSection) {
+                        this.detectionStatus = DetectionStatus.CLEAR;
+                    }
+                }
+                this.scheduleIntermittentFailure(failure);
+            });
+    }
+    
     public void restoreIntermittentTrackCircuitFailure () {
         if (this.validateCondition("restoreIntermittentTrackCircuitFailure")) {
             this.intermittentTrackCircuitFailure = false;
+            this.intermittentFailure = null;
+            TimingWheel.Timeout timeout = this.intermittentFailureTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
             if (this.failureStatus == FailureStatus.NORMAL) {
                 if (!this.trainOccupyingSection) {
                     this.detectionStatus = DetectionStatus.CLEAR;
@@ -220,6 +240,14 @@ public class TrainDetection {
         return this.identity;
     }
     
+    /**
+     * This method returns the handle of the section; a small integer, unique amongst sections, that identifies it to the Remote Interlocking.
+     * @return <code>Integer</code> The handle of the section.
+     */
+    public int getHandle() {
+        return this.handle;
+    }
+    
     public TrainDetectionType getType() {
         return this.type;
     }
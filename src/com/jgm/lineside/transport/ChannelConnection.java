@@ -0,0 +1,266 @@
+package com.jgm.lineside.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This Class provides a single non-blocking connection served by the SelectorTransport.
+ * <p>
+ * Each connection has a direct ByteBuffer for reading and one for writing, allocated once and reused for the life of the
+ * connection. Received bytes are split into frames using the 2 byte length prefix written by writeUTF (and by binary frames),
+ * and each frame is passed to the FrameListener. Outgoing bytes are placed in the write buffer by the OutputStream returned
+ * from getOutputStream, and written to the channel by the SelectorTransport Thread when the stream is flushed.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class ChannelConnection {
+
+    private static final int MAX_FRAME_LENGTH = 65535; // The largest frame that can follow a 2 byte length prefix.
+    private static final int BUFFER_BYTES = 131072; // The size of the read and write buffers.
+
+    private final SocketChannel channel; // The connected channel.
+    private final FrameListener listener; // Informed of each frame received, and when the connection is lost.
+    private final String name; // The name of the connection, for diagnostics.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES); // Bytes received but not yet passed on as frames.
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES); // Bytes waiting to be written to the channel.
+    private final byte[] frame = new byte[MAX_FRAME_LENGTH]; // The buffer each received frame is copied into.
+    private final AtomicBoolean writeRequested = new AtomicBoolean(false); // Set whilst the connection is waiting for the SelectorTransport to write.
+    private final AtomicBoolean lost = new AtomicBoolean(false); // Set once the FrameListener has been told the connection is lost.
+    private volatile boolean closed = false; // A flag to indicate the connection has been closed.
+    private SelectionKey key; // The key of the channel, once registered with the Selector.
+    private final SelectorTransport transport; // The transport serving the connection.
+
+    /**
+     * This is the Constructor Method for a ChannelConnection object; it is created by SelectorTransport.register.
+     */
+    ChannelConnection (SelectorTransport transport, SocketChannel channel, FrameListener listener, String name) {
+
+        this.transport = transport;
+        this.channel = channel;
+        this.listener = listener;
+        this.name = name;
+
+    }
+
+    /**
+     * This method returns an OutputStream that writes to the connection.
+     *
+     * Bytes written are held in the write buffer until the stream is flushed; if the buffer is full the calling Thread waits
+     * for the SelectorTransport to write to the channel.
+     * @return <code>OutputStream</code> The stream.
+     */
+    public OutputStream getOutputStream () {
+
+        return new OutputStream() {
+
+            @Override
+            public void write (int b) throws IOException {
+                this.write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write (byte[] bytes, int offset, int length) throws IOException {
+                ChannelConnection.this.append(bytes, offset, length);
+            }
+
+            @Override
+            public void flush () throws IOException {
+                ChannelConnection.this.requestWrite();
+            }
+
+            @Override
+            public void close () {
+                ChannelConnection.this.close();
+            }
+
+        };
+
+    }
+
+    /**
+     * This method closes the connection. The FrameListener is not informed, as the connection was closed deliberately.
+     */
+    public void close () {
+
+        this.closed = true;
+        this.lost.set(true);
+
+        try {
+            this.channel.close();
+        } catch (IOException ex) {}
+
+        synchronized (this.writeBuffer) {
+            this.writeBuffer.notifyAll(); // Release any Thread waiting for room in the write buffer.
+        }
+
+    }
+
+    /**
+     * This method returns the closed status of the connection.
+     * @return <code>Boolean</code> <i>'true'</i> if the connection has been closed, otherwise <i>'false'</i>.
+     */
+    public boolean isClosed () {
+        return this.closed;
+    }
+
+    @Override
+    public String toString () {
+        return this.name;
+    }
+
+    /**
+     * This method places bytes in the write buffer, waiting for room if necessary.
+     */
+    private void append (byte[] bytes, int offset, int length) throws IOException {
+
+        synchronized (this.writeBuffer) {
+
+            while (length > 0) {
+
+                if (this.closed) {
+                    throw new IOException(String.format ("The connection %s is closed.", this.name));
+                }
+
+                int count = Math.min(length, this.writeBuffer.remaining());
+
+                if (count == 0) {
+                    this.requestWrite(); // The buffer is full; have the SelectorTransport empty it.
+                    try {
+                        this.writeBuffer.wait(100);
+                    } catch (InterruptedException ex) {
+                        throw new IOException("Interrupted whilst waiting to write.");
+                    }
+                    continue;
+                }
+
+                this.writeBuffer.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+
+            }
+        }
+
+    }
+
+    /**
+     * This method asks the SelectorTransport Thread to write the contents of the write buffer to the channel.
+     */
+    private void requestWrite () {
+
+        if (this.writeRequested.compareAndSet(false, true)) {
+            this.transport.requestWrite(this);
+        }
+
+    }
+
+    /**
+     * This method returns the channel of the connection.
+     */
+    SocketChannel getChannel () {
+        return this.channel;
+    }
+
+    /**
+     * This method is called by the SelectorTransport Thread once the channel has been registered.
+     */
+    void registered (SelectionKey selectionKey) {
+        this.key = selectionKey;
+    }
+
+    /**
+     * This method is called by the SelectorTransport Thread when the channel can be read; it passes on each complete frame.
+     */
+    void read () {
+
+        try {
+
+            if (this.channel.read(this.readBuffer) < 0) {
+                this.fail();
+                return;
+            }
+
+        } catch (IOException ex) {
+            this.fail();
+            return;
+        }
+
+        this.readBuffer.flip();
+
+        while (this.readBuffer.remaining() >= 2) {
+
+            int length = ((this.readBuffer.get(this.readBuffer.position()) & 0xFF) << 8)
+                | (this.readBuffer.get(this.readBuffer.position() + 1) & 0xFF);
+
+            if (this.readBuffer.remaining() < 2 + length) {
+                break; // The rest of the frame has not arrived yet.
+            }
+
+            this.readBuffer.position(this.readBuffer.position() + 2);
+            this.readBuffer.get(this.frame, 0, length);
+
+            try {
+                this.listener.frameReceived(this.frame, length);
+            } catch (RuntimeException ex) {
+                // A frame that can not be processed must not stop the other connections being served.
+            }
+
+        }
+
+        this.readBuffer.compact();
+
+    }
+
+    /**
+     * This method is called by the SelectorTransport Thread to write the contents of the write buffer to the channel.
+     *
+     * If the channel does not accept everything, the connection registers an interest in the channel becoming writable.
+     */
+    void write () {
+
+        synchronized (this.writeBuffer) {
+
+            this.writeRequested.set(false);
+
+            if (this.closed || this.key == null) {
+                return;
+            }
+
+            try {
+
+                this.writeBuffer.flip();
+                this.channel.write(this.writeBuffer);
+                boolean finished = !this.writeBuffer.hasRemaining();
+                this.writeBuffer.compact();
+
+                this.key.interestOps(finished ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+            } catch (IOException ex) {
+                this.fail();
+            }
+
+            this.writeBuffer.notifyAll(); // There may be room for a waiting writer.
+
+        }
+
+    }
+
+    /**
+     * This method closes the connection following an error, or the remote end closing it, and informs the FrameListener.
+     */
+    private void fail () {
+
+        boolean inform = this.lost.compareAndSet(false, true);
+        this.close();
+
+        if (inform) {
+            this.listener.connectionLost();
+        }
+
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.jgm.lineside.transport;
+
+/**
+ * This interface defines the methods called by the SelectorTransport Thread when a connection receives a frame, or is lost.
+ * <p>
+ * Both methods are called on the SelectorTransport Thread, which serves every connection; they must not block. Anything
+ * that might, such as logging (which may itself wait for the SelectorTransport Thread to write), must be handed to another Thread.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public interface FrameListener {
+
+    /**
+     * This method is called for each complete frame received.
+     *
+     * The buffer is reused for the next frame, so the frame must be decoded (or copied) before this method returns.
+     * @param frame <code>byte[]</code> The buffer holding the frame, without its 2 byte length prefix.
+     * @param length <code>Integer</code> The length of the frame.
+     */
+    void frameReceived (byte[] frame, int length);
+
+    /**
+     * This method is called once, when the connection is closed by the remote end or fails.
+     */
+    void connectionLost ();
+
+}
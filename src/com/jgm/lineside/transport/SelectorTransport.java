@@ -0,0 +1,134 @@
+package com.jgm.lineside.transport;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This Class provides a non-blocking transport that serves every Socket connection from a single I/O Thread.
+ * <p>
+ * Connections are registered with a single Selector. The SelectorTransport Thread reads whatever each connection has
+ * received, passes complete frames to that connection's FrameListener, and writes each connection's buffered output when
+ * it is flushed. Registrations and write requests made by other Threads are queued and the Selector is woken, so only
+ * the SelectorTransport Thread ever touches the Selector or a SelectionKey.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public final class SelectorTransport {
+
+    private static SelectorTransport instance = null; // The single SelectorTransport, created when first required.
+
+    private final Selector selector; // The Selector that serves every connection.
+    private final ConcurrentLinkedQueue <ChannelConnection> registrations = new ConcurrentLinkedQueue<>(); // Connections waiting to be registered.
+    private final ConcurrentLinkedQueue <ChannelConnection> writes = new ConcurrentLinkedQueue<>(); // Connections waiting for their output to be written.
+
+    /**
+     * This method returns the SelectorTransport, starting its Thread the first time it is called.
+     * @return <code>SelectorTransport</code> The transport.
+     * @throws IOException if the Selector can not be opened.
+     */
+    public static synchronized SelectorTransport getInstance () throws IOException {
+
+        if (instance == null) {
+            instance = new SelectorTransport();
+        }
+
+        return instance;
+
+    }
+
+    /**
+     * This is the Constructor Method for the SelectorTransport object; it opens the Selector and starts the I/O Thread.
+     */
+    private SelectorTransport () throws IOException {
+
+        this.selector = Selector.open();
+
+        Thread ioThread = new Thread(this::serve);
+        ioThread.setName("SelectorTransport-Thread");
+        ioThread.setDaemon(true);
+        ioThread.start();
+
+    }
+
+    /**
+     * This method adds a connected channel to the transport.
+     * @param channel <code>SocketChannel</code> The connected channel; it is switched to non-blocking mode.
+     * @param listener <code>FrameListener</code> Informed of each frame received, and if the connection is lost.
+     * @param name <code>String</code> The name of the connection, for diagnostics.
+     * @return <code>ChannelConnection</code> The connection, used to write to the channel.
+     * @throws IOException if the channel can not be switched to non-blocking mode.
+     */
+    public ChannelConnection register (SocketChannel channel, FrameListener listener, String name) throws IOException {
+
+        channel.configureBlocking(false);
+        ChannelConnection connection = new ChannelConnection(this, channel, listener, name);
+        this.registrations.add(connection);
+        this.selector.wakeup();
+        return connection;
+
+    }
+
+    /**
+     * This method queues a request for the SelectorTransport Thread to write a connection's buffered output.
+     */
+    void requestWrite (ChannelConnection connection) {
+
+        this.writes.add(connection);
+        this.selector.wakeup();
+
+    }
+
+    /**
+     * This method is run by the SelectorTransport Thread; it serves every connection until the LineSide Module stops.
+     */
+    private void serve () {
+
+        while (true) {
+
+            try {
+                this.selector.select();
+            } catch (IOException ex) {
+                continue;
+            }
+
+            ChannelConnection connection;
+
+            while ((connection = this.registrations.poll()) != null) {
+                try {
+                    connection.registered(connection.isClosed() ? null
+                        : connection.getChannel().register(this.selector, SelectionKey.OP_READ, connection));
+                    connection.write(); // Write anything buffered before the channel was registered.
+                } catch (ClosedChannelException ex) {}
+            }
+
+            while ((connection = this.writes.poll()) != null) {
+                connection.write();
+            }
+
+            Iterator <SelectionKey> keys = this.selector.selectedKeys().iterator();
+
+            while (keys.hasNext()) {
+
+                SelectionKey key = keys.next();
+                keys.remove();
+                connection = (ChannelConnection) key.attachment();
+
+                if (key.isValid() && key.isReadable()) {
+                    connection.read();
+                }
+
+                if (key.isValid() && key.isWritable()) {
+                    connection.write();
+                }
+            }
+        }
+
+    }
+
+}
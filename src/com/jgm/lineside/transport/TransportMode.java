@@ -0,0 +1,46 @@
+package com.jgm.lineside.transport;
+
+/**
+ * This Enumeration defines the ways in which the Socket connections to the Remote Interlocking and DataLogger are served.
+ * <p>
+ * The mode is selected with the system property lineside.transport, e.g. -Dlineside.transport=SELECTOR.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public enum TransportMode {
+
+    /**
+     * Blocking Socket streams; each connection has its own reader Thread (the default).
+     */
+    BLOCKING,
+
+    /**
+     * Non-blocking SocketChannels, all served by the single SelectorTransport Thread.
+     */
+    SELECTOR;
+
+    private static final TransportMode CONFIGURED = fromProperty(); // The mode selected when the LineSide Module started.
+
+    /**
+     * This method returns the transport mode selected when the LineSide Module started.
+     * @return <code>TransportMode</code> The transport mode.
+     */
+    public static TransportMode getConfigured () {
+        return CONFIGURED;
+    }
+
+    /**
+     * This method reads the transport mode from the system property, falling back to BLOCKING.
+     */
+    private static TransportMode fromProperty () {
+
+        try {
+            return TransportMode.valueOf(System.getProperty("lineside.transport", BLOCKING.toString()).toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return BLOCKING;
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.jgm.lineside.interlocking;
+
+import com.jgm.lineside.AssetKind;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the AssetStateLog used to resynchronise the Remote Interlocking.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class AssetStateLogTest {
+
+    // This method records a state change for a set of points, stamped with the next version, and returns it.
+    private static Message change (AssetStateLog log, int handle, String position) {
+
+        Message message = new Message(MessageType.STATE_CHANGE, String.format ("POINTS.%d.%s", handle, position), 0,
+            AssetKind.POINTS, handle, 0, 0, log.nextVersion());
+        log.record(handle, message);
+        return message;
+
+    }
+
+    @Test
+    public void testVersionsIncrease () {
+
+        AssetStateLog log = new AssetStateLog();
+        long first = log.getVersion();
+
+        assertEquals(first + 1, log.nextVersion());
+        assertEquals(first + 2, log.nextVersion());
+        assertEquals(first + 2, log.getVersion());
+
+    }
+
+    @Test
+    public void testOnlyAssetsChangedSinceTheVersionAreResent () {
+
+        AssetStateLog log = new AssetStateLog();
+        change(log, 1, "NORMAL");
+        change(log, 2, "NORMAL");
+        long held = log.getVersion(); // The Remote Interlocking holds both sets of points.
+        Message reversed = change(log, 2, "REVERSE");
+        Message third = change(log, 3, "NORMAL");
+
+        List <Message> changed = log.changedSince(held);
+
+        assertEquals(2, changed.size());
+        assertTrue(changed.contains(reversed));
+        assertTrue(changed.contains(third));
+        assertTrue(log.changedSince(log.getVersion()).isEmpty());
+
+    }
+
+    @Test
+    public void testOnlyTheLatestStateOfEachAssetIsHeld () {
+
+        AssetStateLog log = new AssetStateLog();
+        long start = log.getVersion();
+        change(log, 1, "NORMAL");
+        change(log, 1, "REVERSE");
+        Message latest = change(log, 1, "NORMAL");
+
+        List <Message> changed = log.changedSince(start);
+
+        assertEquals(1, changed.size());
+        assertSame(latest, changed.get(0));
+
+    }
+
+    @Test
+    public void testOlderStateRecordedLateIsIgnored () {
+
+        AssetStateLog log = new AssetStateLog();
+        long start = log.getVersion();
+        Message older = new Message(MessageType.STATE_CHANGE, "POINTS.1.NORMAL", 0, AssetKind.POINTS, 1, 0, 0, log.nextVersion());
+        Message newer = change(log, 1, "REVERSE");
+        log.record(1, older); // Recorded after the newer state, e.g. by a slower Thread.
+
+        assertSame(newer, log.changedSince(start).get(0));
+
+    }
+
+    @Test
+    public void testResynchronisationNeedsAVersionFromThisRun () {
+
+        AssetStateLog log = new AssetStateLog();
+        long first = log.getVersion();
+        change(log, 1, "NORMAL");
+
+        assertTrue(log.canResynchronise(first));
+        assertTrue(log.canResynchronise(log.getVersion()));
+        assertFalse("Issued before the LineSide Module restarted", log.canResynchronise(first - 1));
+        assertFalse("Not yet issued", log.canResynchronise(log.getVersion() + 1));
+
+    }
+
+}
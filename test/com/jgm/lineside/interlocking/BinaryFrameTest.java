@@ -0,0 +1,118 @@
+package com.jgm.lineside.interlocking;
+
+import com.jgm.lineside.AssetKind;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the encoding and decoding of binary frames.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class BinaryFrameTest {
+
+    private static final String SENDER = "LINESIDE_01"; // The identity of the module sending the frames.
+
+    // This method returns a state change for a set of points with the given handle.
+    private static Message stateChange (int handle) {
+
+        Message message = new Message(MessageType.STATE_CHANGE, "POINTS.994.REVERSE", 0,
+            AssetKind.POINTS, handle, 1, 2, 0x0123456789ABCDEFL);
+        message.setSequence(4000000000L);
+        return message;
+
+    }
+
+    // This method reads an unsigned 4 byte big-endian value from a frame.
+    private static long readInt (byte[] frame, int offset) {
+        return ((frame[offset] & 0xFFL) << 24) | ((frame[offset + 1] & 0xFF) << 16) | ((frame[offset + 2] & 0xFF) << 8) | (frame[offset + 3] & 0xFF);
+    }
+
+    @Test
+    public void testFrameRoundTrips () {
+
+        byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH];
+        int length = BinaryFrame.encode(frame, ProtocolVersion.BINARY, SENDER, stateChange(7), true);
+        InboundMessage record = new InboundMessage();
+
+        assertEquals(BinaryFrame.HEADER_LENGTH + "POINTS.994.REVERSE".length() + BinaryFrame.CHECKSUM_LENGTH, length);
+        assertTrue(BinaryFrame.decode(frame, length, SENDER, record));
+        assertEquals(MessageType.STATE_CHANGE, record.getType());
+        assertEquals(4000000000L, record.getSequence()); // The sequence is unsigned.
+        assertEquals(RequestVerb.POINTS, record.getVerb());
+        assertEquals(3, record.getFieldCount());
+        assertEquals(994, record.getNumber(1));
+        assertEquals("REVERSE", record.getField(2));
+
+    }
+
+    @Test
+    public void testHeaderFields () {
+
+        byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH];
+        BinaryFrame.encode(frame, ProtocolVersion.SNAPSHOT, SENDER, stateChange(70000), true);
+
+        assertEquals(BinaryFrame.MAGIC, frame[0]);
+        assertEquals("The version agreed is sent", ProtocolVersion.SNAPSHOT.getVersion(), frame[1]);
+        assertEquals(MessageType.STATE_CHANGE.ordinal(), frame[2]);
+        assertEquals(AssetKind.POINTS.ordinal() + 1, frame[22]);
+        assertEquals("Handles above 65535 are not truncated", 70000, readInt(frame, 23));
+        assertEquals(1, frame[27]);
+        assertEquals(2, frame[28]);
+        assertEquals(0x01234567L, readInt(frame, 29));
+        assertEquals(0x89ABCDEFL, readInt(frame, 33));
+
+    }
+
+    @Test
+    public void testBodyIsLeftOutOnceTheHandleIsKnown () {
+
+        byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH];
+        int length = BinaryFrame.encode(frame, ProtocolVersion.BINARY, SENDER, stateChange(7), false);
+
+        assertEquals(BinaryFrame.HEADER_LENGTH + BinaryFrame.CHECKSUM_LENGTH, length);
+        assertFalse("Frames without a body are not accepted from the Remote Interlocking",
+            BinaryFrame.decode(frame, length, SENDER, new InboundMessage()));
+
+    }
+
+    @Test
+    public void testCorruptFrameIsRejected () {
+
+        byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH];
+        int length = BinaryFrame.encode(frame, ProtocolVersion.BINARY, SENDER, stateChange(7), true);
+
+        for (int i = 1; i < length; i++) {
+            frame[i] ^= 0x10;
+            assertFalse(String.format ("A change to byte %d was not detected", i), BinaryFrame.decode(frame, length, SENDER, new InboundMessage()));
+            frame[i] ^= 0x10;
+        }
+
+        assertTrue(BinaryFrame.decode(frame, length, SENDER, new InboundMessage()));
+
+    }
+
+    @Test
+    public void testTruncatedFrameIsRejected () {
+
+        byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH];
+        int length = BinaryFrame.encode(frame, ProtocolVersion.BINARY, SENDER, stateChange(7), true);
+
+        assertFalse(BinaryFrame.decode(frame, length - 1, SENDER, new InboundMessage()));
+        assertFalse(BinaryFrame.decode(frame, BinaryFrame.HEADER_LENGTH, SENDER, new InboundMessage()));
+
+    }
+
+    @Test
+    public void testFrameFromAnotherSenderIsRejected () {
+
+        byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH];
+        int length = BinaryFrame.encode(frame, ProtocolVersion.BINARY, SENDER, stateChange(7), true);
+
+        assertFalse(BinaryFrame.decode(frame, length, "LINESIDE_02", new InboundMessage()));
+        assertFalse(BinaryFrame.decode(frame, length, "LINESIDE_0", new InboundMessage()));
+
+    }
+
+}
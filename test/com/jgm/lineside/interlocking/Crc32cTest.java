@@ -0,0 +1,62 @@
+package com.jgm.lineside.interlocking;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the CRC-32C checksum against the published check values (RFC 3720, appendix B.4).
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class Crc32cTest {
+
+    @Test
+    public void testCheckValue () {
+
+        byte[] bytes = "123456789".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0xE3069283, Crc32c.checksum(bytes, 0, bytes.length));
+
+    }
+
+    @Test
+    public void testThirtyTwoZeros () {
+        assertEquals(0x8A9136AA, Crc32c.checksum(new byte[32], 0, 32));
+    }
+
+    @Test
+    public void testThirtyTwoOnes () {
+
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, (byte) 0xFF);
+        assertEquals(0x62A8AB43, Crc32c.checksum(bytes, 0, 32));
+
+    }
+
+    @Test
+    public void testIncreasingValues () {
+
+        byte[] bytes = new byte[32];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        assertEquals(0x46DD794E, Crc32c.checksum(bytes, 0, 32));
+
+    }
+
+    @Test
+    public void testOnlyTheGivenRangeIsCovered () {
+
+        byte[] bytes = "xx123456789yy".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0xE3069283, Crc32c.checksum(bytes, 2, 9));
+
+    }
+
+    @Test
+    public void testEmptyRange () {
+        assertEquals(0, Crc32c.checksum(new byte[4], 0, 0));
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.jgm.lineside.interlocking;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the validation and decoding of frames received from the Remote Interlocking.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class FrameDecoderTest {
+
+    private static final String SENDER = "INTERLOCKING_1"; // The identity of the Remote Interlocking.
+
+    // This method returns a text frame, with the correct hash, followed by the given trailing fields.
+    private static String frame (String type, String body, String... trailing) {
+
+        String hashed = String.format ("%s|%s|%s", SENDER, type, body);
+        StringBuilder frame = new StringBuilder(hashed).append('|').append(hashed.hashCode());
+
+        for (String field : trailing) {
+            frame.append('|').append(field);
+        }
+
+        return frame.toString();
+
+    }
+
+    // This method decodes a frame, returning the record, or 'null' if the frame is not valid.
+    private static InboundMessage decode (String frame) {
+
+        byte[] bytes = frame.getBytes(StandardCharsets.ISO_8859_1);
+        InboundMessage record = new InboundMessage();
+        return FrameDecoder.decode(bytes, bytes.length, SENDER, record) ? record : null;
+
+    }
+
+    @Test
+    public void testBaselineTextFrame () {
+
+        InboundMessage record = decode(frame("REQUEST", "POINTS.994.REVERSE", "MESSAGE_END"));
+
+        assertNotNull(record);
+        assertEquals(MessageType.REQUEST, record.getType());
+        assertEquals(RequestVerb.POINTS, record.getVerb());
+        assertEquals(0, record.getSequence());
+        assertEquals(3, record.getFieldCount());
+        assertEquals(994, record.getNumber(1));
+        assertEquals("REVERSE", record.getField(2));
+
+    }
+
+    @Test
+    public void testSequencedTextFrame () {
+
+        InboundMessage record = decode(frame("ACK", "SEQ.41", "1234", "MESSAGE_END"));
+
+        assertNotNull(record);
+        assertEquals(MessageType.ACK, record.getType());
+        assertEquals(RequestVerb.SEQ, record.getVerb());
+        assertEquals(1234, record.getSequence());
+        assertEquals(41, record.getNumber(1));
+
+    }
+
+    @Test
+    public void testHashAcknowledgement () {
+
+        InboundMessage record = decode(frame("ACK", "1718221310", "MESSAGE_END"));
+
+        assertNotNull(record);
+        assertNull("A hash acknowledgement has no verb", record.getVerb());
+        assertEquals(1, record.getFieldCount());
+        assertEquals(1718221310L, record.getNumber(0));
+
+    }
+
+    @Test
+    public void testHashOfEitherSignIsAccepted () {
+
+        Boolean negative = false;
+        Boolean positive = false;
+
+        for (int i = 0; i < 100 && !(negative && positive); i++) {
+            String frame = frame("REQUEST", "POINTS." + i + ".NORMAL", "MESSAGE_END");
+            assertNotNull(frame, decode(frame));
+            negative |= frame.contains("|-");
+            positive |= !frame.contains("|-");
+        }
+
+        assertTrue(negative && positive);
+
+    }
+
+    @Test
+    public void testWrongHashIsRejected () {
+
+        String frame = String.format ("%s|REQUEST|POINTS.994.REVERSE|%d|MESSAGE_END", SENDER,
+            String.format ("%s|REQUEST|POINTS.994.NORMAL", SENDER).hashCode());
+        assertNull(decode(frame));
+
+    }
+
+    @Test
+    public void testFrameFromAnotherSenderIsRejected () {
+
+        String body = "POINTS.994.REVERSE";
+        String other = "INTERLOCKING_2";
+        String frame = String.format ("%s|REQUEST|%s|%d|MESSAGE_END", other, body,
+            String.format ("%s|REQUEST|%s", other, body).hashCode());
+        assertNull(decode(frame));
+
+    }
+
+    @Test
+    public void testMalformedFramesAreRejected () {
+
+        assertNull("Unknown type", decode(frame("UNKNOWN", "POINTS.994.REVERSE", "MESSAGE_END")));
+        assertNull("No MESSAGE_END", decode(frame("REQUEST", "POINTS.994.REVERSE")));
+        assertNull("Wrong MESSAGE_END", decode(frame("REQUEST", "POINTS.994.REVERSE", "MESSAGE_ENDS")));
+        assertNull("Body too short", decode(frame("REQUEST", "POI", "MESSAGE_END")));
+        assertNull("Character not permitted", decode(frame("REQUEST", "POINTS 994", "MESSAGE_END")));
+        assertNull("Sequence not a number", decode(frame("REQUEST", "POINTS.994.REVERSE", "12x", "MESSAGE_END")));
+        assertNull("Empty frame", decode(""));
+
+    }
+
+    @Test
+    public void testBinaryFramesArePassedToBinaryFrame () {
+
+        Message message = new Message(MessageType.REQUEST, "POINTS.994.REVERSE", 0);
+        message.setSequence(9);
+        byte[] frame = new byte[BinaryFrame.MAX_FRAME_LENGTH];
+        int length = BinaryFrame.encode(frame, ProtocolVersion.BINARY, SENDER, message, true);
+        InboundMessage record = new InboundMessage();
+
+        assertTrue(FrameDecoder.decode(frame, length, SENDER, record));
+        assertEquals(RequestVerb.POINTS, record.getVerb());
+        assertEquals(9, record.getSequence());
+
+    }
+
+    @Test
+    public void testParseNumber () {
+
+        byte[] digits = "x123456789012345678901".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(123, FrameDecoder.parseNumber(digits, 1, 4));
+        assertEquals(123456789012345678L, FrameDecoder.parseNumber(digits, 1, 19));
+        assertEquals("More than 18 digits", -1, FrameDecoder.parseNumber(digits, 1, 20));
+        assertEquals("No digits", -1, FrameDecoder.parseNumber(digits, 1, 1));
+        assertEquals("Not a digit", -1, FrameDecoder.parseNumber(digits, 0, 3));
+
+    }
+
+}
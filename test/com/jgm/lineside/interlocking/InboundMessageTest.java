@@ -0,0 +1,70 @@
+package com.jgm.lineside.interlocking;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the reusable record of a message received from the Remote Interlocking.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class InboundMessageTest {
+
+    // This method returns a completed record holding the given body.
+    private static InboundMessage record (InboundMessage record, String body) {
+
+        record.reset();
+        for (byte b : body.getBytes(StandardCharsets.US_ASCII)) {
+            record.append(b);
+        }
+        record.complete(MessageType.REQUEST, 0);
+        return record;
+
+    }
+
+    @Test
+    public void testFieldsAreLocated () {
+
+        InboundMessage record = record(new InboundMessage(), "FAIL_LAMP.RED.CE.115");
+
+        assertEquals(RequestVerb.FAIL_LAMP, record.getVerb());
+        assertEquals(4, record.getFieldCount());
+        assertEquals("RED", record.getField(1));
+        assertEquals("CE", record.getField(2));
+        assertEquals(115, record.getNumber(3));
+
+    }
+
+    @Test
+    public void testEveryFieldOfALongRequestIsRecorded () {
+
+        StringBuilder body = new StringBuilder("GET_LAMP_MASKS");
+        for (int signal = 0; signal < 256; signal++) {
+            body.append(".CE.").append(signal);
+        }
+
+        InboundMessage record = record(new InboundMessage(), body.toString());
+
+        assertEquals(RequestVerb.GET_LAMP_MASKS, record.getVerb());
+        assertEquals(1 + 2 * 256, record.getFieldCount());
+        assertEquals("CE", record.getField(511));
+        assertEquals(255, record.getNumber(512));
+
+    }
+
+    @Test
+    public void testRecordIsReusable () {
+
+        InboundMessage record = new InboundMessage();
+        record(record, "GET_LAMP_MASKS.CE.1.CE.2.CE.3.CE.4.CE.5");
+        record(record, "POINTS.994.NORMAL");
+
+        assertEquals(RequestVerb.POINTS, record.getVerb());
+        assertEquals(3, record.getFieldCount());
+        assertEquals("NORMAL", record.getField(2));
+
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.jgm.lineside.interlocking;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the weighted round robin service of the LaneQueue.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class LaneQueueTest {
+
+    /**
+     * This Class provides a message that names its own lane.
+     */
+    private static final class Item implements Queueable {
+
+        private final MessageLane lane; // The lane of the message.
+        private long queuedAt; // The time the message was queued.
+
+        private Item (MessageLane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void setQueuedAt (long nanos) {
+            this.queuedAt = nanos;
+        }
+
+        @Override
+        public long getQueuedAt () {
+            return this.queuedAt;
+        }
+
+    }
+
+    // This method returns a queue whose messages are placed in the lane they name.
+    private static LaneQueue <Item> queue () {
+        return new LaneQueue<>("LaneQueueTest", 64, item -> item.lane);
+    }
+
+    @Test
+    public void testLanesAreServedByWeight () {
+
+        LaneQueue <Item> queue = queue();
+
+        for (MessageLane lane : MessageLane.values()) {
+            for (int i = 0; i < 20; i++) {
+                assertTrue(queue.offer(new Item(lane)));
+            }
+        }
+
+        // Each lane gives up its weight in messages before the next lane is served.
+        for (int round = 0; round < 2; round++) {
+            for (MessageLane lane : MessageLane.values()) {
+                for (int i = 0; i < lane.getWeight(); i++) {
+                    assertEquals(lane, queue.poll().lane);
+                }
+            }
+        }
+
+    }
+
+    @Test
+    public void testEmptyLanesAreSkipped () {
+
+        LaneQueue <Item> queue = queue();
+        queue.offer(new Item(MessageLane.BULK));
+        queue.offer(new Item(MessageLane.BULK));
+        queue.offer(new Item(MessageLane.ACK));
+
+        assertEquals(MessageLane.ACK, queue.poll().lane);
+        assertEquals(MessageLane.BULK, queue.poll().lane);
+        assertEquals(MessageLane.BULK, queue.poll().lane);
+        assertNull(queue.poll());
+
+    }
+
+    @Test
+    public void testMessagesKeepTheirOrderWithinALane () {
+
+        LaneQueue <Item> queue = queue();
+        Item[] items = new Item[10];
+
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item(MessageLane.STATE);
+            queue.offer(items[i]);
+        }
+
+        for (Item item : items) {
+            assertSame(item, queue.poll());
+        }
+
+    }
+
+    @Test
+    public void testFullLaneDoesNotBlockTheOthers () {
+
+        LaneQueue <Item> queue = new LaneQueue<>("LaneQueueTest", 2, item -> item.lane);
+
+        assertTrue(queue.offer(new Item(MessageLane.BULK)));
+        assertTrue(queue.offer(new Item(MessageLane.BULK)));
+        assertFalse(queue.offer(new Item(MessageLane.BULK)));
+        assertTrue(queue.offer(new Item(MessageLane.URGENT)));
+        assertEquals(1, queue.getRejectedCount());
+        assertEquals(3, queue.size());
+
+    }
+
+    @Test
+    public void testClearEmptiesEveryLane () {
+
+        LaneQueue <Item> queue = queue();
+
+        for (MessageLane lane : MessageLane.values()) {
+            queue.offer(new Item(lane));
+        }
+
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+
+    }
+
+}
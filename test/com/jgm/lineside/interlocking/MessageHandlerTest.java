@@ -0,0 +1,76 @@
+package com.jgm.lineside.interlocking;
+
+import com.jgm.lineside.AssetKind;
+import com.jgm.lineside.signals.SignalAspect;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the order in which the MessageHandler sends the STATE_CHANGE messages of an asset.
+ * <p>
+ * The tests run without STATE_CHANGE coalescing, which is disabled unless -Dlineside.coalesceStateChanges=true is given.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class MessageHandlerTest {
+
+    @Before
+    public void emptyTheOutgoingStack () {
+
+        while (MessageHandler.pollOutgoingMessage() != null) {}
+
+    }
+
+    // This method queues the aspect of an automatic signal.
+    private static void queueAspect (int handle, SignalAspect aspect) {
+
+        assertTrue(MessageHandler.addOutgoingStateChangeToStack(AssetKind.AUTOMATIC_SIGNAL, handle, aspect.ordinal(), 0,
+            String.format ("SIGNAL.CE.%d.%s", handle, aspect.toString())));
+
+    }
+
+    @Test
+    public void testSignalReplacedToDangerIsNotSentBeforeAnEarlierAspect () {
+
+        queueAspect(101, SignalAspect.GREEN);
+        queueAspect(101, SignalAspect.RED);
+
+        assertEquals(SignalAspect.GREEN.ordinal(), MessageHandler.pollOutgoingMessage().getStateA());
+        assertEquals(SignalAspect.RED.ordinal(), MessageHandler.pollOutgoingMessage().getStateA());
+        assertNull(MessageHandler.pollOutgoingMessage());
+
+    }
+
+    @Test
+    public void testSignalReplacedToDangerIsUrgentWhenNothingEarlierIsQueued () {
+
+        queueAspect(102, SignalAspect.GREEN);
+        queueAspect(103, SignalAspect.RED);
+
+        Message green = MessageHandler.pollOutgoingMessage();
+        Message red = MessageHandler.pollOutgoingMessage();
+        if (green.getAssetHandle() == 103) {
+            Message first = green;
+            green = red;
+            red = first;
+        }
+
+        assertEquals(MessageLane.STATE, green.getLane());
+        assertEquals(MessageLane.URGENT, red.getLane());
+
+    }
+
+    @Test
+    public void testSignalReplacedToDangerIsUrgentOnceTheEarlierAspectIsTaken () {
+
+        queueAspect(104, SignalAspect.GREEN);
+        assertEquals(MessageLane.STATE, MessageHandler.pollOutgoingMessage().getLane());
+
+        queueAspect(104, SignalAspect.RED);
+        assertEquals(MessageLane.URGENT, MessageHandler.pollOutgoingMessage().getLane());
+
+    }
+
+}
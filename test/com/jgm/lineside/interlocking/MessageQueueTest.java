@@ -0,0 +1,141 @@
+package com.jgm.lineside.interlocking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the MessageQueue.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class MessageQueueTest {
+
+    @Test
+    public void testCapacityIsRoundedUpToAPowerOfTwo () {
+
+        assertEquals(8, new MessageQueue<Integer>(5).getCapacity());
+        assertEquals(8, new MessageQueue<Integer>(8).getCapacity());
+        assertEquals(2, new MessageQueue<Integer>(1).getCapacity());
+
+    }
+
+    @Test
+    public void testMessagesAreReturnedInTheOrderQueued () {
+
+        MessageQueue <Integer> queue = new MessageQueue<>(8);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertEquals(5, queue.size());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+
+    }
+
+    @Test
+    public void testFullQueueRejectsMessages () {
+
+        MessageQueue <Integer> queue = new MessageQueue<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertFalse(queue.offer(4));
+        assertEquals(1, queue.getRejectedCount());
+        assertEquals(4, queue.getOfferedCount());
+        assertEquals(4, queue.getHighWaterMark());
+
+        assertEquals(Integer.valueOf(0), queue.poll()); // Freeing a slot makes room for one more.
+        assertTrue(queue.offer(4));
+
+    }
+
+    @Test
+    public void testSlotsAreReusedOnEachPassOfTheRing () {
+
+        MessageQueue <Integer> queue = new MessageQueue<>(4);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(-i));
+            assertEquals(Integer.valueOf(i), queue.poll());
+            assertEquals(Integer.valueOf(-i), queue.poll());
+        }
+
+        assertNull(queue.poll());
+
+    }
+
+    @Test
+    public void testPollIfOnlyRemovesAMatchingHead () {
+
+        MessageQueue <Integer> queue = new MessageQueue<>(4);
+        queue.offer(1);
+        queue.offer(2);
+
+        assertNull(queue.pollIf(i -> i == 2));
+        assertEquals(Integer.valueOf(1), queue.pollIf(i -> i == 1));
+        assertEquals(Integer.valueOf(2), queue.poll());
+
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentProducersKeepTheirOwnOrder () throws InterruptedException {
+
+        final int producers = 4;
+        final int messages = 20000;
+        MessageQueue <long[]> queue = new MessageQueue<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List <Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < messages; i++) {
+                    while (!queue.offer(new long[] {producer, i})) {
+                        Thread.yield(); // The queue is full; wait for the consumer.
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+
+        }
+
+        start.countDown();
+        long[] next = new long[producers];
+
+        for (int received = 0; received < producers * messages; received++) {
+            long[] message = queue.take();
+            assertEquals("Messages from one producer were reordered", next[(int) message[0]], message[1]);
+            next[(int) message[0]] ++;
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(queue.poll());
+        assertEquals(producers * messages, queue.getOfferedCount());
+
+    }
+
+}
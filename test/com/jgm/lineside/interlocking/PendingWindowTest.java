@@ -0,0 +1,146 @@
+package com.jgm.lineside.interlocking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the PendingWindow of messages awaiting acknowledgement.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class PendingWindowTest {
+
+    // This method returns a message to place in the window.
+    private static Message message (int number) {
+        return new Message(MessageType.STATE_CHANGE, String.format ("POINTS.%d.NORMAL", number), number);
+    }
+
+    @Test
+    public void testMessagesAreNumberedInTurn () throws InterruptedException {
+
+        PendingWindow window = new PendingWindow(8);
+
+        for (int i = 1; i <= 3; i++) {
+            Message message = message(i);
+            PendingWindow.Entry entry = window.register(message);
+            assertEquals(i, entry.sequence);
+            assertEquals(i, message.getSequence());
+            assertSame(entry, window.get(i));
+        }
+
+        assertEquals(3, window.size());
+
+    }
+
+    @Test
+    public void testSingleAcknowledgementClearsOneMessage () throws InterruptedException {
+
+        PendingWindow window = new PendingWindow(8);
+        window.register(message(1));
+        window.register(message(2));
+
+        assertEquals(2, window.remove(2).sequence);
+        assertNull(window.remove(2)); // Already acknowledged.
+        assertNull(window.get(2));
+        assertNotNull(window.get(1));
+        assertEquals(1, window.size());
+
+    }
+
+    @Test
+    public void testCumulativeAcknowledgementClearsEveryMessageUpToTheSequence () throws InterruptedException {
+
+        PendingWindow window = new PendingWindow(8);
+
+        for (int i = 1; i <= 6; i++) {
+            window.register(message(i));
+        }
+
+        window.remove(2); // A gap, already acknowledged on its own.
+        List <Long> cleared = new ArrayList<>();
+
+        assertEquals(3, window.removeUpTo(4, entry -> cleared.add(entry.sequence)));
+        assertEquals(Arrays.asList(1L, 3L, 4L), cleared);
+        assertEquals(2, window.size());
+        assertEquals(2, window.removeUpTo(100, entry -> {})); // Beyond the last sequence sent; only 5 and 6 remain.
+        assertEquals(0, window.size());
+
+    }
+
+    @Test
+    public void testWindowFillsAndEmptiesFromTheLowestSequence () throws InterruptedException {
+
+        PendingWindow window = new PendingWindow(4);
+
+        for (int i = 1; i <= 4; i++) {
+            window.register(message(i));
+        }
+
+        assertTrue(window.isFull());
+        window.remove(2);
+        assertTrue("The window only moves on when its lowest message is cleared", window.isFull());
+        window.remove(1);
+        assertFalse(window.isFull());
+
+    }
+
+    @Test
+    public void testAssignedMessagesAreNotTracked () {
+
+        PendingWindow window = new PendingWindow(2);
+
+        for (int i = 1; i <= 10; i++) {
+            Message message = message(i);
+            window.assign(message);
+            assertEquals(i, message.getSequence());
+        }
+
+        assertEquals(0, window.size());
+        assertFalse(window.isFull());
+
+    }
+
+    @Test(timeout = 5000)
+    public void testSenderWaitsForRoomInAFullWindow () throws InterruptedException {
+
+        PendingWindow window = new PendingWindow(2);
+        window.register(message(1));
+        window.register(message(2));
+
+        CountDownLatch registered = new CountDownLatch(1);
+        Thread sender = new Thread(() -> {
+            try {
+                window.register(message(3));
+                registered.countDown();
+            } catch (InterruptedException ex) {}
+        });
+        sender.start();
+
+        assertFalse(registered.await(200, TimeUnit.MILLISECONDS));
+        window.remove(1);
+        assertTrue(registered.await(2, TimeUnit.SECONDS));
+        sender.join();
+
+    }
+
+    @Test
+    public void testClearEmptiesTheWindow () throws InterruptedException {
+
+        PendingWindow window = new PendingWindow(2);
+        window.register(message(1));
+        window.register(message(2));
+        window.clear();
+
+        assertEquals(0, window.size());
+        assertFalse(window.isFull());
+        assertEquals(3, window.register(message(3)).sequence); // Sequence numbers carry on from where they were.
+
+    }
+
+}
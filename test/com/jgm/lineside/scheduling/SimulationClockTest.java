@@ -0,0 +1,119 @@
+package com.jgm.lineside.scheduling;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * This Class tests the SimulationClock in the DISCRETE_EVENT ClockMode.
+ * <p>
+ * The mode is read once, when the clock is first used; the tests are skipped if the clock is already running in the REAL mode.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class SimulationClockTest {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1); // A day of simulated time.
+
+    @BeforeClass
+    public static void selectDiscreteEventMode () {
+
+        System.setProperty("lineside.clock", ClockMode.DISCRETE_EVENT.toString());
+        assumeTrue(SimulationClock.getMode() == ClockMode.DISCRETE_EVENT);
+
+    }
+
+    @Test(timeout = 5000)
+    public void testSimulatedDayPassesWithoutWaiting () throws InterruptedException {
+
+        CountDownLatch run = new CountDownLatch(1);
+        long start = SimulationClock.currentTimeMillis();
+        long[] ranAt = new long[1];
+
+        SimulationClock.schedule(DAY_MILLIS, () -> {
+            ranAt[0] = SimulationClock.currentTimeMillis();
+            run.countDown();
+        });
+
+        run.await();
+        assertEquals(start + DAY_MILLIS, ranAt[0]);
+
+    }
+
+    @Test(timeout = 5000)
+    public void testTasksAreRunInOrderOfSimulatedTime () throws InterruptedException {
+
+        CountDownLatch run = new CountDownLatch(4);
+        List <String> order = new CopyOnWriteArrayList<>();
+
+        SimulationClock.schedule(0, () -> { // Scheduled from a task, so that none is run before all have been scheduled.
+            SimulationClock.schedule(3000, () -> { order.add("C"); run.countDown(); });
+            SimulationClock.schedule(1000, () -> { order.add("A"); run.countDown(); });
+            SimulationClock.schedule(2000, () -> { order.add("B1"); run.countDown(); });
+            SimulationClock.schedule(2000, () -> { order.add("B2"); run.countDown(); }); // Due at the same time; run in the order scheduled.
+        });
+
+        run.await();
+        assertEquals("[A, B1, B2, C]", order.toString());
+
+    }
+
+    @Test(timeout = 5000)
+    public void testTaskCanScheduleTheNextEvent () throws InterruptedException {
+
+        CountDownLatch run = new CountDownLatch(10);
+        long start = SimulationClock.currentTimeMillis();
+
+        SimulationClock.schedule(60000, new Runnable() {
+            @Override
+            public void run () {
+                run.countDown();
+                if (run.getCount() > 0) {
+                    SimulationClock.schedule(60000, this);
+                }
+            }
+        });
+
+        run.await();
+        assertTrue(SimulationClock.currentTimeMillis() - start >= TimeUnit.MINUTES.toMillis(10));
+
+    }
+
+    @Test(timeout = 5000)
+    public void testCancelledTaskIsNotRun () throws InterruptedException {
+
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        SimulationClock.schedule(0, () -> { // Scheduled from a task, so that it cannot be run before it is cancelled.
+            SimulationClock.schedule(1000, () -> cancelledRan.set(true)).cancel();
+            SimulationClock.schedule(2000, later::countDown);
+        });
+
+        later.await();
+        assertFalse(cancelledRan.get());
+
+    }
+
+    @Test(timeout = 5000)
+    public void testFailingTaskDoesNotStopTheClock () throws InterruptedException {
+
+        CountDownLatch later = new CountDownLatch(1);
+
+        SimulationClock.schedule(1000, () -> {
+            throw new IllegalStateException("A failing task");
+        });
+        SimulationClock.schedule(2000, later::countDown);
+
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+
+    }
+
+}
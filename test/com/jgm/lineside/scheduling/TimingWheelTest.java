@@ -0,0 +1,89 @@
+package com.jgm.lineside.scheduling;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the TimingWheel.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class TimingWheelTest {
+
+    @Test(timeout = 5000)
+    public void testTaskIsNeverRunEarly () throws InterruptedException {
+
+        TimingWheel wheel = new TimingWheel("TimingWheelTest", 5, 8);
+        CountDownLatch run = new CountDownLatch(1);
+        AtomicLong ranAt = new AtomicLong();
+        long scheduledAt = System.nanoTime();
+
+        wheel.schedule(50, () -> {
+            ranAt.set(System.nanoTime());
+            run.countDown();
+        });
+
+        run.await();
+        assertTrue(ranAt.get() - scheduledAt >= TimeUnit.MILLISECONDS.toNanos(50));
+
+    }
+
+    @Test(timeout = 5000)
+    public void testTaskBeyondOneTurnOfTheWheelWaitsForItsRound () throws InterruptedException {
+
+        TimingWheel wheel = new TimingWheel("TimingWheelTest", 5, 4); // One turn is 20ms.
+        CountDownLatch run = new CountDownLatch(1);
+        long scheduledAt = System.nanoTime();
+
+        wheel.schedule(120, run::countDown);
+
+        run.await();
+        assertTrue(System.nanoTime() - scheduledAt >= TimeUnit.MILLISECONDS.toNanos(120));
+        assertEquals(0, wheel.getOutstanding());
+
+    }
+
+    @Test(timeout = 5000)
+    public void testCancelledTaskIsNotRun () throws InterruptedException {
+
+        TimingWheel wheel = new TimingWheel("TimingWheelTest", 5, 8);
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        TimingWheel.Timeout timeout = wheel.schedule(20, () -> cancelledRan.set(true));
+        timeout.cancel();
+        wheel.schedule(60, later::countDown);
+
+        later.await();
+        assertTrue(timeout.isCancelled());
+        assertFalse(cancelledRan.get());
+
+    }
+
+    @Test(timeout = 5000)
+    public void testTasksAreRunInDeadlineOrder () throws InterruptedException {
+
+        TimingWheel wheel = new TimingWheel("TimingWheelTest", 5, 8);
+        CountDownLatch run = new CountDownLatch(2);
+        StringBuffer order = new StringBuffer();
+
+        wheel.schedule(100, () -> {
+            order.append('B');
+            run.countDown();
+        });
+        wheel.schedule(10, () -> {
+            order.append('A');
+            run.countDown();
+        });
+
+        run.await();
+        assertEquals("AB", order.toString());
+
+    }
+
+}
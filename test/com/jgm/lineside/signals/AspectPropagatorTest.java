@@ -0,0 +1,110 @@
+package com.jgm.lineside.signals;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the propagation of a change of aspect along a line of automatic signals.
+ * <p>
+ * Each test builds its own line, with its own signal prefix, as signals are registered for the life of the JVM.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class AspectPropagatorTest {
+
+    // This method builds a line of 4 aspect automatic signals, in rear of a controlled signal at danger.
+    private static AutomaticSignal[] line (String prefix, int length) {
+
+        new ControlledSignal(prefix, "0", SignalType.COLOUR_LIGHT_4);
+        AutomaticSignal[] signals = new AutomaticSignal[length];
+
+        for (int i = 0; i < length; i++) {
+            signals[i] = new AutomaticSignal(prefix, Integer.toString(i + 1), SignalType.COLOUR_LIGHT_4, prefix, Integer.toString(i));
+        }
+
+        return signals;
+
+    }
+
+    // This method asserts the aspect of each signal of a line, in order.
+    private static void assertAspects (AutomaticSignal[] signals, SignalAspect... aspects) {
+
+        for (int i = 0; i < aspects.length; i++) {
+            assertEquals(String.format ("Signal %d", i + 1), aspects[i], signals[i].getCurrentAspect());
+        }
+
+    }
+
+    @Test
+    public void testAspectsStepUpInRearOfASignalAtDanger () {
+
+        AutomaticSignal[] signals = line("PA", 5);
+        assertAspects(signals, SignalAspect.YELLOW, SignalAspect.DOUBLE_YELLOW, SignalAspect.GREEN, SignalAspect.GREEN, SignalAspect.GREEN);
+
+    }
+
+    @Test
+    public void testReplacingASignalIsPassedBackAlongTheLine () {
+
+        AutomaticSignal[] signals = line("PB", 6);
+
+        signals[2].setDisplayHighestAspect(false);
+        assertAspects(signals, SignalAspect.YELLOW, SignalAspect.DOUBLE_YELLOW, SignalAspect.RED,
+            SignalAspect.YELLOW, SignalAspect.DOUBLE_YELLOW, SignalAspect.GREEN);
+
+        signals[2].setDisplayHighestAspect(true);
+        assertAspects(signals, SignalAspect.YELLOW, SignalAspect.DOUBLE_YELLOW, SignalAspect.GREEN,
+            SignalAspect.GREEN, SignalAspect.GREEN, SignalAspect.GREEN);
+
+    }
+
+    @Test
+    public void testChangeOnlyTravelsAsFarAsTheAspectsChange () {
+
+        AutomaticSignal[] signals = line("PC", 1000);
+        long changed = AspectPropagatorTest.changed();
+
+        signals[0].setDisplayHighestAspect(false);
+        assertAspects(signals, SignalAspect.RED, SignalAspect.YELLOW, SignalAspect.DOUBLE_YELLOW, SignalAspect.GREEN);
+        assertEquals(SignalAspect.GREEN, signals[signals.length - 1].getCurrentAspect());
+        assertEquals("Only the two signals in rear that changed aspect are passed on", 2, AspectPropagatorTest.changed() - changed);
+
+    }
+
+    @Test
+    public void testRouteDoesNotMergeComponents () {
+
+        AutomaticSignal[] signals = line("PD", 3);
+        ControlledSignal entry = new ControlledSignal("PE", "1", SignalType.COLOUR_LIGHT_4);
+        long components = AspectPropagatorTest.statistic("components ");
+
+        entry.setSignal("PD", "3");
+        assertEquals(SignalAspect.GREEN, signals[2].getCurrentAspect());
+        assertEquals(SignalAspect.GREEN, entry.getCurrentAspect());
+        assertEquals("The route is passed aspects, but the components stay apart", components, AspectPropagatorTest.statistic("components "));
+
+        signals[2].setDisplayHighestAspect(false);
+        assertEquals(SignalAspect.YELLOW, entry.getCurrentAspect());
+
+        entry.signalOn();
+        assertEquals(SignalAspect.RED, entry.getCurrentAspect());
+        assertEquals(components, AspectPropagatorTest.statistic("components "));
+
+    }
+
+    // This method returns the number of signals in rear whose aspect has changed, from the propagation statistics.
+    private static long changed () {
+        return AspectPropagatorTest.statistic("changed ");
+    }
+
+    // This method returns a single figure from the propagation statistics, given the words that come before it.
+    private static long statistic (String name) {
+
+        String statistics = AspectPropagator.getStatistics();
+        int start = statistics.indexOf(name) + name.length();
+        return Long.parseLong(statistics.substring(start, statistics.indexOf(',', start)));
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.jgm.lineside.signals;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This Class tests the aspect tables built for each SignalType against the rules they replace.
+ *
+ * @author Jonathan Moss
+ * @version v1.0 November 2016
+ */
+public class SignalTypeTest {
+
+    // This method returns the best aspect to display, worked out by the original rules from the aspect of the next signal.
+    private static SignalAspect expectedAspect (SignalType type, SignalAspect next, Boolean repeater, Boolean coActing) {
+
+        if (coActing) {
+            return next; // A Co-Acting Signal displays an identical aspect.
+        }
+
+        Boolean fourAspect = type.toString().contains("_4");
+
+        switch (next) {
+
+            case SPAD_INDICATOR_ILLUMINATED:
+            case BLACK:
+            case TOP_YELLOW:
+                return repeater ? SignalAspect.CAUTION : SignalAspect.RED;
+
+            case SUB_OFF:
+            case FLASHING_WHITE:
+            case RED:
+                return repeater ? SignalAspect.CAUTION : SignalAspect.YELLOW;
+
+            case YELLOW:
+                if (repeater) {
+                    return SignalAspect.CLEAR;
+                }
+                return fourAspect ? SignalAspect.DOUBLE_YELLOW : SignalAspect.GREEN;
+
+            case GREEN:
+            case FLASHING_DOUBLE_YELLOW:
+            case DOUBLE_YELLOW:
+                return repeater ? SignalAspect.CLEAR : SignalAspect.GREEN;
+
+            case FLASHING_YELLOW:
+                if (repeater) {
+                    return SignalAspect.CLEAR;
+                }
+                return fourAspect ? SignalAspect.FLASHING_DOUBLE_YELLOW : SignalAspect.GREEN;
+
+        }
+
+        return SignalAspect.RED;
+
+    }
+
+    @Test
+    public void testBestAspectTablesFollowTheRules () {
+
+        for (SignalType type : SignalType.values()) {
+            for (Boolean repeater : new Boolean[] {false, true}) {
+                for (Boolean coActing : new Boolean[] {false, true}) {
+
+                    SignalAspect[] table = type.returnBestAspects(repeater, coActing);
+                    assertEquals(SignalAspect.values().length, table.length);
+
+                    for (SignalAspect next : SignalAspect.values()) {
+                        assertEquals(String.format ("%s, repeater %s, co-acting %s, next %s", type, repeater, coActing, next),
+                            expectedAspect(type, next, repeater, coActing), table[next.ordinal()]);
+                    }
+
+                }
+            }
+        }
+
+    }
+
+    @Test
+    public void testFourAspectTypesStepUpThroughDoubleYellow () {
+
+        SignalAspect[] table = SignalType.COLOUR_LIGHT_4.returnBestAspects(false, false);
+
+        assertEquals(SignalAspect.YELLOW, table[SignalAspect.RED.ordinal()]);
+        assertEquals(SignalAspect.DOUBLE_YELLOW, table[SignalAspect.YELLOW.ordinal()]);
+        assertEquals(SignalAspect.GREEN, table[SignalAspect.DOUBLE_YELLOW.ordinal()]);
+        assertEquals(SignalAspect.GREEN, SignalType.COLOUR_LIGHT_3.returnBestAspects(false, false)[SignalAspect.YELLOW.ordinal()]);
+
+    }
+
+    @Test
+    public void testApplicableAspectsMatchTheList () {
+
+        for (SignalType type : SignalType.values()) {
+
+            SignalAspect[] applicable = type.returnApplicableSignalAspect();
+
+            for (SignalAspect aspect : SignalAspect.values()) {
+                assertEquals(String.format ("%s, %s", type, aspect),
+                    Arrays.asList(applicable).contains(aspect), type.isApplicable(aspect));
+            }
+
+        }
+
+    }
+
+}